@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * The kind of threads delivering web socket messages to the subscribers,
+ * through the {@link com.github.rishabh9.riko.upstox.websockets.dispatchers.DispatchExecutor}.
+ * <p>
+ * Selected by {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys#RIKO_EXECUTION_MODE}.
+ * Virtual threads need JDK 21 or later; Riko falls back to platform threads on earlier JDKs.
+ * </p>
+ * <p>
+ * The REST calls always run on platform threads: OkHttp 3.10 does blocking I/O inside
+ * synchronized blocks, which pins virtual threads to their carriers.
+ * </p>
+ */
+public enum ExecutionMode {
+
+    /**
+     * Pools of platform threads, as Riko always used.
+     */
+    PLATFORM,
+
+    /**
+     * Pools of virtual threads, so that subscribers can block cheaply.
+     * Only with the {@link com.github.rishabh9.riko.upstox.websockets.dispatchers.WaitStrategy#BLOCKING}
+     * wait strategy, as the others keep their carrier thread busy.
+     */
+    VIRTUAL;
+
+    private static final Logger log = LogManager.getLogger(ExecutionMode.class);
+
+    /**
+     * {@code Thread.ofVirtual()}, or {@code null} before JDK 21.
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    /**
+     * @return The mode configured by the system properties,
+     * or {@link #PLATFORM} if virtual threads are not supported by the JDK.
+     */
+    public static ExecutionMode fromSystemProperties() {
+        final ExecutionMode mode = valueOf(
+                System.getProperty(RIKO_EXECUTION_MODE, RIKO_EXECUTION_MODE_DEFAULT).toUpperCase());
+        if (VIRTUAL == mode && !isVirtualThreadSupported()) {
+            log.warn("Virtual threads need JDK 21 or later, running on platform threads instead.");
+            return PLATFORM;
+        }
+        return mode;
+    }
+
+    /**
+     * @return Whether the JDK supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return null != OF_VIRTUAL;
+    }
+
+    /**
+     * @param namePrefix Prefix of the thread names, followed by a counter.
+     * @return A factory of daemon threads of this mode.
+     */
+    public ThreadFactory newThreadFactory(final String namePrefix) {
+        if (VIRTUAL == this) {
+            try {
+                final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+                return (ThreadFactory) FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to create virtual threads.", e);
+            }
+        }
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
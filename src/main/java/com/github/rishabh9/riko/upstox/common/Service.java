@@ -24,9 +24,6 @@
 
 package com.github.rishabh9.riko.upstox.common;
 
-import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
-import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
-import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -53,11 +50,9 @@ public abstract class Service {
     protected <T> T prepareServiceApi(@Nonnull final Class<T> type) {
 
         log.debug("Preparing service API: {}", type.getName());
-        final AccessToken accessToken = upstoxAuthService.getAccessToken();
-        final ApiCredentials credentials = upstoxAuthService.getApiCredentials();
-
-        final String token = accessToken.getType() + " " + accessToken.getToken();
-        return ServiceGenerator.getInstance()
-                .createService(type, new AuthHeaders(token, credentials.getApiKey()));
+        // Fail on the caller's thread; the interceptor could only fail the call
+        Objects.requireNonNull(upstoxAuthService.getAccessToken(), "Access token is not available.");
+        Objects.requireNonNull(upstoxAuthService.getApiCredentials(), "API credentials are not available.");
+        return ServiceGenerator.getInstance().createService(type, upstoxAuthService);
     }
 }
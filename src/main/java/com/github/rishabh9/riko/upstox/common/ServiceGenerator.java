@@ -25,19 +25,39 @@
 package com.github.rishabh9.riko.upstox.common;
 
 import com.github.rishabh9.riko.upstox.common.converters.AlwaysListTypeAdapterFactory;
+import com.github.rishabh9.riko.upstox.common.converters.BigDecimalTypeAdapter;
+import com.github.rishabh9.riko.upstox.common.converters.LongTypeAdapter;
 import com.github.rishabh9.riko.upstox.common.converters.NumberString;
-import com.github.rishabh9.riko.upstox.common.converters.NumberStringDeserializer;
-import com.github.rishabh9.riko.upstox.common.converters.NumberStringSerializer;
+import com.github.rishabh9.riko.upstox.common.converters.NumberStringTypeAdapter;
+import com.github.rishabh9.riko.upstox.common.hedge.HedgingCallAdapterFactory;
 import com.github.rishabh9.riko.upstox.common.interceptors.AuthenticationInterceptor;
 import com.github.rishabh9.riko.upstox.common.interceptors.HttpErrorLoggingInterceptor;
+import com.github.rishabh9.riko.upstox.common.metrics.ConnectionMetrics;
+import com.github.rishabh9.riko.upstox.common.metrics.HedgeMetrics;
 import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
+import com.github.rishabh9.riko.upstox.common.metrics.RateLimitMetrics;
+import com.github.rishabh9.riko.upstox.common.models.ConnectionSettings;
+import com.github.rishabh9.riko.upstox.common.models.HedgeSettings;
+import com.github.rishabh9.riko.upstox.common.models.RateLimitSettings;
+import com.github.rishabh9.riko.upstox.common.models.RetrySettings;
+import com.github.rishabh9.riko.upstox.common.ratelimit.EndpointClass;
+import com.github.rishabh9.riko.upstox.common.ratelimit.RateLimitedCallAdapterFactory;
+import com.github.rishabh9.riko.upstox.common.ratelimit.RateLimiter;
+import com.github.rishabh9.riko.upstox.common.retry.RetryingCallAdapterFactory;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
-import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -47,37 +67,76 @@ import retrofit2.converter.gson.GsonConverterFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
 
+/**
+ * Creates the retrofitted API services.
+ * Safe to be shared by any number of threads; the state is an immutable
+ * snapshot replaced atomically, so no caller ever observes another caller's client.
+ */
 public class ServiceGenerator {
 
     private static final Logger log = LogManager.getLogger(ServiceGenerator.class);
 
     private ServiceGenerator() {
         final Gson gson = new GsonBuilder()
-                .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
-                .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
+                .registerTypeAdapter(NumberString.class, new NumberStringTypeAdapter())
+                .registerTypeAdapter(BigDecimal.class, new BigDecimalTypeAdapter())
+                .registerTypeAdapter(Long.class, new LongTypeAdapter())
                 .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
                 .create();
         final String readTimeout = System.getProperty(RIKO_READ_TIMEOUT);
         final String writeTimeout = System.getProperty(RIKO_WRITE_TIMEOUT);
         final String connectTimeout = System.getProperty(RIKO_CONNECT_TIMEOUT);
-        this.httpClient = new OkHttpClient.Builder();
+        final OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
         if (!Strings.isNullOrEmpty(readTimeout)) {
-            this.httpClient.readTimeout(
+            httpClient.readTimeout(
                     Long.parseLong(readTimeout), TimeUnit.SECONDS);
         }
         if (!Strings.isNullOrEmpty(connectTimeout)) {
-            this.httpClient.connectTimeout(
+            httpClient.connectTimeout(
                     Long.parseLong(connectTimeout), TimeUnit.SECONDS);
         }
         if (!Strings.isNullOrEmpty(writeTimeout)) {
-            this.httpClient.writeTimeout(
+            httpClient.writeTimeout(
                     Long.parseLong(writeTimeout), TimeUnit.SECONDS);
         }
+        if (Boolean.parseBoolean(System.getProperty(RIKO_HTTP2_ENABLED, RIKO_HTTP2_ENABLED_DEFAULT))) {
+            // Negotiated over TLS; calls to the same host then share a single multiplexed connection.
+            httpClient.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        } else {
+            httpClient.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        }
+        enableHttpErrorLogging(httpClient);
+        if (log.isDebugEnabled()) {
+            enableHttpLogging(httpClient);
+        }
+        this.template = httpClient.build();
+        // Always platform threads, whatever the ExecutionMode
+        this.dispatcher = new Dispatcher();
+        // Each open socket holds its call, and so its slot, for as long as it stays open
+        this.webSocketDispatcher = new Dispatcher(dispatcher.executorService());
+        webSocketDispatcher.setMaxRequests(Integer.MAX_VALUE);
+        webSocketDispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+        final ConnectionSettings settings = ConnectionSettings.fromSystemProperties();
+        final ConnectionPool connectionPool = newConnectionPool(settings);
+        final ConnectionMetrics metrics = new ConnectionMetrics(connectionPool, dispatcher);
+        final OkHttpClient client = newHttpClient(settings, connectionPool, metrics);
+
         final HttpUrl.Builder urlBuilder = new HttpUrl.Builder()
                 .scheme(System.getProperty(RIKO_SERVER_SCHEME, RIKO_SERVER_SCHEME_DEFAULT))
                 .host(System.getProperty(RIKO_SERVER_URL, RIKO_SERVER_URL_DEFAULT));
@@ -85,13 +144,27 @@ public class ServiceGenerator {
         if (!Strings.isNullOrEmpty(port)) {
             urlBuilder.port(Integer.parseInt(port));
         }
-        this.builder =
+        // A hedge is only worth sending if it does not queue behind other calls
+        this.hedging = new HedgingCallAdapterFactory(hedgeSettings::get, () -> 0 == dispatcher.queuedCallsCount());
+        final RateLimitSettings rateLimitSettings = RateLimitSettings.fromSystemProperties();
+        if (rateLimitSettings.isEnabled()) {
+            this.rateLimiter.set(new RateLimiter(rateLimitSettings));
+        }
+        final Retrofit retrofit =
                 new Retrofit.Builder()
                         .baseUrl(Objects.requireNonNull(urlBuilder.build()))
                         .addConverterFactory(GsonConverterFactory.create(gson))
+                        // The first factory wraps the call closest to OkHttp, so the rate limiter goes first:
+                        // each retry and each hedge clones the limited call, and waits for a permit of its own.
+                        .addCallAdapterFactory(new RateLimitedCallAdapterFactory(rateLimiter::get))
+                        .addCallAdapterFactory(new RetryingCallAdapterFactory(retrySettings::get))
+                        .addCallAdapterFactory(hedging)
                         .addCallAdapterFactory(Java8CallAdapterFactory.create())
-                        .client(httpClient.build());
-        this.retrofit = builder.build();
+                        .client(client)
+                        .build();
+        this.maxCachedClients = Integer.parseInt(
+                System.getProperty(RIKO_CLIENT_CACHE_SIZE, RIKO_CLIENT_CACHE_SIZE_DEFAULT));
+        this.snapshot = new AtomicReference<>(new Snapshot(client, metrics, retrofit));
     }
 
     private static final ServiceGenerator instance = new ServiceGenerator();
@@ -100,11 +173,54 @@ public class ServiceGenerator {
         return ServiceGenerator.instance;
     }
 
-    private OkHttpClient.Builder httpClient;
+    /**
+     * The template for every client. It carries the timeouts and the common interceptors,
+     * but never any authentication details.
+     */
+    private final OkHttpClient template;
+
+    /**
+     * The dispatcher shared by every client, resized in place by {@link #configure(ConnectionSettings)}.
+     */
+    private final Dispatcher dispatcher;
+
+    /**
+     * The dispatcher of the web sockets. It runs on the threads of {@link #dispatcher},
+     * but keeps the open sockets out of the limits of the REST calls.
+     */
+    private final Dispatcher webSocketDispatcher;
+
+    private final int maxCachedClients;
+
+    /**
+     * The current, immutable, state of the generator.
+     * Every change publishes a new snapshot, so callers never observe a partially built client.
+     */
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * The last web socket client handed out, reused for as long as its settings stay the same.
+     */
+    private final AtomicReference<WebSocketClient> webSocketClient = new AtomicReference<>();
+
+    /**
+     * The rate limiter of every service, or {@code null} while requests are not limited.
+     */
+    private final AtomicReference<RateLimiter> rateLimiter = new AtomicReference<>();
 
-    private Retrofit.Builder builder;
+    /**
+     * How every service retries idempotent calls.
+     */
+    private final AtomicReference<RetrySettings> retrySettings =
+            new AtomicReference<>(RetrySettings.fromSystemProperties());
+
+    /**
+     * How every service hedges the latency-critical reads.
+     */
+    private final AtomicReference<HedgeSettings> hedgeSettings =
+            new AtomicReference<>(HedgeSettings.fromSystemProperties());
 
-    private Retrofit retrofit;
+    private final HedgingCallAdapterFactory hedging;
 
     /**
      * A helper method for unit testing, allowing for random base URLs to be used per test.
@@ -113,9 +229,199 @@ public class ServiceGenerator {
      * @param url The base URL to use.
      */
     public void rebuildWithUrl(HttpUrl url) {
-        builder.client(httpClient.build());
-        builder.baseUrl(url);
-        retrofit = builder.build();
+        snapshot.updateAndGet(current -> new Snapshot(current.httpClient, current.metrics,
+                current.retrofit.newBuilder().baseUrl(url).build()));
+    }
+
+    /**
+     * Resize the connection pool and the dispatcher used by every service.
+     * Services created afterwards use the new pool. Calls already in flight are not affected.
+     * The {@link ConnectionMetrics} are reset.
+     *
+     * @param settings The connection settings.
+     */
+    public void configure(@Nonnull final ConnectionSettings settings) {
+
+        Objects.requireNonNull(settings);
+        log.debug("Configuring connections: {}", settings);
+        final ConnectionPool connectionPool = newConnectionPool(settings);
+        final ConnectionMetrics metrics = new ConnectionMetrics(connectionPool, dispatcher);
+        final OkHttpClient client = newHttpClient(settings, connectionPool, metrics);
+        // Keeps the base URL set meanwhile by a concurrent rebuildWithUrl
+        final Snapshot previous = snapshot.getAndUpdate(current ->
+                new Snapshot(client, metrics, current.retrofit.newBuilder().client(client).build()));
+        // Only the idle connections go; the busy ones are closed once released.
+        previous.httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Open connections to the Upstox API ahead of time, so that the first orders
+     * do not pay for the TCP and TLS handshakes. Meant to be called before trading starts.
+     * <p>
+     * Each connection is primed with a HEAD request to the server.
+     * With HTTP/2 a single connection is enough, as every call is multiplexed over it.
+     * The connections stay in the pool for the configured keep-alive duration.
+     * </p>
+     *
+     * @param connections Number of connections to open.
+     * @return The number of connections successfully primed.
+     * The future never completes exceptionally; failures are only logged.
+     */
+    public CompletableFuture<Integer> warmUp(final int connections) {
+
+        if (connections < 1) {
+            throw new IllegalArgumentException("Number of connections to warm up must be positive.");
+        }
+        final Snapshot current = snapshot.get();
+        final Request request = new Request.Builder()
+                .url(current.retrofit.baseUrl())
+                .head()
+                .build();
+        final AtomicInteger primed = new AtomicInteger();
+        final AtomicInteger remaining = new AtomicInteger(connections);
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+        log.debug("Warming up {} connection(s) to {}", connections, request.url());
+        for (int i = 0; i < connections; i++) {
+            current.httpClient.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    log.warn("Unable to warm up a connection to {}", request.url(), e);
+                    done();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    // Any response means the connection is up, even an error.
+                    response.close();
+                    primed.incrementAndGet();
+                    done();
+                }
+
+                private void done() {
+                    if (remaining.decrementAndGet() == 0) {
+                        result.complete(primed.get());
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return The counters of the connection pool and the dispatcher currently in use.
+     */
+    public ConnectionMetrics getConnectionMetrics() {
+        return snapshot.get().metrics;
+    }
+
+    /**
+     * Limit the rate of the requests of every service, including those already created.
+     * Orders placed, modified or cancelled go ahead of any other waiting request,
+     * and polling of the portfolio goes last.
+     * Requests already waiting for the previous limiter are not affected.
+     * The {@link RateLimitMetrics} are reset.
+     *
+     * @param settings The rate limit settings.
+     */
+    public void configureRateLimits(@Nonnull final RateLimitSettings settings) {
+
+        Objects.requireNonNull(settings);
+        log.debug("Configuring rate limits: {}", settings);
+        rateLimiter.set(settings.isEnabled() ? new RateLimiter(settings) : null);
+    }
+
+    /**
+     * Retry the idempotent calls of every service, including those already created,
+     * after a transient failure. Calls already in flight are not affected.
+     *
+     * @param settings The retry settings.
+     */
+    public void configureRetries(@Nonnull final RetrySettings settings) {
+
+        Objects.requireNonNull(settings);
+        log.debug("Configuring retries: {}", settings);
+        retrySettings.set(settings);
+    }
+
+    /**
+     * @return How idempotent calls are currently retried.
+     */
+    public RetrySettings getRetrySettings() {
+        return retrySettings.get();
+    }
+
+    /**
+     * Hedge the latency-critical reads of every service, including those already created.
+     * Calls already in flight are not affected.
+     *
+     * @param settings The hedge settings.
+     */
+    public void configureHedging(@Nonnull final HedgeSettings settings) {
+
+        Objects.requireNonNull(settings);
+        log.debug("Configuring hedging: {}", settings);
+        hedgeSettings.set(settings);
+    }
+
+    /**
+     * @return The counters of every hedged endpoint called so far, by path.
+     */
+    public Map<String, HedgeMetrics> getHedgeMetrics() {
+        return hedging.getMetrics();
+    }
+
+    /**
+     * @return The counters of the rate limiter per class of endpoints,
+     * or an empty map if requests are not limited.
+     */
+    public Map<EndpointClass, RateLimitMetrics> getRateLimitMetrics() {
+        final RateLimiter current = rateLimiter.get();
+        return null == current ? Collections.emptyMap() : current.getMetrics();
+    }
+
+    /**
+     * The client to open web sockets with, derived from the client used by every service.
+     * It shares their threads, connection pool, DNS and TLS setup, so opening a socket
+     * starts no pools of its own, and there is nothing to shut down when it closes.
+     * It carries none of their interceptors, which are meant for REST calls.
+     * <p>
+     * The same client is returned for as long as the settings, and the client of the services,
+     * remain unchanged. An open socket occupies one of the shared threads, as its reader runs on it,
+     * but it is dispatched separately, so it never counts against
+     * {@link ConnectionSettings#getMaxRequests()} or {@link ConnectionSettings#getMaxRequestsPerHost()}.
+     * </p>
+     *
+     * @param pingIntervalSeconds      Interval between pings, {@code 0} for none.
+     * @param timeoutSeconds           Read and write timeouts.
+     * @param retryOnConnectionFailure Whether to retry when connecting fails.
+     * @return The web socket client.
+     */
+    public OkHttpClient getWebSocketClient(final long pingIntervalSeconds,
+                                           final long timeoutSeconds,
+                                           final boolean retryOnConnectionFailure) {
+
+        final OkHttpClient base = snapshot.get().httpClient;
+        final WebSocketClient current = webSocketClient.get();
+        if (null != current && current.base == base && current.pingIntervalSeconds == pingIntervalSeconds
+                && current.timeoutSeconds == timeoutSeconds
+                && current.retryOnConnectionFailure == retryOnConnectionFailure) {
+            return current.client;
+        }
+        log.debug("Building the web socket client");
+        final OkHttpClient.Builder builder = base.newBuilder();
+        builder.interceptors().clear();
+        builder.networkInterceptors().clear();
+        final OkHttpClient client = builder
+                .dispatcher(webSocketDispatcher)
+                .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .pingInterval(pingIntervalSeconds, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(retryOnConnectionFailure)
+                .build();
+        // Racing callers may each build one; either is as good as the other.
+        webSocketClient.set(new WebSocketClient(base, pingIntervalSeconds, timeoutSeconds,
+                retryOnConnectionFailure, client));
+        return client;
     }
 
     /**
@@ -153,11 +459,13 @@ public class ServiceGenerator {
                     new AuthHeaders(authToken, username));
         }
         // Setup request headers without any auth
-        return createService(Objects.requireNonNull(serviceClass), null);
+        return createService(Objects.requireNonNull(serviceClass), (AuthHeaders) null);
     }
 
     /**
-     * Create service with Token Authorization
+     * Create service with Token Authorization.
+     * The client stack and the service are built only once per set of headers,
+     * and are reused by every subsequent call made with the same headers.
      *
      * @param serviceClass The Service
      * @param headers      The Authentication headers
@@ -167,51 +475,191 @@ public class ServiceGenerator {
     public <S> S createService(@Nonnull final Class<S> serviceClass,
                                @Nullable final AuthHeaders headers) {
 
-        httpClient.interceptors().clear(); // Fix StackOverFlowError
-
-        enableAuthentication(headers);
-        enableHttpErrorLogging();
-        if (log.isDebugEnabled()) {
-            enableHttpLogging();
+        Objects.requireNonNull(serviceClass);
+        if (!isAuthenticationEnabled(headers)) {
+            log.debug("Creating service without authorization headers");
+            return snapshot.get().unauthenticated.service(serviceClass);
         }
         log.debug("Creating service with authorization headers");
-        return retrofit.create(Objects.requireNonNull(serviceClass));
+        return getClientStack(headers,
+                () -> new AuthenticationInterceptor(headers.getToken(), headers.getApiKey()))
+                .service(serviceClass);
     }
 
-    private void enableHttpErrorLogging() {
-        addInterceptor(new HttpErrorLoggingInterceptor());
+    /**
+     * Create service with Token Authorization, where the token is read from
+     * the {@link UpstoxAuthService} on every request.
+     * The client stack is built only once per {@link UpstoxAuthService},
+     * hence rotating the token does not rebuild anything.
+     *
+     * @param serviceClass      The Service
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param <S>               The type of Service
+     * @return The retrofitted service
+     */
+    public <S> S createService(@Nonnull final Class<S> serviceClass,
+                               @Nonnull final UpstoxAuthService upstoxAuthService) {
+
+        Objects.requireNonNull(serviceClass);
+        Objects.requireNonNull(upstoxAuthService);
+        log.debug("Creating service with token refreshing authorization");
+        return getClientStack(upstoxAuthService,
+                () -> new AuthenticationInterceptor(upstoxAuthService))
+                .service(serviceClass);
     }
 
-    private void enableAuthentication(final AuthHeaders headers) {
+    private ClientStack getClientStack(final Object key,
+                                       final Supplier<AuthenticationInterceptor> authentication) {
 
-        if (null != headers
+        while (true) {
+            final Snapshot current = snapshot.get();
+            final ClientStack stack = current.authenticated.get(key);
+            if (null != stack) {
+                return stack;
+            }
+            final ClientStack created = newClientStack(current, authentication.get());
+            if (snapshot.compareAndSet(current, current.with(key, created, maxCachedClients))) {
+                return created;
+            }
+            // Lost the race to another thread, retry with whatever it has published.
+        }
+    }
+
+    private ClientStack newClientStack(final Snapshot base,
+                                       final AuthenticationInterceptor authentication) {
+
+        log.debug("Building a new HTTP client with auth headers interceptor");
+        final OkHttpClient.Builder builder = base.httpClient.newBuilder();
+        // Authentication headers must be in place before the other interceptors see the request.
+        builder.interceptors().add(0, authentication);
+        return new ClientStack(base.retrofit.newBuilder().client(builder.build()).build());
+    }
+
+    private ConnectionPool newConnectionPool(final ConnectionSettings settings) {
+        return new ConnectionPool(settings.getMaxIdleConnections(),
+                settings.getKeepAliveDurationMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private OkHttpClient newHttpClient(final ConnectionSettings settings,
+                                       final ConnectionPool connectionPool,
+                                       final ConnectionMetrics metrics) {
+        dispatcher.setMaxRequests(settings.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(settings.getMaxRequestsPerHost());
+        return template.newBuilder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .eventListener(metrics)
+                .build();
+    }
+
+    private boolean isAuthenticationEnabled(final AuthHeaders headers) {
+        return null != headers
                 && !Strings.isNullOrEmpty(headers.getToken())
-                && !Strings.isNullOrEmpty(headers.getApiKey())) {
+                && !Strings.isNullOrEmpty(headers.getApiKey());
+    }
 
-            log.debug("Adding auth headers interceptor");
-            addInterceptor(
-                    new AuthenticationInterceptor(
-                            headers.getToken(), headers.getApiKey()));
-        }
+    private void enableHttpErrorLogging(final OkHttpClient.Builder builder) {
+        builder.addInterceptor(new HttpErrorLoggingInterceptor());
     }
 
-    private void enableHttpLogging() {
+    private void enableHttpLogging(final OkHttpClient.Builder builder) {
 
         final HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
         // Set the desired log level
         interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
         log.debug("Adding HTTP logging interceptor");
-        addInterceptor(interceptor);
+        builder.addInterceptor(interceptor);
     }
 
-    private void addInterceptor(Interceptor interceptor) {
+    /**
+     * Immutable state of the generator: the base client, the base Retrofit instance
+     * and the client stacks derived from them.
+     */
+    private static final class Snapshot {
+
+        private final OkHttpClient httpClient;
+        private final ConnectionMetrics metrics;
+        private final Retrofit retrofit;
+        private final ClientStack unauthenticated;
+        /**
+         * Keyed by either the {@link AuthHeaders} or the {@link UpstoxAuthService}
+         * the stack authenticates with.
+         */
+        private final ImmutableMap<Object, ClientStack> authenticated;
+
+        private Snapshot(final OkHttpClient httpClient,
+                         final ConnectionMetrics metrics,
+                         final Retrofit retrofit) {
+            this(httpClient, metrics, retrofit, new ClientStack(retrofit), ImmutableMap.of());
+        }
 
-        if (!httpClient.interceptors().contains(interceptor)) {
-            httpClient.addInterceptor(interceptor);
+        private Snapshot(final OkHttpClient httpClient,
+                         final ConnectionMetrics metrics,
+                         final Retrofit retrofit,
+                         final ClientStack unauthenticated,
+                         final ImmutableMap<Object, ClientStack> authenticated) {
+            this.httpClient = httpClient;
+            this.metrics = metrics;
+            this.retrofit = retrofit;
+            this.unauthenticated = unauthenticated;
+            this.authenticated = authenticated;
+        }
 
-            builder.client(httpClient.build());
-            retrofit = builder.build();
+        /**
+         * @return A copy of this snapshot with the given stack added.
+         * The oldest stacks are dropped to keep at most {@code maxSize} of them.
+         */
+        private Snapshot with(final Object key, final ClientStack stack, final int maxSize) {
+            final ImmutableMap.Builder<Object, ClientStack> builder = ImmutableMap.builder();
+            authenticated.entrySet().stream()
+                    .skip(Math.max(0, authenticated.size() - Math.max(0, maxSize - 1)))
+                    .forEach(builder::put);
+            return new Snapshot(httpClient, metrics, retrofit, unauthenticated, builder.put(key, stack).build());
         }
     }
 
+    /**
+     * A web socket client along with the settings and the base client it was built from.
+     */
+    private static final class WebSocketClient {
+
+        private final OkHttpClient base;
+        private final long pingIntervalSeconds;
+        private final long timeoutSeconds;
+        private final boolean retryOnConnectionFailure;
+        private final OkHttpClient client;
+
+        private WebSocketClient(final OkHttpClient base,
+                                final long pingIntervalSeconds,
+                                final long timeoutSeconds,
+                                final boolean retryOnConnectionFailure,
+                                final OkHttpClient client) {
+            this.base = base;
+            this.pingIntervalSeconds = pingIntervalSeconds;
+            this.timeoutSeconds = timeoutSeconds;
+            this.retryOnConnectionFailure = retryOnConnectionFailure;
+            this.client = client;
+        }
+    }
+
+    /**
+     * An immutable Retrofit instance along with the API proxies it has created.
+     */
+    private static final class ClientStack {
+
+        private final Retrofit retrofit;
+        private final ConcurrentMap<Class<?>, Object> services = new ConcurrentHashMap<>();
+
+        private ClientStack(final Retrofit retrofit) {
+            this.retrofit = retrofit;
+        }
+
+        private <S> S service(final Class<S> serviceClass) {
+            final Object service = services.get(serviceClass);
+            if (null != service) {
+                return serviceClass.cast(service);
+            }
+            return serviceClass.cast(services.computeIfAbsent(serviceClass, retrofit::create));
+        }
+    }
 }
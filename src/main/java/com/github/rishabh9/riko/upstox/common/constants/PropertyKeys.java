@@ -34,6 +34,27 @@ public class PropertyKeys {
     public static final String RIKO_CONNECT_TIMEOUT = "riko.connect.timeout";
     public static final int RIKO_CONNECT_TIMEOUT_DEFAULT = 10;
 
+    public static final String RIKO_MAX_REQUESTS = "riko.max.requests";
+    public static final String RIKO_MAX_REQUESTS_DEFAULT = "64";
+
+    public static final String RIKO_MAX_REQUESTS_PER_HOST = "riko.max.requests.per.host";
+    public static final String RIKO_MAX_REQUESTS_PER_HOST_DEFAULT = "16";
+
+    public static final String RIKO_MAX_IDLE_CONNECTIONS = "riko.max.idle.connections";
+    public static final String RIKO_MAX_IDLE_CONNECTIONS_DEFAULT = "5";
+
+    public static final String RIKO_KEEP_ALIVE_DURATION = "riko.keep.alive.duration";
+    public static final String RIKO_KEEP_ALIVE_DURATION_DEFAULT = "300";
+
+    public static final String RIKO_HTTP2_ENABLED = "riko.http2.enabled";
+    public static final String RIKO_HTTP2_ENABLED_DEFAULT = "true";
+
+    public static final String RIKO_CLIENT_CACHE_SIZE = "riko.client.cache.size";
+    public static final String RIKO_CLIENT_CACHE_SIZE_DEFAULT = "16";
+
+    public static final String RIKO_EXECUTION_MODE = "riko.execution.mode";
+    public static final String RIKO_EXECUTION_MODE_DEFAULT = "platform";
+
     public static final String RIKO_SERVER_SCHEME = "riko.server.scheme";
     public static final String RIKO_SERVER_SCHEME_DEFAULT = "https";
 
@@ -52,6 +73,75 @@ public class PropertyKeys {
     public static final String RIKO_WS_SERVER_PORT = "riko.ws.server.port";
     public static final int RIKO_WS_SERVER_PORT_DEFAULT = 443;
 
+    public static final String RIKO_WS_DISPATCHER = "riko.ws.dispatcher";
+    public static final String RIKO_WS_DISPATCHER_DEFAULT = "ring";
+
+    public static final String RIKO_WS_RING_SIZE = "riko.ws.ring.size";
+    public static final String RIKO_WS_RING_SIZE_DEFAULT = "1024";
+
+    public static final String RIKO_WS_WAIT_STRATEGY = "riko.ws.wait.strategy";
+    public static final String RIKO_WS_WAIT_STRATEGY_DEFAULT = "BLOCKING";
+
+    public static final String RIKO_WS_DISPATCH_THREADS = "riko.ws.dispatch.threads";
+    public static final String RIKO_WS_DISPATCH_THREADS_DEFAULT = "0";
+
     public static final String RIKO_WS_RECONNECT = "riko.ws.reconnect";
     public static final String RIKO_WS_RECONNECT_DEFAULT = "true";
+
+    public static final String RIKO_WS_RECONNECT_BACKOFF_INITIAL = "riko.ws.reconnect.backoff.initial";
+    public static final String RIKO_WS_RECONNECT_BACKOFF_INITIAL_DEFAULT = "500";
+
+    public static final String RIKO_WS_RECONNECT_BACKOFF_MAX = "riko.ws.reconnect.backoff.max";
+    public static final String RIKO_WS_RECONNECT_BACKOFF_MAX_DEFAULT = "30000";
+
+    public static final String RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH = "riko.feed.subscribe.chunk.length";
+    public static final String RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH_DEFAULT = "1500";
+
+    public static final String RIKO_FEED_CACHE_TTL = "riko.feed.cache.ttl";
+    public static final String RIKO_FEED_CACHE_TTL_DEFAULT = "250";
+
+    public static final String RIKO_RATE_LIMIT_ENABLED = "riko.rate.limit.enabled";
+    public static final String RIKO_RATE_LIMIT_ENABLED_DEFAULT = "false";
+
+    public static final String RIKO_RATE_LIMIT_GLOBAL = "riko.rate.limit.global";
+    public static final String RIKO_RATE_LIMIT_GLOBAL_DEFAULT = "20";
+
+    public static final String RIKO_RATE_LIMIT_ORDERS = "riko.rate.limit.orders";
+    public static final String RIKO_RATE_LIMIT_ORDERS_DEFAULT = "10";
+
+    public static final String RIKO_RATE_LIMIT_PORTFOLIO = "riko.rate.limit.portfolio";
+    public static final String RIKO_RATE_LIMIT_PORTFOLIO_DEFAULT = "5";
+
+    public static final String RIKO_RATE_LIMIT_FEED = "riko.rate.limit.feed";
+    public static final String RIKO_RATE_LIMIT_FEED_DEFAULT = "10";
+
+    public static final String RIKO_RATE_LIMIT_HISTORICAL = "riko.rate.limit.historical";
+    public static final String RIKO_RATE_LIMIT_HISTORICAL_DEFAULT = "3";
+
+    public static final String RIKO_RETRY_ENABLED = "riko.retry.enabled";
+    public static final String RIKO_RETRY_ENABLED_DEFAULT = "false";
+
+    public static final String RIKO_RETRY_MAX_ATTEMPTS = "riko.retry.max.attempts";
+    public static final String RIKO_RETRY_MAX_ATTEMPTS_DEFAULT = "3";
+
+    public static final String RIKO_RETRY_BACKOFF_INITIAL = "riko.retry.backoff.initial";
+    public static final String RIKO_RETRY_BACKOFF_INITIAL_DEFAULT = "100";
+
+    public static final String RIKO_RETRY_BACKOFF_MAX = "riko.retry.backoff.max";
+    public static final String RIKO_RETRY_BACKOFF_MAX_DEFAULT = "1000";
+
+    public static final String RIKO_RETRY_DEADLINE = "riko.retry.deadline";
+    public static final String RIKO_RETRY_DEADLINE_DEFAULT = "3000";
+
+    public static final String RIKO_HEDGE_ENABLED = "riko.hedge.enabled";
+    public static final String RIKO_HEDGE_ENABLED_DEFAULT = "false";
+
+    public static final String RIKO_HEDGE_PERCENTILE = "riko.hedge.percentile";
+    public static final String RIKO_HEDGE_PERCENTILE_DEFAULT = "95";
+
+    public static final String RIKO_HEDGE_DELAY_INITIAL = "riko.hedge.delay.initial";
+    public static final String RIKO_HEDGE_DELAY_INITIAL_DEFAULT = "100";
+
+    public static final String RIKO_HEDGE_DELAY_MIN = "riko.hedge.delay.min";
+    public static final String RIKO_HEDGE_DELAY_MIN_DEFAULT = "10";
 }
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between the boxed numbers of the models and the primitive,
+ * fixed-point {@code long} values of their compact counterparts.
+ * <p>
+ * Amounts are stored in units of 1/10000 of a rupee (a hundredth of a paisa),
+ * which is fine enough for the smallest tick of every exchange, including
+ * currency derivatives. A missing value is represented by {@link #NULL}.
+ * </p>
+ */
+public final class FixedPoint {
+
+    /**
+     * Number of decimal places kept.
+     */
+    public static final int SCALE = 4;
+
+    /**
+     * Number of units in one rupee.
+     */
+    public static final long ONE = 10_000L;
+
+    /**
+     * Stands for a missing value.
+     */
+    public static final long NULL = Long.MIN_VALUE;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * @param value The amount. Digits beyond {@link #SCALE} are rounded half-up.
+     * @return The amount in fixed-point units, or {@link #NULL} if the amount is {@code null}.
+     */
+    public static long toFixed(final BigDecimal value) {
+        if (null == value) {
+            return NULL;
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @param value The amount.
+     * @return The amount in fixed-point units, or {@link #NULL} if it is not a number.
+     */
+    public static long toFixed(final NumberString value) {
+        if (null == value || !value.isNumber()) {
+            return NULL;
+        }
+        return toFixed(value.value());
+    }
+
+    /**
+     * @param units The amount in fixed-point units.
+     * @return The amount with a scale of {@link #SCALE}, or {@code null} for {@link #NULL}.
+     */
+    public static BigDecimal toBigDecimal(final long units) {
+        if (NULL == units) {
+            return null;
+        }
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * @param units The amount in fixed-point units.
+     * @return The amount, never {@code null}. Not a number for {@link #NULL}.
+     */
+    public static NumberString toNumberString(final long units) {
+        return new NumberString(toBigDecimal(units));
+    }
+
+    /**
+     * @param value A quantity, a count or a timestamp.
+     * @return The value unboxed, or {@link #NULL} if it is {@code null}.
+     */
+    public static long unbox(final Long value) {
+        return null == value ? NULL : value;
+    }
+
+    /**
+     * @param value A quantity, a count or a timestamp.
+     * @return The value boxed, or {@code null} for {@link #NULL}.
+     */
+    public static Long box(final long value) {
+        return NULL == value ? null : value;
+    }
+}
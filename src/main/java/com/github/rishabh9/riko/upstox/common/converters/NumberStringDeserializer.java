@@ -34,7 +34,10 @@ import java.math.BigDecimal;
 
 /**
  * Deserializer for Json, to support the custom data type {@link NumberString}.
+ *
+ * @deprecated Use the streaming {@link NumberStringTypeAdapter} instead.
  */
+@Deprecated
 public class NumberStringDeserializer implements JsonDeserializer<NumberString> {
 
     @Override
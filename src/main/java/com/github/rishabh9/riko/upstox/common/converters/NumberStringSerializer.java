@@ -33,7 +33,10 @@ import java.lang.reflect.Type;
 
 /**
  * Serializer for Json, to support the custom data type {@link NumberString}.
+ *
+ * @deprecated Use the streaming {@link NumberStringTypeAdapter} instead.
  */
+@Deprecated
 public class NumberStringSerializer implements JsonSerializer<NumberString> {
 
     @Override
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Streaming (de)serializer for Json, to support the custom data type {@link NumberString}.
+ * <p>
+ * Reads the value straight off the token stream, without building an intermediate
+ * tree, and recognises the empty strings sent by Upstox without relying on exceptions.
+ * </p>
+ */
+public class NumberStringTypeAdapter extends TypeAdapter<NumberString> {
+
+    @Override
+    public void write(final JsonWriter out, final NumberString value) throws IOException {
+        if (null == value) {
+            out.nullValue();
+        } else if (value.isNumber()) {
+            out.value(value.value());
+        } else {
+            out.value("");
+        }
+    }
+
+    @Override
+    public NumberString read(final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        switch (token) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case NUMBER:
+                return new NumberString(new BigDecimal(in.nextString()));
+            case STRING:
+                // Is it a number? Or is it a stupid empty string!
+                final String value = in.nextString();
+                return new NumberString(Numbers.isDecimal(value) ? new BigDecimal(value) : null);
+            default:
+                in.skipValue();
+                return new NumberString(null);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+/**
+ * Helpers to recognise the numbers sent by Upstox as strings,
+ * without relying on exceptions to detect the ones that are not.
+ */
+final class Numbers {
+
+    private static final String MAX_LONG_DIGITS = Long.toString(Long.MAX_VALUE);
+    private static final String MIN_LONG_DIGITS = Long.toString(Long.MIN_VALUE).substring(1);
+
+    private Numbers() {
+    }
+
+    /**
+     * @param value The string to check.
+     * @return {@code TRUE} if the string is empty or only made of whitespace.
+     */
+    static boolean isBlank(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates the string against the syntax accepted by {@link Long#parseLong(String)}.
+     *
+     * @param value The string to check.
+     * @return {@code TRUE} if the string is an optionally signed integer that fits in a {@code long}.
+     */
+    static boolean isLong(final String value) {
+        final int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+        if (i == length) {
+            return false;
+        }
+        for (int j = i; j < length; j++) {
+            if (value.charAt(j) < '0' || value.charAt(j) > '9') {
+                return false;
+            }
+        }
+        // Leading zeros do not count towards an overflow.
+        while (i < length - 1 && value.charAt(i) == '0') {
+            i++;
+        }
+        final String limit = value.charAt(0) == '-' ? MIN_LONG_DIGITS : MAX_LONG_DIGITS;
+        final int digits = length - i;
+        if (digits != limit.length()) {
+            return digits < limit.length();
+        }
+        return value.substring(i).compareTo(limit) <= 0;
+    }
+
+    /**
+     * Validates the string against the syntax accepted by {@link java.math.BigDecimal#BigDecimal(String)}.
+     *
+     * @param value The string to check.
+     * @return {@code TRUE} if the string is a decimal number, optionally signed and with an exponent.
+     */
+    static boolean isDecimal(final String value) {
+        final int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+        boolean digits = false;
+        boolean point = false;
+        for (; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!digits) {
+            return false;
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            final int exponentStart = i;
+            while (i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+                i++;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.hedge;
+
+import com.github.rishabh9.riko.upstox.common.metrics.HedgeMetrics;
+import com.github.rishabh9.riko.upstox.common.models.HedgeSettings;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The recent latencies and the counters of a hedged endpoint.
+ */
+final class HedgeTracker {
+
+    /**
+     * Number of recent latencies the delay is computed from.
+     */
+    private static final int WINDOW = 128;
+
+    /**
+     * Number of latencies needed before the delay is computed from them.
+     */
+    private static final int MIN_SAMPLES = 16;
+
+    private final long[] latencies = new long[WINDOW];
+    private int next;
+    private int size;
+
+    final AtomicLong calls = new AtomicLong();
+    final AtomicLong hedges = new AtomicLong();
+    final AtomicLong hedgeWins = new AtomicLong();
+    final AtomicLong skipped = new AtomicLong();
+
+    synchronized void record(final long latencyNanos) {
+        latencies[next] = latencyNanos;
+        next = (next + 1) % WINDOW;
+        size = Math.min(WINDOW, size + 1);
+    }
+
+    /**
+     * @return How long to wait for an answer before hedging.
+     */
+    long delayNanos(final HedgeSettings settings) {
+        final long[] sorted;
+        synchronized (this) {
+            if (size < MIN_SAMPLES) {
+                return TimeUnit.MILLISECONDS.toNanos(settings.getInitialDelayMillis());
+            }
+            sorted = Arrays.copyOf(latencies, size);
+        }
+        Arrays.sort(sorted);
+        final int index = Math.max(0, (int) Math.ceil(settings.getPercentile() * sorted.length / 100.0) - 1);
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(settings.getMinDelayMillis()), sorted[index]);
+    }
+
+    HedgeMetrics metrics(final HedgeSettings settings) {
+        return new HedgeMetrics(calls.get(), hedges.get(), hedgeWins.get(), skipped.get(),
+                TimeUnit.NANOSECONDS.toMillis(delayNanos(settings)));
+    }
+}
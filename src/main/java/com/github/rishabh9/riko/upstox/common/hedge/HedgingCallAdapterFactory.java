@@ -0,0 +1,279 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.hedge;
+
+import com.github.rishabh9.riko.upstox.common.metrics.HedgeMetrics;
+import com.github.rishabh9.riko.upstox.common.models.HedgeSettings;
+import okhttp3.Request;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedges the calls of the {@link Hedged} endpoints: when a call has not answered
+ * within the configured percentile of the endpoint's recent latencies, an identical call
+ * is sent, the first answer is taken and the other call is cancelled.
+ * A failure is only taken once the other call has failed as well.
+ * <p>
+ * It must be added after the {@link com.github.rishabh9.riko.upstox.common.ratelimit.RateLimitedCallAdapterFactory}:
+ * the hedge is a clone of the rate limited call, so it waits for a permit like any other call.
+ * No hedge is sent while the dispatcher is already queueing calls.
+ * Calls executed synchronously are not hedged.
+ * </p>
+ */
+public class HedgingCallAdapterFactory extends CallAdapter.Factory {
+
+    private static final Logger log = LogManager.getLogger(HedgingCallAdapterFactory.class);
+
+    private final Supplier<HedgeSettings> settings;
+    private final BooleanSupplier hasCapacity;
+    private final ConcurrentMap<String, HedgeTracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * @param settings    The settings to use, read on every call.
+     * @param hasCapacity Whether a hedge may be sent without queueing behind other calls.
+     */
+    public HedgingCallAdapterFactory(@Nonnull final Supplier<HedgeSettings> settings,
+                                     @Nonnull final BooleanSupplier hasCapacity) {
+        this.settings = Objects.requireNonNull(settings);
+        this.hasCapacity = Objects.requireNonNull(hasCapacity);
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@Nonnull final Type returnType,
+                                 @Nonnull final Annotation[] annotations,
+                                 @Nonnull final Retrofit retrofit) {
+        final CallAdapter<?, ?> delegate = retrofit.nextCallAdapter(this, returnType, annotations);
+        String endpoint = null;
+        boolean hedged = false;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Hedged) {
+                hedged = true;
+            } else if (annotation instanceof GET) {
+                endpoint = ((GET) annotation).value();
+            }
+        }
+        if (!hedged || null == endpoint) {
+            return delegate;
+        }
+        return wrap(delegate, trackers.computeIfAbsent(endpoint, e -> new HedgeTracker()));
+    }
+
+    /**
+     * @return The counters of every hedged endpoint called so far, by path.
+     */
+    public Map<String, HedgeMetrics> getMetrics() {
+        final HedgeSettings current = settings.get();
+        final Map<String, HedgeMetrics> metrics = new TreeMap<>();
+        trackers.forEach((endpoint, tracker) -> metrics.put(endpoint, tracker.metrics(current)));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    private <R, T> CallAdapter<R, T> wrap(final CallAdapter<R, T> delegate, final HedgeTracker tracker) {
+        return new CallAdapter<R, T>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public T adapt(@Nonnull final Call<R> call) {
+                final HedgeSettings current = settings.get();
+                if (!current.isEnabled()) {
+                    return delegate.adapt(call);
+                }
+                return delegate.adapt(new HedgedCall<>(call, current, tracker, hasCapacity));
+            }
+        };
+    }
+
+    private static final class HedgedCall<R> implements Call<R> {
+
+        private final Call<R> original;
+        private final HedgeSettings settings;
+        private final HedgeTracker tracker;
+        private final BooleanSupplier hasCapacity;
+        private final AtomicBoolean executed = new AtomicBoolean();
+        private final AtomicBoolean answered = new AtomicBoolean();
+        /**
+         * Calls sent and not yet answered.
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile Call<R> hedge;
+        private volatile boolean canceled;
+        /**
+         * When the original call was sent; latencies are measured from here, whichever call answers.
+         */
+        private volatile long sentAt;
+
+        HedgedCall(final Call<R> original, final HedgeSettings settings,
+                   final HedgeTracker tracker, final BooleanSupplier hasCapacity) {
+            this.original = original;
+            this.settings = settings;
+            this.tracker = tracker;
+            this.hasCapacity = hasCapacity;
+        }
+
+        @Override
+        public Response<R> execute() throws IOException {
+            start();
+            return original.execute();
+        }
+
+        @Override
+        public void enqueue(@Nonnull final Callback<R> callback) {
+            Objects.requireNonNull(callback, "callback == null");
+            start();
+            tracker.calls.incrementAndGet();
+            sentAt = System.nanoTime();
+            send(original, false, callback);
+            CompletableFuture.delayedExecutor(tracker.delayNanos(settings), TimeUnit.NANOSECONDS)
+                    .execute(() -> sendHedge(callback));
+        }
+
+        private void sendHedge(final Callback<R> callback) {
+            if (answered.get() || canceled) {
+                return;
+            }
+            if (!hasCapacity.getAsBoolean()) {
+                tracker.skipped.incrementAndGet();
+                return;
+            }
+            final Call<R> call = original.clone();
+            hedge = call;
+            // Whoever answers from now on cancels the hedge; an earlier answer means it is not needed
+            if (answered.get() || canceled) {
+                return;
+            }
+            log.debug("Hedging {}", original.request().url());
+            tracker.hedges.incrementAndGet();
+            send(call, true, callback);
+        }
+
+        private void send(final Call<R> call, final boolean isHedge, final Callback<R> callback) {
+            pending.incrementAndGet();
+            call.enqueue(new Callback<R>() {
+                @Override
+                public void onResponse(@Nonnull Call<R> c, @Nonnull Response<R> response) {
+                    pending.decrementAndGet();
+                    if (answer(isHedge)) {
+                        // When the hedge wins, the original would have taken at least this long. Timing the
+                        // hedge alone would pull the percentile, and so the delay, down with every hedge.
+                        tracker.record(System.nanoTime() - sentAt);
+                        callback.onResponse(HedgedCall.this, response);
+                    }
+                }
+
+                @Override
+                public void onFailure(@Nonnull Call<R> c, @Nonnull Throwable t) {
+                    // Wait for the other call, unless it is the last one
+                    if (pending.decrementAndGet() > 0 && !canceled) {
+                        return;
+                    }
+                    if (answer(isHedge)) {
+                        callback.onFailure(HedgedCall.this, t);
+                    }
+                }
+            });
+        }
+
+        /**
+         * @return Whether this is the first answer, in which case the other call is cancelled.
+         */
+        private boolean answer(final boolean isHedge) {
+            if (!answered.compareAndSet(false, true)) {
+                return false;
+            }
+            if (isHedge) {
+                tracker.hedgeWins.incrementAndGet();
+                original.cancel();
+            } else {
+                final Call<R> current = hedge;
+                if (null != current) {
+                    current.cancel();
+                }
+            }
+            return true;
+        }
+
+        private void start() {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already executed.");
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get();
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            original.cancel();
+            final Call<R> current = hedge;
+            if (null != current) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || original.isCanceled();
+        }
+
+        @Override
+        public Call<R> clone() {
+            return new HedgedCall<>(original.clone(), settings, tracker, hasCapacity);
+        }
+
+        @Override
+        public Request request() {
+            return original.request();
+        }
+    }
+}
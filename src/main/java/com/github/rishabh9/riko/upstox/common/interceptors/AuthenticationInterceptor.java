@@ -24,49 +24,125 @@
 
 package com.github.rishabh9.riko.upstox.common.interceptors;
 
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
 
+import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.util.Objects;
 
 /**
  * Retrofit2 interceptor to add common authentication headers to every request.
+ * <p>
+ * When created with an {@link UpstoxAuthService}, the headers are read from it
+ * on every request, so a rotated token is picked up without rebuilding the client.
+ * </p>
  */
 public class AuthenticationInterceptor implements Interceptor {
 
-    private String authToken;
-    private String apiKey;
+    private final UpstoxAuthService upstoxAuthService;
+
+    /**
+     * The headers last sent, along with the token they were built from.
+     */
+    private volatile Holder holder;
 
     public AuthenticationInterceptor(final String token, final String apiKey) {
-        this.authToken = token;
-        this.apiKey = apiKey;
+        this.upstoxAuthService = null;
+        this.holder = new Holder(null, null, new AuthHeaders(token, apiKey));
+    }
+
+    /**
+     * @param upstoxAuthService The service to retrieve the latest authentication details from.
+     */
+    public AuthenticationInterceptor(@Nonnull final UpstoxAuthService upstoxAuthService) {
+        this.upstoxAuthService = Objects.requireNonNull(upstoxAuthService);
     }
 
     @Override
     public Response intercept(Interceptor.Chain chain) throws IOException {
         Request original = chain.request();
+        AuthHeaders headers = currentHeaders();
 
         Request.Builder builder = original.newBuilder()
-                .header("X-API-KEY", apiKey)
-                .header("Authorization", authToken);
+                .header("X-API-KEY", headers.getApiKey())
+                .header("Authorization", headers.getToken());
 
         Request request = builder.build();
         return chain.proceed(request);
     }
 
+    /**
+     * @throws IOException If the access token or the API credentials are not available,
+     *                     which OkHttp reports to the caller, unlike any other exception.
+     */
+    private AuthHeaders currentHeaders() throws IOException {
+        final Holder current = holder;
+        if (null == upstoxAuthService) {
+            return current.headers;
+        }
+        final AccessToken accessToken = upstoxAuthService.getAccessToken();
+        final ApiCredentials credentials = upstoxAuthService.getApiCredentials();
+        if (null == accessToken || null == credentials) {
+            throw new IOException(null == accessToken
+                    ? "Access token is not available." : "API credentials are not available.");
+        }
+        if (null != current && current.isBuiltFrom(accessToken, credentials)) {
+            return current.headers;
+        }
+        // The token has been rotated; build the headers once and keep them for the next requests.
+        final Holder rotated = new Holder(accessToken, credentials,
+                new AuthHeaders(accessToken.getType() + " " + accessToken.getToken(),
+                        credentials.getApiKey()));
+        holder = rotated;
+        return rotated.headers;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         AuthenticationInterceptor that = (AuthenticationInterceptor) o;
-        return Objects.equals(authToken, that.authToken) &&
-                Objects.equals(apiKey, that.apiKey);
+        if (null != upstoxAuthService || null != that.upstoxAuthService) {
+            return upstoxAuthService == that.upstoxAuthService;
+        }
+        return Objects.equals(holder.headers, that.holder.headers);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(authToken, apiKey);
+        if (null != upstoxAuthService) {
+            return System.identityHashCode(upstoxAuthService);
+        }
+        return Objects.hash(holder.headers);
+    }
+
+    private static final class Holder {
+
+        private final String token;
+        private final String type;
+        private final String apiKey;
+        private final AuthHeaders headers;
+
+        private Holder(final AccessToken accessToken,
+                       final ApiCredentials credentials,
+                       final AuthHeaders headers) {
+            this.token = null == accessToken ? null : accessToken.getToken();
+            this.type = null == accessToken ? null : accessToken.getType();
+            this.apiKey = null == credentials ? null : credentials.getApiKey();
+            this.headers = headers;
+        }
+
+        private boolean isBuiltFrom(final AccessToken accessToken,
+                                    final ApiCredentials credentials) {
+            return Objects.equals(token, accessToken.getToken())
+                    && Objects.equals(type, accessToken.getType())
+                    && Objects.equals(apiKey, credentials.getApiKey());
+        }
     }
-}
\ No newline at end of file
+}
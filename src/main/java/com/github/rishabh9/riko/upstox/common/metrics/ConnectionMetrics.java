@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.metrics;
+
+import com.google.common.base.MoreObjects;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the connection pool and the dispatcher serving the REST calls.
+ * Meant to help sizing the {@link com.github.rishabh9.riko.upstox.common.models.ConnectionSettings}.
+ * <p>
+ * A single instance listens to the events of every call, hence it does not
+ * allocate anything per call.
+ * </p>
+ */
+public class ConnectionMetrics extends EventListener {
+
+    private static final String ORDERS_PATH = "/live/orders";
+
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+
+    private final LongAdder connectionsAcquired = new LongAdder();
+    private final LongAdder connectionsEstablished = new LongAdder();
+    private final LongAdder http2ConnectionsEstablished = new LongAdder();
+
+    /**
+     * Start of the order calls in flight, tracked only until the first order completes.
+     */
+    private final Map<Call, Long> pendingOrders = new ConcurrentHashMap<>();
+    private final AtomicLong timeToFirstOrderNanos = new AtomicLong(-1);
+
+    public ConnectionMetrics(final ConnectionPool connectionPool, final Dispatcher dispatcher) {
+        this.connectionPool = connectionPool;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        if (timeToFirstOrderNanos.get() < 0 && isOrder(call)) {
+            pendingOrders.put(call, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectionsEstablished.increment();
+        if (Protocol.HTTP_2 == protocol) {
+            http2ConnectionsEstablished.increment();
+        }
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionsAcquired.increment();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        orderFinished(call);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        orderFinished(call);
+    }
+
+    private void orderFinished(final Call call) {
+        if (pendingOrders.isEmpty()) {
+            return;
+        }
+        final Long start = pendingOrders.remove(call);
+        if (null != start && timeToFirstOrderNanos.compareAndSet(-1, System.nanoTime() - start)) {
+            // Nothing else to measure.
+            pendingOrders.clear();
+        }
+    }
+
+    private boolean isOrder(final Call call) {
+        final Request request = call.request();
+        return "POST".equals(request.method())
+                && ORDERS_PATH.equals(request.url().encodedPath());
+    }
+
+    /**
+     * @return Number of times a call was served by a connection already in the pool.
+     */
+    public long getPoolHits() {
+        return Math.max(0, connectionsAcquired.sum() - connectionsEstablished.sum());
+    }
+
+    /**
+     * @return Number of times a call had to open a new connection.
+     */
+    public long getPoolMisses() {
+        return connectionsEstablished.sum();
+    }
+
+    /**
+     * @return Number of new connections that negotiated HTTP/2.
+     * Calls over such connections are multiplexed.
+     */
+    public long getHttp2Connections() {
+        return http2ConnectionsEstablished.sum();
+    }
+
+    /**
+     * @return Time taken by the first order placed, from the start of the call to its completion,
+     * in nanoseconds. Includes the connection set-up, if the pool had none ready.
+     * {@code -1} until an order has been placed.
+     */
+    public long getTimeToFirstOrderNanos() {
+        return timeToFirstOrderNanos.get();
+    }
+
+    /**
+     * @return Number of calls waiting for the dispatcher to run them.
+     */
+    public int getQueuedCalls() {
+        return dispatcher.queuedCallsCount();
+    }
+
+    /**
+     * @return Number of calls currently running.
+     */
+    public int getRunningCalls() {
+        return dispatcher.runningCallsCount();
+    }
+
+    /**
+     * @return Number of open connections in the pool.
+     */
+    public int getConnectionCount() {
+        return connectionPool.connectionCount();
+    }
+
+    /**
+     * @return Number of idle connections in the pool.
+     */
+    public int getIdleConnectionCount() {
+        return connectionPool.idleConnectionCount();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("poolHits", getPoolHits())
+                .add("poolMisses", getPoolMisses())
+                .add("http2Connections", getHttp2Connections())
+                .add("timeToFirstOrderNanos", getTimeToFirstOrderNanos())
+                .add("queuedCalls", getQueuedCalls())
+                .add("runningCalls", getRunningCalls())
+                .add("connectionCount", getConnectionCount())
+                .add("idleConnectionCount", getIdleConnectionCount())
+                .toString();
+    }
+}
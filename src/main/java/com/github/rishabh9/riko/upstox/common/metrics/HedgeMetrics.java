@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.metrics;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+
+/**
+ * Point-in-time counters of the hedging of an endpoint.
+ * A hedge is the second request sent when the first is slow to answer.
+ */
+public class HedgeMetrics {
+
+    private final long calls;
+    private final long hedges;
+    private final long hedgeWins;
+    private final long skipped;
+    private final long delayMillis;
+
+    public HedgeMetrics(final long calls, final long hedges, final long hedgeWins,
+                        final long skipped, final long delayMillis) {
+        this.calls = calls;
+        this.hedges = hedges;
+        this.hedgeWins = hedgeWins;
+        this.skipped = skipped;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * @return Number of calls made while hedging was enabled.
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return Number of hedges sent.
+     */
+    public long getHedges() {
+        return hedges;
+    }
+
+    /**
+     * @return Number of hedges that answered before the first request.
+     */
+    public long getHedgeWins() {
+        return hedgeWins;
+    }
+
+    /**
+     * @return Number of hedges not sent because the dispatcher was already queueing calls.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return The current delay before hedging.
+     */
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HedgeMetrics that = (HedgeMetrics) o;
+        return calls == that.calls &&
+                hedges == that.hedges &&
+                hedgeWins == that.hedgeWins &&
+                skipped == that.skipped &&
+                delayMillis == that.delayMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(calls, hedges, hedgeWins, skipped, delayMillis);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("calls", calls)
+                .add("hedges", hedges)
+                .add("hedgeWins", hedgeWins)
+                .add("skipped", skipped)
+                .add("delayMillis", delayMillis)
+                .toString();
+    }
+}
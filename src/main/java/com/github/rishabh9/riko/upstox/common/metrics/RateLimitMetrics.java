@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.metrics;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+
+/**
+ * Point-in-time counters of the rate limiter, for a class of endpoints.
+ * The delay of a request is the time it waited for its budget before being sent.
+ */
+public class RateLimitMetrics {
+
+    private final long granted;
+    private final long delayed;
+    private final int waiting;
+    private final long totalDelayMillis;
+    private final long maxDelayMillis;
+    private final long throttled;
+
+    public RateLimitMetrics(final long granted, final long delayed, final int waiting,
+                            final long totalDelayMillis, final long maxDelayMillis, final long throttled) {
+        this.granted = granted;
+        this.delayed = delayed;
+        this.waiting = waiting;
+        this.totalDelayMillis = totalDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.throttled = throttled;
+    }
+
+    /**
+     * @return Number of requests let through.
+     */
+    public long getGranted() {
+        return granted;
+    }
+
+    /**
+     * @return Number of requests let through only after waiting.
+     */
+    public long getDelayed() {
+        return delayed;
+    }
+
+    /**
+     * @return Number of requests waiting right now.
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return How long the requests let through waited together.
+     */
+    public long getTotalDelayMillis() {
+        return totalDelayMillis;
+    }
+
+    /**
+     * @return How long the request that waited longest waited.
+     */
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @return Number of times the server answered {@code 429 Too Many Requests}.
+     */
+    public long getThrottled() {
+        return throttled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RateLimitMetrics that = (RateLimitMetrics) o;
+        return granted == that.granted &&
+                delayed == that.delayed &&
+                waiting == that.waiting &&
+                totalDelayMillis == that.totalDelayMillis &&
+                maxDelayMillis == that.maxDelayMillis &&
+                throttled == that.throttled;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(granted, delayed, waiting, totalDelayMillis, maxDelayMillis, throttled);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("granted", granted)
+                .add("delayed", delayed)
+                .add("waiting", waiting)
+                .add("totalDelayMillis", totalDelayMillis)
+                .add("maxDelayMillis", maxDelayMillis)
+                .add("throttled", throttled)
+                .toString();
+    }
+}
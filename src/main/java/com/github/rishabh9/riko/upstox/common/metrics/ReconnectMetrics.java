@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.metrics;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+
+/**
+ * Point-in-time counters of a supervised web socket.
+ * A gap lasts from the moment a socket goes away until its replacement opens.
+ */
+public class ReconnectMetrics {
+
+    private final boolean connected;
+    private final long reconnects;
+    private final long failedAttempts;
+    private final long currentGapMillis;
+    private final long lastGapMillis;
+    private final long maxGapMillis;
+    private final long totalGapMillis;
+
+    public ReconnectMetrics(final boolean connected, final long reconnects, final long failedAttempts,
+                            final long currentGapMillis, final long lastGapMillis,
+                            final long maxGapMillis, final long totalGapMillis) {
+        this.connected = connected;
+        this.reconnects = reconnects;
+        this.failedAttempts = failedAttempts;
+        this.currentGapMillis = currentGapMillis;
+        this.lastGapMillis = lastGapMillis;
+        this.maxGapMillis = maxGapMillis;
+        this.totalGapMillis = totalGapMillis;
+    }
+
+    /**
+     * @return Whether a socket is open.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * @return Number of times a socket was replaced after going away.
+     */
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    /**
+     * @return Number of attempts to connect that failed.
+     */
+    public long getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * @return How long the socket has been away, or {@code 0} while connected.
+     */
+    public long getCurrentGapMillis() {
+        return currentGapMillis;
+    }
+
+    /**
+     * @return How long the last completed gap lasted.
+     */
+    public long getLastGapMillis() {
+        return lastGapMillis;
+    }
+
+    /**
+     * @return How long the longest completed gap lasted.
+     */
+    public long getMaxGapMillis() {
+        return maxGapMillis;
+    }
+
+    /**
+     * @return How long all the completed gaps lasted together.
+     */
+    public long getTotalGapMillis() {
+        return totalGapMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReconnectMetrics that = (ReconnectMetrics) o;
+        return connected == that.connected &&
+                reconnects == that.reconnects &&
+                failedAttempts == that.failedAttempts &&
+                currentGapMillis == that.currentGapMillis &&
+                lastGapMillis == that.lastGapMillis &&
+                maxGapMillis == that.maxGapMillis &&
+                totalGapMillis == that.totalGapMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(connected, reconnects, failedAttempts, currentGapMillis,
+                lastGapMillis, maxGapMillis, totalGapMillis);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("connected", connected)
+                .add("reconnects", reconnects)
+                .add("failedAttempts", failedAttempts)
+                .add("currentGapMillis", currentGapMillis)
+                .add("lastGapMillis", lastGapMillis)
+                .add("maxGapMillis", maxGapMillis)
+                .add("totalGapMillis", totalGapMillis)
+                .toString();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.metrics;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+
+/**
+ * Point-in-time counters of a single web socket subscriber.
+ */
+public class SubscriberMetrics {
+
+    private final String name;
+    private final long published;
+    private final long delivered;
+    private final long dropped;
+    private final long conflated;
+    private final long lag;
+
+    public SubscriberMetrics(final String name, final long published, final long delivered,
+                             final long dropped, final long conflated, final long lag) {
+        this.name = name;
+        this.published = published;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.conflated = conflated;
+        this.lag = lag;
+    }
+
+    /**
+     * @return Name of the subscriber.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Messages queued for the subscriber since it subscribed.
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * @return Messages delivered to the subscriber through {@code onNext}.
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return Messages never delivered because the subscriber was too slow.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return Messages replaced by a later one for the same symbols before being delivered.
+     */
+    public long getConflated() {
+        return conflated;
+    }
+
+    /**
+     * @return Messages waiting in the buffer of the subscriber.
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SubscriberMetrics that = (SubscriberMetrics) o;
+        return published == that.published &&
+                delivered == that.delivered &&
+                dropped == that.dropped &&
+                conflated == that.conflated &&
+                lag == that.lag &&
+                Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, published, delivered, dropped, conflated, lag);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("published", published)
+                .add("delivered", delivered)
+                .add("dropped", dropped)
+                .add("conflated", conflated)
+                .add("lag", lag)
+                .toString();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.models;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Sizing of the connection pool and of the dispatcher shared by every REST call.
+ * <p>
+ * Example:<br>
+ * <code>ConnectionSettings.builder().maxRequestsPerHost(32).build()</code>
+ * </p>
+ * Every setting not provided falls back to its system property, if set,
+ * or else to its default value in {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys}.
+ */
+public class ConnectionSettings {
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxIdleConnections;
+    private final long keepAliveDurationMillis;
+
+    private ConnectionSettings(final Builder builder) {
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAliveDurationMillis = builder.keepAliveDurationMillis;
+    }
+
+    /**
+     * @return A builder initialised from the system properties.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The settings as configured by the system properties.
+     */
+    public static ConnectionSettings fromSystemProperties() {
+        return builder().build();
+    }
+
+    /**
+     * @return Maximum number of requests executing concurrently.
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * @return Maximum number of requests executing concurrently against the same host.
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * @return Maximum number of idle connections kept in the pool.
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * @return How long an idle connection is kept in the pool, in milliseconds.
+     */
+    public long getKeepAliveDurationMillis() {
+        return keepAliveDurationMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConnectionSettings that = (ConnectionSettings) o;
+        return maxRequests == that.maxRequests &&
+                maxRequestsPerHost == that.maxRequestsPerHost &&
+                maxIdleConnections == that.maxIdleConnections &&
+                keepAliveDurationMillis == that.keepAliveDurationMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxRequests, maxRequestsPerHost, maxIdleConnections, keepAliveDurationMillis);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxRequests", maxRequests)
+                .add("maxRequestsPerHost", maxRequestsPerHost)
+                .add("maxIdleConnections", maxIdleConnections)
+                .add("keepAliveDurationMillis", keepAliveDurationMillis)
+                .toString();
+    }
+
+    public static class Builder {
+
+        private int maxRequests = Integer.parseInt(
+                System.getProperty(RIKO_MAX_REQUESTS, RIKO_MAX_REQUESTS_DEFAULT));
+        private int maxRequestsPerHost = Integer.parseInt(
+                System.getProperty(RIKO_MAX_REQUESTS_PER_HOST, RIKO_MAX_REQUESTS_PER_HOST_DEFAULT));
+        private int maxIdleConnections = Integer.parseInt(
+                System.getProperty(RIKO_MAX_IDLE_CONNECTIONS, RIKO_MAX_IDLE_CONNECTIONS_DEFAULT));
+        private long keepAliveDurationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(
+                System.getProperty(RIKO_KEEP_ALIVE_DURATION, RIKO_KEEP_ALIVE_DURATION_DEFAULT)));
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxRequests Maximum number of requests executing concurrently.
+         * @return This builder
+         */
+        public Builder maxRequests(final int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost Maximum number of requests executing concurrently against the same host.
+         * @return This builder
+         */
+        public Builder maxRequestsPerHost(final int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * @param maxIdleConnections Maximum number of idle connections kept in the pool.
+         * @return This builder
+         */
+        public Builder maxIdleConnections(final int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * @param duration How long an idle connection is kept in the pool.
+         * @param unit     The unit of the duration.
+         * @return This builder
+         */
+        public Builder keepAliveDuration(final long duration, final TimeUnit unit) {
+            this.keepAliveDurationMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * @return The settings.
+         * @throws IllegalArgumentException If any of the settings is not positive.
+         */
+        public ConnectionSettings build() {
+            if (maxRequests < 1 || maxRequestsPerHost < 1
+                    || maxIdleConnections < 0 || keepAliveDurationMillis < 1) {
+                throw new IllegalArgumentException(
+                        "Connection settings must be positive. Provided: maxRequests=" + maxRequests
+                                + ", maxRequestsPerHost=" + maxRequestsPerHost
+                                + ", maxIdleConnections=" + maxIdleConnections
+                                + ", keepAliveDurationMillis=" + keepAliveDurationMillis);
+            }
+            return new ConnectionSettings(this);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.models;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Hedging of the latency-critical reads, those marked {@link com.github.rishabh9.riko.upstox.common.hedge.Hedged}.
+ * A second, identical, request is sent when the first has not answered within
+ * the given percentile of the endpoint's recent latencies. Until enough latencies
+ * are known, the initial delay is used instead.
+ * <p>
+ * Example:<br>
+ * <code>HedgeSettings.builder().enabled(true).percentile(99).build()</code>
+ * </p>
+ * Every setting not provided falls back to its system property, if set,
+ * or else to its default value in {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys}.
+ */
+public class HedgeSettings {
+
+    private final boolean enabled;
+    private final int percentile;
+    private final long initialDelayMillis;
+    private final long minDelayMillis;
+
+    private HedgeSettings(final Builder builder) {
+        this.enabled = builder.enabled;
+        this.percentile = builder.percentile;
+        this.initialDelayMillis = builder.initialDelayMillis;
+        this.minDelayMillis = builder.minDelayMillis;
+    }
+
+    /**
+     * @return A builder initialised from the system properties.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The settings as configured by the system properties.
+     */
+    public static HedgeSettings fromSystemProperties() {
+        return builder().build();
+    }
+
+    /**
+     * @return Whether requests are hedged at all.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The percentile of the recent latencies after which a request is hedged.
+     */
+    public int getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @return The delay before hedging while too few latencies are known, in milliseconds.
+     */
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    /**
+     * @return The shortest delay before hedging, in milliseconds.
+     */
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HedgeSettings that = (HedgeSettings) o;
+        return enabled == that.enabled &&
+                percentile == that.percentile &&
+                initialDelayMillis == that.initialDelayMillis &&
+                minDelayMillis == that.minDelayMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, percentile, initialDelayMillis, minDelayMillis);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("enabled", enabled)
+                .add("percentile", percentile)
+                .add("initialDelayMillis", initialDelayMillis)
+                .add("minDelayMillis", minDelayMillis)
+                .toString();
+    }
+
+    public static class Builder {
+
+        private boolean enabled = Boolean.parseBoolean(
+                System.getProperty(RIKO_HEDGE_ENABLED, RIKO_HEDGE_ENABLED_DEFAULT));
+        private int percentile = Integer.parseInt(
+                System.getProperty(RIKO_HEDGE_PERCENTILE, RIKO_HEDGE_PERCENTILE_DEFAULT));
+        private long initialDelayMillis = Long.parseLong(
+                System.getProperty(RIKO_HEDGE_DELAY_INITIAL, RIKO_HEDGE_DELAY_INITIAL_DEFAULT));
+        private long minDelayMillis = Long.parseLong(
+                System.getProperty(RIKO_HEDGE_DELAY_MIN, RIKO_HEDGE_DELAY_MIN_DEFAULT));
+
+        private Builder() {
+        }
+
+        /**
+         * @param enabled Whether requests are hedged at all.
+         * @return This builder
+         */
+        public Builder enabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * @param percentile The percentile of the recent latencies after which a request is hedged.
+         * @return This builder
+         */
+        public Builder percentile(final int percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param delay The delay before hedging while too few latencies are known.
+         * @param unit  The unit of the delay.
+         * @return This builder
+         */
+        public Builder initialDelay(final long delay, final TimeUnit unit) {
+            this.initialDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * @param delay The shortest delay before hedging.
+         * @param unit  The unit of the delay.
+         * @return This builder
+         */
+        public Builder minDelay(final long delay, final TimeUnit unit) {
+            this.minDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * @return The settings.
+         * @throws IllegalArgumentException If the percentile is not between 1 and 99,
+         *                                  or if any of the delays is negative.
+         */
+        public HedgeSettings build() {
+            if (percentile < 1 || percentile > 99 || initialDelayMillis < 0 || minDelayMillis < 0) {
+                throw new IllegalArgumentException(
+                        "Invalid hedge settings. Provided: percentile=" + percentile
+                                + ", initialDelayMillis=" + initialDelayMillis
+                                + ", minDelayMillis=" + minDelayMillis);
+            }
+            return new HedgeSettings(this);
+        }
+    }
+}
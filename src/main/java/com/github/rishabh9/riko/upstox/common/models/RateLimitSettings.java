@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.models;
+
+import com.github.rishabh9.riko.upstox.common.ratelimit.EndpointClass;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Budgets of the client-side rate limiter, in requests per second.
+ * Each budget may be spent at once in a burst, and refills continuously.
+ * A budget of {@code 0} is unlimited.
+ * <p>
+ * Example:<br>
+ * <code>RateLimitSettings.builder().enabled(true).permitsPerSecond(EndpointClass.PORTFOLIO, 2).build()</code>
+ * </p>
+ * Every setting not provided falls back to its system property, if set,
+ * or else to its default value in {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys}.
+ */
+public class RateLimitSettings {
+
+    private final boolean enabled;
+    private final int globalPermitsPerSecond;
+    private final Map<EndpointClass, Integer> permitsPerSecond;
+
+    private RateLimitSettings(final Builder builder) {
+        this.enabled = builder.enabled;
+        this.globalPermitsPerSecond = builder.globalPermitsPerSecond;
+        this.permitsPerSecond = Collections.unmodifiableMap(new EnumMap<>(builder.permitsPerSecond));
+    }
+
+    /**
+     * @return A builder initialised from the system properties.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The settings as configured by the system properties.
+     */
+    public static RateLimitSettings fromSystemProperties() {
+        return builder().build();
+    }
+
+    /**
+     * @return Whether requests are rate limited at all.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The budget shared by every request.
+     */
+    public int getGlobalPermitsPerSecond() {
+        return globalPermitsPerSecond;
+    }
+
+    /**
+     * @param endpointClass The class of endpoints.
+     * @return The budget of the class of endpoints.
+     */
+    public int getPermitsPerSecond(@Nonnull final EndpointClass endpointClass) {
+        return permitsPerSecond.get(Objects.requireNonNull(endpointClass));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RateLimitSettings that = (RateLimitSettings) o;
+        return enabled == that.enabled &&
+                globalPermitsPerSecond == that.globalPermitsPerSecond &&
+                Objects.equals(permitsPerSecond, that.permitsPerSecond);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, globalPermitsPerSecond, permitsPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("enabled", enabled)
+                .add("globalPermitsPerSecond", globalPermitsPerSecond)
+                .add("permitsPerSecond", permitsPerSecond)
+                .toString();
+    }
+
+    public static class Builder {
+
+        private boolean enabled = Boolean.parseBoolean(
+                System.getProperty(RIKO_RATE_LIMIT_ENABLED, RIKO_RATE_LIMIT_ENABLED_DEFAULT));
+        private int globalPermitsPerSecond = Integer.parseInt(
+                System.getProperty(RIKO_RATE_LIMIT_GLOBAL, RIKO_RATE_LIMIT_GLOBAL_DEFAULT));
+        private final Map<EndpointClass, Integer> permitsPerSecond = new EnumMap<>(EndpointClass.class);
+
+        private Builder() {
+            permitsPerSecond.put(EndpointClass.ORDERS, Integer.parseInt(
+                    System.getProperty(RIKO_RATE_LIMIT_ORDERS, RIKO_RATE_LIMIT_ORDERS_DEFAULT)));
+            permitsPerSecond.put(EndpointClass.PORTFOLIO, Integer.parseInt(
+                    System.getProperty(RIKO_RATE_LIMIT_PORTFOLIO, RIKO_RATE_LIMIT_PORTFOLIO_DEFAULT)));
+            permitsPerSecond.put(EndpointClass.FEED, Integer.parseInt(
+                    System.getProperty(RIKO_RATE_LIMIT_FEED, RIKO_RATE_LIMIT_FEED_DEFAULT)));
+            permitsPerSecond.put(EndpointClass.HISTORICAL, Integer.parseInt(
+                    System.getProperty(RIKO_RATE_LIMIT_HISTORICAL, RIKO_RATE_LIMIT_HISTORICAL_DEFAULT)));
+            permitsPerSecond.put(EndpointClass.OTHER, 0);
+        }
+
+        /**
+         * @param enabled Whether requests are rate limited at all.
+         * @return This builder
+         */
+        public Builder enabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * @param globalPermitsPerSecond The budget shared by every request.
+         * @return This builder
+         */
+        public Builder globalPermitsPerSecond(final int globalPermitsPerSecond) {
+            this.globalPermitsPerSecond = globalPermitsPerSecond;
+            return this;
+        }
+
+        /**
+         * @param endpointClass    The class of endpoints.
+         * @param permitsPerSecond The budget of the class of endpoints.
+         * @return This builder
+         */
+        public Builder permitsPerSecond(@Nonnull final EndpointClass endpointClass, final int permitsPerSecond) {
+            this.permitsPerSecond.put(Objects.requireNonNull(endpointClass), permitsPerSecond);
+            return this;
+        }
+
+        /**
+         * @return The settings.
+         * @throws IllegalArgumentException If any of the budgets is negative.
+         */
+        public RateLimitSettings build() {
+            if (globalPermitsPerSecond < 0 || permitsPerSecond.values().stream().anyMatch(p -> p < 0)) {
+                throw new IllegalArgumentException(
+                        "Rate limits must not be negative. Provided: globalPermitsPerSecond="
+                                + globalPermitsPerSecond + ", permitsPerSecond=" + permitsPerSecond);
+            }
+            return new RateLimitSettings(this);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.models;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Retries of the idempotent requests, those made with {@code GET}, after a transient failure.
+ * The wait before each retry doubles, with jitter, up to a maximum,
+ * and no retry starts once the deadline, counted from the first attempt, has passed.
+ * <p>
+ * Example:<br>
+ * <code>RetrySettings.builder().enabled(true).maxAttempts(5).build()</code>
+ * </p>
+ * Every setting not provided falls back to its system property, if set,
+ * or else to its default value in {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys}.
+ */
+public class RetrySettings {
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long deadlineMillis;
+
+    private RetrySettings(final Builder builder) {
+        this.enabled = builder.enabled;
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+        this.deadlineMillis = builder.deadlineMillis;
+    }
+
+    /**
+     * @return A builder initialised from the system properties.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The settings as configured by the system properties.
+     */
+    public static RetrySettings fromSystemProperties() {
+        return builder().build();
+    }
+
+    /**
+     * @return Whether failed requests are retried at all.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Maximum number of attempts of a request, the first one included.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return Wait before the first retry, in milliseconds.
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * @return Longest wait between attempts, in milliseconds.
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @return Time after the first attempt beyond which no retry starts, in milliseconds.
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RetrySettings that = (RetrySettings) o;
+        return enabled == that.enabled &&
+                maxAttempts == that.maxAttempts &&
+                initialBackoffMillis == that.initialBackoffMillis &&
+                maxBackoffMillis == that.maxBackoffMillis &&
+                deadlineMillis == that.deadlineMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, maxAttempts, initialBackoffMillis, maxBackoffMillis, deadlineMillis);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("enabled", enabled)
+                .add("maxAttempts", maxAttempts)
+                .add("initialBackoffMillis", initialBackoffMillis)
+                .add("maxBackoffMillis", maxBackoffMillis)
+                .add("deadlineMillis", deadlineMillis)
+                .toString();
+    }
+
+    public static class Builder {
+
+        private boolean enabled = Boolean.parseBoolean(
+                System.getProperty(RIKO_RETRY_ENABLED, RIKO_RETRY_ENABLED_DEFAULT));
+        private int maxAttempts = Integer.parseInt(
+                System.getProperty(RIKO_RETRY_MAX_ATTEMPTS, RIKO_RETRY_MAX_ATTEMPTS_DEFAULT));
+        private long initialBackoffMillis = Long.parseLong(
+                System.getProperty(RIKO_RETRY_BACKOFF_INITIAL, RIKO_RETRY_BACKOFF_INITIAL_DEFAULT));
+        private long maxBackoffMillis = Long.parseLong(
+                System.getProperty(RIKO_RETRY_BACKOFF_MAX, RIKO_RETRY_BACKOFF_MAX_DEFAULT));
+        private long deadlineMillis = Long.parseLong(
+                System.getProperty(RIKO_RETRY_DEADLINE, RIKO_RETRY_DEADLINE_DEFAULT));
+
+        private Builder() {
+        }
+
+        /**
+         * @param enabled Whether failed requests are retried at all.
+         * @return This builder
+         */
+        public Builder enabled(final boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * @param maxAttempts Maximum number of attempts of a request, the first one included.
+         * @return This builder
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param initial Wait before the first retry.
+         * @param max     Longest wait between attempts.
+         * @param unit    The unit of the waits.
+         * @return This builder
+         */
+        public Builder backoff(final long initial, final long max, final TimeUnit unit) {
+            this.initialBackoffMillis = unit.toMillis(initial);
+            this.maxBackoffMillis = unit.toMillis(max);
+            return this;
+        }
+
+        /**
+         * @param deadline Time after the first attempt beyond which no retry starts.
+         * @param unit     The unit of the deadline.
+         * @return This builder
+         */
+        public Builder deadline(final long deadline, final TimeUnit unit) {
+            this.deadlineMillis = unit.toMillis(deadline);
+            return this;
+        }
+
+        /**
+         * @return The settings.
+         * @throws IllegalArgumentException If any of the settings is not positive,
+         *                                  or if the backoff exceeds its maximum.
+         */
+        public RetrySettings build() {
+            if (maxAttempts < 1 || initialBackoffMillis < 1
+                    || maxBackoffMillis < initialBackoffMillis || deadlineMillis < 1) {
+                throw new IllegalArgumentException(
+                        "Retry settings must be positive. Provided: maxAttempts=" + maxAttempts
+                                + ", initialBackoffMillis=" + initialBackoffMillis
+                                + ", maxBackoffMillis=" + maxBackoffMillis
+                                + ", deadlineMillis=" + deadlineMillis);
+            }
+            return new RetrySettings(this);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimit;
+
+import okhttp3.Request;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The classes of Upstox API endpoints, each with a budget of its own.
+ */
+public enum EndpointClass {
+
+    /**
+     * Placing, modifying, cancelling and listing orders and trades.
+     */
+    ORDERS,
+
+    /**
+     * Profile, balance, positions and holdings.
+     */
+    PORTFOLIO,
+
+    /**
+     * Live feed snapshots, subscriptions and web socket parameters.
+     */
+    FEED,
+
+    /**
+     * Historical candles and master contracts.
+     */
+    HISTORICAL,
+
+    /**
+     * Everything else, such as logging in. Only bound by the global budget.
+     */
+    OTHER;
+
+    /**
+     * @param request The request.
+     * @return The class of the endpoint the request is for.
+     */
+    public static EndpointClass of(@Nonnull final Request request) {
+        final String path = request.url().encodedPath();
+        if (path.startsWith("/live/orders") || path.startsWith("/live/trade-book")) {
+            return ORDERS;
+        }
+        if (path.startsWith("/live/profile") || path.startsWith("/index/profile")) {
+            return PORTFOLIO;
+        }
+        if (path.startsWith("/live/feed") || path.startsWith("/live/socket-params")) {
+            return FEED;
+        }
+        if (path.startsWith("/historical") || path.startsWith("/index/master-contract")) {
+            return HISTORICAL;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimit;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Makes every call wait for a permit of the {@link RateLimiter} before it is sent.
+ * <p>
+ * It must be added before the other call adapter factories, so that it wraps the call
+ * made by Retrofit and every clone of it, such as a retry or a hedge, waits for a permit of its own.
+ * Waiting happens before the call reaches OkHttp, so a queued call holds
+ * neither a thread of the dispatcher nor a slot of its per-host limit.
+ * </p>
+ */
+public class RateLimitedCallAdapterFactory extends CallAdapter.Factory {
+
+    private final Supplier<RateLimiter> rateLimiter;
+
+    /**
+     * @param rateLimiter The limiter to use, read on every call. Calls are not limited while it supplies {@code null}.
+     */
+    public RateLimitedCallAdapterFactory(@Nonnull final Supplier<RateLimiter> rateLimiter) {
+        this.rateLimiter = Objects.requireNonNull(rateLimiter);
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@Nonnull final Type returnType,
+                                 @Nonnull final Annotation[] annotations,
+                                 @Nonnull final Retrofit retrofit) {
+        return wrap(retrofit.nextCallAdapter(this, returnType, annotations));
+    }
+
+    private <R, T> CallAdapter<R, T> wrap(final CallAdapter<R, T> delegate) {
+        return new CallAdapter<R, T>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public T adapt(@Nonnull final Call<R> call) {
+                final RateLimiter limiter = rateLimiter.get();
+                return delegate.adapt(null == limiter ? call : new RateLimitedCall<>(call, limiter));
+            }
+        };
+    }
+
+    /**
+     * @param retryAfter The {@code Retry-After} header, in seconds.
+     * @return The delay in seconds, or {@code 0} when absent or given as a date.
+     */
+    static long parseRetryAfter(final String retryAfter) {
+        if (null == retryAfter) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class RateLimitedCall<R> implements Call<R> {
+
+        private final Call<R> delegate;
+        private final RateLimiter limiter;
+        private final AtomicBoolean executed = new AtomicBoolean();
+        private volatile CompletableFuture<Void> permit;
+        private volatile boolean canceled;
+
+        RateLimitedCall(final Call<R> delegate, final RateLimiter limiter) {
+            this.delegate = delegate;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public Response<R> execute() throws IOException {
+            final EndpointClass endpointClass = start();
+            try {
+                permit.get();
+            } catch (InterruptedException e) {
+                permit.cancel(false);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            } catch (CancellationException | ExecutionException e) {
+                throw new IOException("Canceled");
+            }
+            return checked(endpointClass, delegate.execute());
+        }
+
+        @Override
+        public void enqueue(@Nonnull final Callback<R> callback) {
+            Objects.requireNonNull(callback, "callback == null");
+            final EndpointClass endpointClass = start();
+            permit.whenComplete((v, t) -> {
+                if (null != t) {
+                    callback.onFailure(this, new IOException("Canceled"));
+                    return;
+                }
+                delegate.enqueue(new Callback<R>() {
+                    @Override
+                    public void onResponse(@Nonnull Call<R> call, @Nonnull Response<R> response) {
+                        callback.onResponse(RateLimitedCall.this, checked(endpointClass, response));
+                    }
+
+                    @Override
+                    public void onFailure(@Nonnull Call<R> call, @Nonnull Throwable t) {
+                        callback.onFailure(RateLimitedCall.this, t);
+                    }
+                });
+            });
+        }
+
+        private EndpointClass start() {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already executed.");
+            }
+            final Request request = delegate.request();
+            final EndpointClass endpointClass = EndpointClass.of(request);
+            permit = limiter.acquire(endpointClass, RequestPriority.of(request));
+            if (canceled) {
+                permit.cancel(false);
+            }
+            return endpointClass;
+        }
+
+        private Response<R> checked(final EndpointClass endpointClass, final Response<R> response) {
+            if (429 == response.code()) {
+                limiter.penalize(endpointClass,
+                        parseRetryAfter(response.headers().get("Retry-After")), TimeUnit.SECONDS);
+            }
+            return response;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get();
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            final CompletableFuture<Void> current = permit;
+            if (null != current) {
+                current.cancel(false);
+            }
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || delegate.isCanceled();
+        }
+
+        @Override
+        public Call<R> clone() {
+            return new RateLimitedCall<>(delegate.clone(), limiter);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+    }
+}
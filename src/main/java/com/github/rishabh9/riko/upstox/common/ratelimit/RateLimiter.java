@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimit;
+
+import com.github.rishabh9.riko.upstox.common.ExecutionMode;
+import com.github.rishabh9.riko.upstox.common.metrics.RateLimitMetrics;
+import com.github.rishabh9.riko.upstox.common.models.RateLimitSettings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets per class of endpoints, plus one shared by every request.
+ * A request goes once both its class and the shared bucket have a permit.
+ * <p>
+ * Requests that have to wait are queued by {@link RequestPriority}, then by arrival,
+ * and are let through as the buckets refill. No thread is held while waiting.
+ * A waiting request whose own class is out of permits does not hold back
+ * the requests behind it.
+ * </p>
+ */
+public class RateLimiter {
+
+    private static final Logger log = LogManager.getLogger(RateLimiter.class);
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private static final long DEFAULT_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Wakes the queue up when the next permit is due. The work it does is tiny,
+     * so a single thread serves every limiter.
+     */
+    private static final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(ExecutionMode.PLATFORM.newThreadFactory("riko-rate-limit-"));
+
+    private final TokenBucket global;
+    private final Map<EndpointClass, TokenBucket> buckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counters> counters = new EnumMap<>(EndpointClass.class);
+    private final TreeSet<Waiter> waiters = new TreeSet<>(
+            Comparator.<Waiter, RequestPriority>comparing(w -> w.priority).thenComparingLong(w -> w.sequence));
+
+    private long sequence;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAtNanos;
+
+    public RateLimiter(@Nonnull final RateLimitSettings settings) {
+        Objects.requireNonNull(settings);
+        final long now = System.nanoTime();
+        this.global = new TokenBucket(settings.getGlobalPermitsPerSecond(), now);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            buckets.put(endpointClass, new TokenBucket(settings.getPermitsPerSecond(endpointClass), now));
+            counters.put(endpointClass, new Counters());
+        }
+    }
+
+    /**
+     * Acquire a permit to send a request.
+     *
+     * @param endpointClass The class of the endpoint the request is for.
+     * @param priority      The priority of the request.
+     * @return Completes once the request may be sent.
+     * Cancelling it gives up the place in the queue.
+     */
+    public CompletableFuture<Void> acquire(@Nonnull final EndpointClass endpointClass,
+                                           @Nonnull final RequestPriority priority) {
+
+        Objects.requireNonNull(endpointClass);
+        Objects.requireNonNull(priority);
+        final Waiter waiter;
+        final List<Waiter> granted;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            if (waiters.isEmpty() && isAvailable(endpointClass, now)) {
+                take(endpointClass);
+                counters.get(endpointClass).granted(0);
+                return CompletableFuture.completedFuture(null);
+            }
+            waiter = new Waiter(endpointClass, priority, sequence++, now);
+            waiters.add(waiter);
+            counters.get(endpointClass).waiting++;
+            granted = drain(now);
+        }
+        complete(granted);
+        if (!waiter.future.isDone()) {
+            log.debug("Queued a {} priority request to {} endpoints", priority, endpointClass);
+            waiter.future.whenComplete((v, t) -> {
+                if (null != t) {
+                    cancelled(waiter);
+                }
+            });
+        }
+        return waiter.future;
+    }
+
+    /**
+     * Hold back the requests to a class of endpoints, after the server answered
+     * {@code 429 Too Many Requests}.
+     *
+     * @param endpointClass The class of endpoints.
+     * @param delay         How long to hold them back. Not positive for the default of a second.
+     * @param unit          The unit of the delay.
+     */
+    public void penalize(@Nonnull final EndpointClass endpointClass, final long delay, final TimeUnit unit) {
+
+        Objects.requireNonNull(endpointClass);
+        final long nanos = delay > 0 ? unit.toNanos(delay) : DEFAULT_PENALTY_NANOS;
+        log.warn("Too many requests to {} endpoints, holding them back for {}ms",
+                endpointClass, TimeUnit.NANOSECONDS.toMillis(nanos));
+        synchronized (this) {
+            buckets.get(endpointClass).block(System.nanoTime() + nanos);
+            counters.get(endpointClass).throttled++;
+        }
+    }
+
+    /**
+     * @return The counters of every class of endpoints.
+     */
+    public synchronized Map<EndpointClass, RateLimitMetrics> getMetrics() {
+        final Map<EndpointClass, RateLimitMetrics> metrics = new EnumMap<>(EndpointClass.class);
+        counters.forEach((endpointClass, c) -> metrics.put(endpointClass, new RateLimitMetrics(
+                c.granted, c.delayed, c.waiting,
+                TimeUnit.NANOSECONDS.toMillis(c.totalDelayNanos),
+                TimeUnit.NANOSECONDS.toMillis(c.maxDelayNanos), c.throttled)));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Let through every waiter that can go, in order, and schedule a wake-up for the rest.
+     * Must hold the lock.
+     *
+     * @return The waiters let through, to be completed once the lock is released.
+     */
+    private List<Waiter> drain(final long now) {
+        final List<Waiter> granted = new ArrayList<>();
+        long nextNanos = Long.MAX_VALUE;
+        for (Iterator<Waiter> iterator = waiters.iterator(); iterator.hasNext(); ) {
+            final Waiter waiter = iterator.next();
+            final Counters c = counters.get(waiter.endpointClass);
+            if (waiter.future.isDone()) {
+                iterator.remove();
+                c.waiting--;
+                continue;
+            }
+            final long globalNanos = global.nanosUntilAvailable(now);
+            if (globalNanos > 0) {
+                // Nobody can go before the shared bucket refills
+                nextNanos = Math.min(nextNanos, globalNanos);
+                break;
+            }
+            final long classNanos = buckets.get(waiter.endpointClass).nanosUntilAvailable(now);
+            if (classNanos > 0) {
+                nextNanos = Math.min(nextNanos, classNanos);
+                continue;
+            }
+            take(waiter.endpointClass);
+            iterator.remove();
+            c.waiting--;
+            c.granted(now - waiter.queuedAtNanos);
+            granted.add(waiter);
+        }
+        if (!waiters.isEmpty()) {
+            schedule(nextNanos, now);
+        }
+        return granted;
+    }
+
+    private void schedule(final long delayNanos, final long now) {
+        final long at = now + delayNanos;
+        if (null != wakeUp && !wakeUp.isDone() && wakeUpAtNanos - at <= 0) {
+            return;
+        }
+        if (null != wakeUp) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAtNanos = at;
+        wakeUp = scheduler.schedule(this::wakeUp, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void wakeUp() {
+        final List<Waiter> granted;
+        synchronized (this) {
+            wakeUp = null;
+            granted = drain(System.nanoTime());
+        }
+        complete(granted);
+    }
+
+    private synchronized void cancelled(final Waiter waiter) {
+        if (waiters.remove(waiter)) {
+            counters.get(waiter.endpointClass).waiting--;
+        }
+    }
+
+    private static void complete(final List<Waiter> granted) {
+        granted.forEach(waiter -> waiter.future.complete(null));
+    }
+
+    private boolean isAvailable(final EndpointClass endpointClass, final long now) {
+        return global.isAvailable(now) && buckets.get(endpointClass).isAvailable(now);
+    }
+
+    private void take(final EndpointClass endpointClass) {
+        global.take();
+        buckets.get(endpointClass).take();
+    }
+
+    private static final class Waiter {
+        final EndpointClass endpointClass;
+        final RequestPriority priority;
+        final long sequence;
+        final long queuedAtNanos;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Waiter(EndpointClass endpointClass, RequestPriority priority, long sequence, long queuedAtNanos) {
+            this.endpointClass = endpointClass;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.queuedAtNanos = queuedAtNanos;
+        }
+    }
+
+    private static final class Counters {
+        long granted;
+        long delayed;
+        int waiting;
+        long totalDelayNanos;
+        long maxDelayNanos;
+        long throttled;
+
+        void granted(final long delayNanos) {
+            granted++;
+            if (delayNanos > 0) {
+                delayed++;
+                totalDelayNanos += delayNanos;
+                maxDelayNanos = Math.max(maxDelayNanos, delayNanos);
+            }
+        }
+    }
+}
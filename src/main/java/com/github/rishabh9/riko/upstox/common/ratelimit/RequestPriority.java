@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimit;
+
+import okhttp3.Request;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The order in which requests waiting for their budget are let through.
+ * Declared from the most to the least urgent.
+ */
+public enum RequestPriority {
+
+    /**
+     * Placing, modifying and cancelling orders.
+     */
+    HIGH,
+
+    NORMAL,
+
+    /**
+     * Polling of the portfolio.
+     */
+    LOW;
+
+    /**
+     * @param request The request.
+     * @return The priority of the request.
+     */
+    public static RequestPriority of(@Nonnull final Request request) {
+        final EndpointClass endpointClass = EndpointClass.of(request);
+        if (EndpointClass.ORDERS == endpointClass && !"GET".equals(request.method())) {
+            return HIGH;
+        }
+        if (EndpointClass.PORTFOLIO == endpointClass) {
+            return LOW;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bucket of permits, refilled continuously up to one second's worth.
+ * Not thread-safe; guarded by its {@link RateLimiter}.
+ */
+final class TokenBucket {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int permitsPerSecond;
+    private double permits;
+    private long refilledAtNanos;
+    private long blockedUntilNanos;
+
+    /**
+     * @param permitsPerSecond Refill rate and capacity. {@code 0} for a bucket that never runs out.
+     * @param nowNanos         The current instant.
+     */
+    TokenBucket(final int permitsPerSecond, final long nowNanos) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.permits = permitsPerSecond;
+        this.refilledAtNanos = nowNanos;
+        this.blockedUntilNanos = nowNanos;
+    }
+
+    boolean isAvailable(final long nowNanos) {
+        return 0 == nanosUntilAvailable(nowNanos);
+    }
+
+    /**
+     * Takes a permit, which must be available.
+     */
+    void take() {
+        if (0 != permitsPerSecond) {
+            permits -= 1;
+        }
+    }
+
+    /**
+     * @return How long until a permit is available; {@code 0} if one is.
+     */
+    long nanosUntilAvailable(final long nowNanos) {
+        if (nowNanos - blockedUntilNanos < 0) {
+            return blockedUntilNanos - nowNanos;
+        }
+        if (0 == permitsPerSecond) {
+            return 0;
+        }
+        refill(nowNanos);
+        if (permits >= 1) {
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - permits) * SECOND_NANOS / permitsPerSecond));
+    }
+
+    /**
+     * Empties the bucket, and keeps it empty until the given instant.
+     */
+    void block(final long untilNanos) {
+        permits = 0;
+        refilledAtNanos = untilNanos;
+        if (untilNanos - blockedUntilNanos > 0) {
+            blockedUntilNanos = untilNanos;
+        }
+    }
+
+    private void refill(final long nowNanos) {
+        final long elapsed = nowNanos - refilledAtNanos;
+        if (elapsed > 0) {
+            permits = Math.min(permitsPerSecond, permits + (double) elapsed * permitsPerSecond / SECOND_NANOS);
+            refilledAtNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.retry;
+
+import com.github.rishabh9.riko.upstox.common.models.RetrySettings;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Retries the idempotent calls, those made with {@code GET}, that fail with an I/O error
+ * or with one of {@code 429, 500, 502, 503, 504}. Every other call goes through as is;
+ * in particular, placing an order is never retried blindly.
+ * <p>
+ * It must be added after the {@link com.github.rishabh9.riko.upstox.common.ratelimit.RateLimitedCallAdapterFactory},
+ * and before the factories whose calls it is to retry as a whole.
+ * Each attempt is a clone of the rate limited call, hence it waits for
+ * its own permit of the rate limiter. No thread is held while backing off,
+ * unless the call is executed synchronously.
+ * </p>
+ */
+public class RetryingCallAdapterFactory extends CallAdapter.Factory {
+
+    private static final Logger log = LogManager.getLogger(RetryingCallAdapterFactory.class);
+
+    private final Supplier<RetrySettings> settings;
+
+    /**
+     * @param settings The settings to use, read on every call.
+     */
+    public RetryingCallAdapterFactory(@Nonnull final Supplier<RetrySettings> settings) {
+        this.settings = Objects.requireNonNull(settings);
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@Nonnull final Type returnType,
+                                 @Nonnull final Annotation[] annotations,
+                                 @Nonnull final Retrofit retrofit) {
+        return wrap(retrofit.nextCallAdapter(this, returnType, annotations));
+    }
+
+    private <R, T> CallAdapter<R, T> wrap(final CallAdapter<R, T> delegate) {
+        return new CallAdapter<R, T>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public T adapt(@Nonnull final Call<R> call) {
+                final RetrySettings current = settings.get();
+                if (!current.isEnabled() || !"GET".equals(call.request().method())) {
+                    return delegate.adapt(call);
+                }
+                return delegate.adapt(new RetryingCall<>(call, current));
+            }
+        };
+    }
+
+    /**
+     * @param code The status code of a response.
+     * @return Whether an idempotent request may succeed if sent again.
+     */
+    static boolean isRetryable(final int code) {
+        return 429 == code || 500 == code || 502 == code || 503 == code || 504 == code;
+    }
+
+    /**
+     * @param retry    The number of retries made so far.
+     * @param settings The retry settings.
+     * @return The wait before the next retry: between half and all of the doubled backoff.
+     */
+    static long backoffMillis(final int retry, final RetrySettings settings) {
+        final long backoff = Math.min(settings.getMaxBackoffMillis(),
+                settings.getInitialBackoffMillis() << Math.min(retry, 30));
+        final long half = Math.max(1, backoff / 2);
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    private static final class RetryingCall<R> implements Call<R> {
+
+        private final Call<R> original;
+        private final RetrySettings settings;
+        private final AtomicBoolean executed = new AtomicBoolean();
+        private volatile Call<R> current;
+        private volatile boolean canceled;
+
+        RetryingCall(final Call<R> original, final RetrySettings settings) {
+            this.original = original;
+            this.settings = settings;
+            this.current = original;
+        }
+
+        @Override
+        public Response<R> execute() throws IOException {
+            final long deadline = start();
+            Call<R> call = current;
+            for (int attempt = 1; ; attempt++) {
+                long backoff;
+                try {
+                    final Response<R> response = call.execute();
+                    if (!isRetryable(response.code())) {
+                        return response;
+                    }
+                    backoff = backoffBeforeRetry(attempt, deadline, "HTTP " + response.code());
+                    if (backoff < 0) {
+                        return response;
+                    }
+                    discard(response);
+                } catch (IOException e) {
+                    backoff = backoffBeforeRetry(attempt, deadline, e.toString());
+                    if (backoff < 0) {
+                        throw e;
+                    }
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while backing off");
+                }
+                call = next(call);
+            }
+        }
+
+        @Override
+        public void enqueue(@Nonnull final Callback<R> callback) {
+            Objects.requireNonNull(callback, "callback == null");
+            attempt(current, 1, start(), callback);
+        }
+
+        private void attempt(final Call<R> call, final int attempt, final long deadline, final Callback<R> callback) {
+            call.enqueue(new Callback<R>() {
+                @Override
+                public void onResponse(@Nonnull Call<R> c, @Nonnull Response<R> response) {
+                    if (isRetryable(response.code())) {
+                        final long backoff = backoffBeforeRetry(attempt, deadline, "HTTP " + response.code());
+                        if (backoff >= 0) {
+                            discard(response);
+                            retry(call, attempt, deadline, backoff, callback);
+                            return;
+                        }
+                    }
+                    callback.onResponse(RetryingCall.this, response);
+                }
+
+                @Override
+                public void onFailure(@Nonnull Call<R> c, @Nonnull Throwable t) {
+                    if (t instanceof IOException) {
+                        final long backoff = backoffBeforeRetry(attempt, deadline, t.toString());
+                        if (backoff >= 0) {
+                            retry(call, attempt, deadline, backoff, callback);
+                            return;
+                        }
+                    }
+                    callback.onFailure(RetryingCall.this, t);
+                }
+            });
+        }
+
+        private void retry(final Call<R> call, final int attempt, final long deadline,
+                           final long backoff, final Callback<R> callback) {
+            CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(next(call), attempt + 1, deadline, callback));
+        }
+
+        /**
+         * @return The wait before the next attempt, or {@code -1} if there is to be none.
+         */
+        private long backoffBeforeRetry(final int attempt, final long deadline, final String cause) {
+            if (canceled || attempt >= settings.getMaxAttempts()) {
+                return -1;
+            }
+            final long backoff = backoffMillis(attempt - 1, settings);
+            if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) - deadline > 0) {
+                log.debug("Not retrying {} after {}, its deadline would pass", original.request().url(), cause);
+                return -1;
+            }
+            log.debug("Retrying {} in {} ms after {}", original.request().url(), backoff, cause);
+            return backoff;
+        }
+
+        private Call<R> next(final Call<R> call) {
+            final Call<R> next = call.clone();
+            current = next;
+            if (canceled) {
+                next.cancel();
+            }
+            return next;
+        }
+
+        private static void discard(final Response<?> response) {
+            final ResponseBody errorBody = response.errorBody();
+            if (null != errorBody) {
+                errorBody.close();
+            }
+        }
+
+        /**
+         * @return The deadline of the last retry.
+         */
+        private long start() {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already executed.");
+            }
+            return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getDeadlineMillis());
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get();
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            current.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || current.isCanceled();
+        }
+
+        @Override
+        public Call<R> clone() {
+            return new RetryingCall<>(original.clone(), settings);
+        }
+
+        @Override
+        public Request request() {
+            return original.request();
+        }
+    }
+}
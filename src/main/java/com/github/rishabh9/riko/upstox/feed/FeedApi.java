@@ -24,6 +24,7 @@
 
 package com.github.rishabh9.riko.upstox.feed;
 
+import com.github.rishabh9.riko.upstox.common.hedge.Hedged;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.feed.models.Feed;
 import com.github.rishabh9.riko.upstox.feed.models.SubscriptionResponse;
@@ -46,6 +47,7 @@ public interface FeedApi {
      * @param type     'ltp' or 'full'.
      * @return A CompletableFuture to execute the request (a)synchronously.
      */
+    @Hedged
     @GET("/live/feed/now/{exchange}/{symbol}/{type}")
     CompletableFuture<UpstoxResponse<Feed>> liveFeed(@Path("exchange") String exchange,
                                                      @Path("symbol") String symbol,
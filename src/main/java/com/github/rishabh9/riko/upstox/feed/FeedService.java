@@ -27,19 +27,47 @@ package com.github.rishabh9.riko.upstox.feed;
 import com.github.rishabh9.riko.upstox.common.Service;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.models.BatchSubscriptionResult;
 import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.feed.models.FeedSubscription;
 import com.github.rishabh9.riko.upstox.feed.models.SubscriptionResponse;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.escape.Escaper;
+import com.google.common.net.UrlEscapers;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
 
 public class FeedService extends Service {
 
     private static final Logger log = LogManager.getLogger(FeedService.class);
 
+    private static final Splitter SYMBOL_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private static final Escaper QUERY_ESCAPER = UrlEscapers.urlFormParameterEscaper();
+
+    private static final int ENCODED_SEPARATOR_LENGTH = QUERY_ESCAPER.escape(",").length();
+
+    /**
+     * Symbols successfully subscribed to through this service, by type and exchange.
+     */
+    private final ConcurrentMap<List<String>, Set<String>> subscriptions = new ConcurrentHashMap<>();
+
     /**
      * @param upstoxAuthService The service to retrieve authentication details
      */
@@ -50,6 +78,7 @@ public class FeedService extends Service {
 
     /**
      * Get live feed information about a single instrument.
+     * Hedged, when enabled by {@link com.github.rishabh9.riko.upstox.common.models.HedgeSettings}.
      *
      * @param exchange Name of the exchange. <em>Mandatory.</em>
      * @param symbol   Trading symbol. <em>Mandatory.</em>
@@ -89,7 +118,17 @@ public class FeedService extends Service {
         final FeedApi api = prepareServiceApi(FeedApi.class);
 
         log.debug("Making request - GET Subscribe");
-        return api.subscribe(type, exchange, symbolsCsv);
+        return api.subscribe(type, exchange, symbolsCsv)
+                .thenApply(response -> {
+                    if (isSuccessful(response)) {
+                        subscriptions.compute(List.of(type, exchange), (key, symbols) -> {
+                            final Set<String> updated = null == symbols ? ConcurrentHashMap.newKeySet() : symbols;
+                            updated.addAll(SYMBOL_SPLITTER.splitToList(symbolsCsv));
+                            return updated;
+                        });
+                    }
+                    return response;
+                });
     }
 
     /**
@@ -111,10 +150,183 @@ public class FeedService extends Service {
         final FeedApi api = prepareServiceApi(FeedApi.class);
 
         log.debug("Making request - GET Unsubscribe");
-        return api.unsubscribe(type, exchange, symbolsCsv);
+        return api.unsubscribe(type, exchange, symbolsCsv)
+                .thenApply(response -> {
+                    if (isSuccessful(response)) {
+                        subscriptions.computeIfPresent(List.of(type, exchange), (key, symbols) -> {
+                            symbols.removeAll(SYMBOL_SPLITTER.splitToList(symbolsCsv));
+                            return symbols.isEmpty() ? null : symbols;
+                        });
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * Subscribe to the feed of many symbols at once.
+     * The symbols are split into requests short enough for a URL, which are all sent at once.
+     * How many run concurrently is bounded by the dispatcher's requests per host.
+     *
+     * @param type     'ltp' or 'full'. <em>Either. Mandatory.</em>
+     * @param exchange Name of the exchange. <em>Mandatory.</em>
+     * @param symbols  Trading symbols. <em>Mandatory.</em>
+     * @return The symbols that succeeded and failed, across every request.
+     * Never completes exceptionally; failed requests are reported as failed symbols.
+     */
+    public CompletableFuture<BatchSubscriptionResult> subscribeAll(@Nonnull final String type,
+                                                                   @Nonnull final String exchange,
+                                                                   @Nonnull final Collection<String> symbols) {
+
+        log.debug("Validate parameters - GET Subscribe batch");
+        return batch(type, exchange, symbols, this::subscribe);
+    }
+
+    /**
+     * Unsubscribe from the feed of many symbols at once.
+     * The symbols are split into requests short enough for a URL, which are all sent at once.
+     * How many run concurrently is bounded by the dispatcher's requests per host.
+     *
+     * @param type     'ltp' or 'full'. <em>Either. Mandatory.</em>
+     * @param exchange Name of the exchange. <em>Mandatory.</em>
+     * @param symbols  Trading symbols. <em>Mandatory.</em>
+     * @return The symbols that succeeded and failed, across every request.
+     * Never completes exceptionally; failed requests are reported as failed symbols.
+     */
+    public CompletableFuture<BatchSubscriptionResult> unsubscribeAll(@Nonnull final String type,
+                                                                     @Nonnull final String exchange,
+                                                                     @Nonnull final Collection<String> symbols) {
+
+        log.debug("Validate parameters - GET Unsubscribe batch");
+        return batch(type, exchange, symbols, this::unsubscribe);
+    }
+
+    /**
+     * @return The symbols subscribed to through this service and not unsubscribed since.
+     */
+    public List<FeedSubscription> getActiveSubscriptions() {
+        final List<FeedSubscription> active = new ArrayList<>(subscriptions.size());
+        subscriptions.forEach((key, symbols) -> {
+            final FeedSubscription subscription = new FeedSubscription(key.get(0), key.get(1), symbols);
+            if (!subscription.getSymbols().isEmpty()) {
+                active.add(subscription);
+            }
+        });
+        return active;
+    }
+
+    /**
+     * Subscribe again to every active subscription, as needed after the web socket reconnects.
+     *
+     * @return The outcome, one per type and exchange.
+     */
+    public CompletableFuture<List<BatchSubscriptionResult>> resubscribe() {
+
+        final List<CompletableFuture<BatchSubscriptionResult>> futures = new ArrayList<>();
+        for (FeedSubscription subscription : getActiveSubscriptions()) {
+            log.debug("Resubscribing to {}", subscription);
+            futures.add(subscribeAll(subscription.getType(), subscription.getExchange(), subscription.getSymbols()));
+        }
+        return joinAll(futures);
+    }
+
+    private CompletableFuture<BatchSubscriptionResult> batch(final String type,
+                                                             final String exchange,
+                                                             final Collection<String> symbols,
+                                                             final SubscriptionCall call) {
+
+        validatePathParameters(type, exchange);
+        final List<List<String>> chunks = chunk(symbols,
+                Integer.parseInt(System.getProperty(RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH,
+                        RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH_DEFAULT)));
+        if (chunks.isEmpty()) {
+            validatePathParameters((String) null);
+        }
+
+        log.debug("Making {} request(s) for {} symbol(s)", chunks.size(), symbols.size());
+        final List<CompletableFuture<BatchSubscriptionResult>> futures = new ArrayList<>(chunks.size());
+        for (List<String> chunk : chunks) {
+            futures.add(call.call(type, exchange, String.join(",", chunk))
+                    .handle((response, throwable) -> toResult(type, exchange, chunk, response, throwable)));
+        }
+        return joinAll(futures)
+                .thenApply(results -> BatchSubscriptionResult.merge(type, exchange, results));
+    }
+
+    /**
+     * Splits the symbols, without duplicates, so that each part fits within the given length once URL encoded.
+     */
+    static List<List<String>> chunk(final Collection<String> symbols, final int maxLength) {
+
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("Length of a chunk must be positive. Provided: " + maxLength);
+        }
+        final Set<String> unique = new LinkedHashSet<>();
+        for (String symbol : Objects.requireNonNull(symbols)) {
+            if (!Strings.isNullOrEmpty(symbol) && !symbol.trim().isEmpty()) {
+                unique.add(symbol.trim());
+            }
+        }
+        final List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int length = 0;
+        for (String symbol : unique) {
+            final int symbolLength = QUERY_ESCAPER.escape(symbol).length();
+            // Separated from the previous symbol by an encoded comma
+            final int added = chunk.isEmpty() ? symbolLength : symbolLength + ENCODED_SEPARATOR_LENGTH;
+            if (!chunk.isEmpty() && length + added > maxLength) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                length = symbolLength;
+            } else {
+                length += added;
+            }
+            chunk.add(symbol);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static BatchSubscriptionResult toResult(final String type,
+                                                    final String exchange,
+                                                    final List<String> chunk,
+                                                    final UpstoxResponse<SubscriptionResponse> response,
+                                                    final Throwable throwable) {
+
+        final String error;
+        if (null != throwable) {
+            final Throwable cause = throwable instanceof CompletionException && null != throwable.getCause()
+                    ? throwable.getCause() : throwable;
+            error = cause.toString();
+        } else if (null == response || response.getCode() != 200) {
+            error = "Response code " + (null == response ? null : response.getCode())
+                    + ": " + (null == response ? null : response.getMessage());
+        } else if (!isSuccessful(response)) {
+            error = "Refused: " + response.getData();
+        } else {
+            return new BatchSubscriptionResult(type, exchange, 1, chunk, List.of(), List.of());
+        }
+        log.warn("Request for {} symbol(s) of {} failed. {}", chunk.size(), exchange, error);
+        return new BatchSubscriptionResult(type, exchange, 1, List.of(), chunk, List.of(error));
     }
 
-    private void validatePathParameters(String... values) {
+    private static <T> CompletableFuture<List<T>> joinAll(final List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return Whether the request succeeded, and was not refused by Upstox.
+     */
+    private static boolean isSuccessful(final UpstoxResponse<SubscriptionResponse> response) {
+        return null != response && response.getCode() == 200
+                && (null == response.getData() || response.getData().isSuccess());
+    }
+
+    private static void validatePathParameters(String... values) {
         for (String value : values) {
             if (Strings.isNullOrEmpty(value)) {
                 log.error("Argument validation failed. " +
@@ -125,4 +337,9 @@ public class FeedService extends Service {
             }
         }
     }
+
+    @FunctionalInterface
+    private interface SubscriptionCall {
+        CompletableFuture<UpstoxResponse<SubscriptionResponse>> call(String type, String exchange, String symbolsCsv);
+    }
 }
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * A short-lived cache in front of {@link FeedService#liveFeed(String, String, String)}.
+ * <p>
+ * Callers asking for the same instrument and type, whatever the case, share a single request while it is in flight,
+ * and its response for the time to live once it has completed. Failed requests are not cached.
+ * When the cache also receives the ticks of the web socket, as a {@link Consumer} of
+ * {@link CompactFeed}, a tick fresher than the time to live answers without any request:
+ * any tick answers an 'ltp' request, only a tick of the FULL feed answers a 'full' one.
+ * </p>
+ * <p>
+ * The {@link Feed} returned is shared between the callers, and must not be modified.
+ * </p>
+ */
+public class LiveFeedCache implements Consumer<CompactFeed> {
+
+    private static final Logger log = LogManager.getLogger(LiveFeedCache.class);
+
+    private static final String FULL = "full";
+
+    private final FeedService feedService;
+    private final long ttlNanos;
+
+    private final ConcurrentMap<List<String>, Response> responses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, Tick>> ticks = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong responseHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong tickHits = new AtomicLong();
+
+    /**
+     * @param feedService The service to request the feed from, with the time to live
+     *                    configured by the system properties. <em>Mandatory.</em>
+     */
+    public LiveFeedCache(@Nonnull final FeedService feedService) {
+        this(feedService, Long.parseLong(System.getProperty(RIKO_FEED_CACHE_TTL, RIKO_FEED_CACHE_TTL_DEFAULT)),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param feedService The service to request the feed from. <em>Mandatory.</em>
+     * @param ttl         How long a response or a tick is served for.
+     * @param unit        Unit of the time to live. <em>Mandatory.</em>
+     */
+    public LiveFeedCache(@Nonnull final FeedService feedService, final long ttl, @Nonnull final TimeUnit unit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("Time to live cannot be negative. Provided: " + ttl);
+        }
+        this.feedService = Objects.requireNonNull(feedService);
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Get live feed information about a single instrument, from the cache when fresh enough.
+     *
+     * @param exchange Name of the exchange. <em>Mandatory.</em>
+     * @param symbol   Trading symbol. <em>Mandatory.</em>
+     * @param type     'ltp' or 'full'. <em>Either. Mandatory.</em>
+     * @return Instant of a live Feed. Cancelling it does not affect the other callers.
+     */
+    public CompletableFuture<UpstoxResponse<Feed>> liveFeed(@Nonnull final String exchange,
+                                                            @Nonnull final String symbol,
+                                                            @Nonnull final String type) {
+
+        final long now = System.nanoTime();
+        final UpstoxResponse<Feed> fromTick = fromTick(exchange, symbol, type, now);
+        if (null != fromTick) {
+            tickHits.incrementAndGet();
+            return CompletableFuture.completedFuture(fromTick);
+        }
+
+        final List<String> key = List.of(exchange.toLowerCase(Locale.ROOT), symbol.toLowerCase(Locale.ROOT),
+                type.toLowerCase(Locale.ROOT));
+        Response response = responses.get(key);
+        if (null == response || response.isStale(now)) {
+            final Response created = new Response();
+            response = responses.compute(key, (k, current) ->
+                    null == current || current.isStale(now) ? created : current);
+            if (response == created) {
+                request(key, created, exchange, symbol, type);
+                return created.future.copy();
+            }
+        }
+        if (response.future.isDone()) {
+            responseHits.incrementAndGet();
+        } else {
+            coalesced.incrementAndGet();
+        }
+        return response.future.copy();
+    }
+
+    /**
+     * Keeps the tick, to answer the requests for its instrument.
+     *
+     * @param tick A tick of the web socket feed. <em>Mandatory.</em>
+     */
+    @Override
+    public void accept(@Nonnull final CompactFeed tick) {
+        ConcurrentMap<String, Tick> symbols = ticks.get(tick.getExchange());
+        if (null == symbols) {
+            symbols = ticks.computeIfAbsent(tick.getExchange(), exchange -> new ConcurrentHashMap<>());
+        }
+        Tick latest = symbols.get(tick.getSymbol());
+        if (null == latest) {
+            latest = symbols.computeIfAbsent(tick.getSymbol(), symbol -> new Tick());
+        }
+        latest.update(tick);
+    }
+
+    /**
+     * @return The number of requests made to Upstox.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of calls answered by a completed response.
+     */
+    public long getResponseHitCount() {
+        return responseHits.get();
+    }
+
+    /**
+     * @return The number of calls that joined a request in flight.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return The number of calls answered by a tick of the web socket.
+     */
+    public long getTickHitCount() {
+        return tickHits.get();
+    }
+
+    private void request(final List<String> key, final Response response,
+                         final String exchange, final String symbol, final String type) {
+        requests.incrementAndGet();
+        final CompletableFuture<UpstoxResponse<Feed>> request;
+        try {
+            request = feedService.liveFeed(exchange, symbol, type);
+        } catch (RuntimeException e) {
+            responses.remove(key, response);
+            // Callers may have joined it meanwhile
+            response.future.completeExceptionally(e);
+            throw e;
+        }
+        request.whenComplete((result, throwable) -> {
+            if (null == throwable && null != result && result.getCode() == 200) {
+                response.completedAtNanos = System.nanoTime();
+            } else {
+                // Only successes are served again
+                responses.remove(key, response);
+            }
+            if (null == throwable) {
+                response.future.complete(result);
+            } else {
+                response.future.completeExceptionally(throwable);
+            }
+        });
+    }
+
+    private UpstoxResponse<Feed> fromTick(final String exchange, final String symbol, final String type,
+                                          final long now) {
+        final ConcurrentMap<String, Tick> symbols = ticks.get(exchange);
+        final Tick tick = null == symbols ? null : symbols.get(symbol);
+        if (null == tick) {
+            return null;
+        }
+        final Feed feed = tick.toFeed(FULL.equalsIgnoreCase(type), now - ttlNanos);
+        if (null == feed) {
+            return null;
+        }
+        final UpstoxResponse<Feed> response = new UpstoxResponse<>();
+        response.setCode(200);
+        response.setStatus("OK");
+        response.setData(feed);
+        return response;
+    }
+
+    private final class Response {
+
+        private final CompletableFuture<UpstoxResponse<Feed>> future = new CompletableFuture<>();
+        private volatile long completedAtNanos;
+
+        private boolean isStale(final long now) {
+            return future.isDone() && now - completedAtNanos > ttlNanos;
+        }
+    }
+
+    /**
+     * The latest tick of an instrument.
+     */
+    private static final class Tick {
+
+        private final CompactFeed latest = new CompactFeed();
+        private long receivedAtNanos;
+        private boolean full;
+
+        private synchronized void update(final CompactFeed tick) {
+            latest.copyFrom(tick);
+            receivedAtNanos = System.nanoTime();
+            // LTP ticks carry neither the open price nor any depth
+            full = FixedPoint.NULL != tick.getOpen() || tick.getBidLevels() > 0 || tick.getAskLevels() > 0;
+        }
+
+        /**
+         * @return The tick, unless it was received before the given instant or lacks what a 'full' request needs.
+         */
+        private synchronized Feed toFeed(final boolean needsFull, final long receivedAfterNanos) {
+            if (receivedAtNanos - receivedAfterNanos < 0 || (needsFull && !full)) {
+                return null;
+            }
+            return latest.toFeed();
+        }
+    }
+}
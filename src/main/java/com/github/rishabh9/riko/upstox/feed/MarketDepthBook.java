@@ -0,0 +1,350 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * The market depth of an instrument, kept up to date from the ticks of the FULL feed.
+ * <p>
+ * Each tick is applied in place to primitive arrays, only writing the levels that changed,
+ * along with the cumulative quantities, so the best bid and ask, the spread and the depth over
+ * any number of levels all read in constant time. A tick without any depth, as in LTP mode,
+ * leaves the book as it is.
+ * </p>
+ * <p>
+ * Reads never lock. They are guarded by a sequence number, odd while an update is being written,
+ * and retried in the rare case an update went on meanwhile. A reader needing several values
+ * consistent with each other takes a {@link MarketDepthSnapshot}. Updates are serialised.
+ * Prices are fixed-point {@code long} values (see {@link FixedPoint}).
+ * </p>
+ */
+public class MarketDepthBook {
+
+    private static final int DEPTH = CompactFeed.DEPTH;
+
+    private final String exchange;
+    private final String symbol;
+
+    /**
+     * Even while the book is stable; twice the number of updates applied.
+     */
+    private volatile long sequence;
+
+    private long timestamp = FixedPoint.NULL;
+    private int bidLevels;
+    private final long[] bidPrices = new long[DEPTH];
+    private final long[] bidQuantities = new long[DEPTH];
+    private final long[] bidOrders = new long[DEPTH];
+    private final long[] cumulativeBidQuantities = new long[DEPTH];
+    private int askLevels;
+    private final long[] askPrices = new long[DEPTH];
+    private final long[] askQuantities = new long[DEPTH];
+    private final long[] askOrders = new long[DEPTH];
+    private final long[] cumulativeAskQuantities = new long[DEPTH];
+
+    /**
+     * Converts the ticks applied as {@link Feed}. Guarded by {@code this}.
+     */
+    private CompactFeed scratch;
+
+    /**
+     * @param exchange Name of the exchange. <em>Mandatory.</em>
+     * @param symbol   Trading symbol. <em>Mandatory.</em>
+     */
+    public MarketDepthBook(@Nonnull final String exchange, @Nonnull final String symbol) {
+        this.exchange = Objects.requireNonNull(exchange);
+        this.symbol = Objects.requireNonNull(symbol);
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Applies a tick of this instrument. Levels beyond {@link CompactFeed#DEPTH} are ignored.
+     *
+     * @param tick The tick. <em>Mandatory.</em>
+     * @return Whether the depth changed.
+     */
+    public synchronized boolean apply(@Nonnull final CompactFeed tick) {
+        final int bids = Math.min(DEPTH, tick.getBidLevels());
+        final int asks = Math.min(DEPTH, tick.getAskLevels());
+        if (0 == bids && 0 == asks) {
+            return false;
+        }
+        final int bidChange = firstBidChange(tick, bids);
+        final int askChange = firstAskChange(tick, asks);
+        if (bidChange < 0 && askChange < 0) {
+            return false;
+        }
+
+        final long stable = sequence;
+        sequence = stable + 1;
+        // Readers must not see any of the writes below without seeing the odd sequence first
+        VarHandle.storeStoreFence();
+        timestamp = tick.getTimestamp();
+        if (bidChange >= 0) {
+            for (int i = bidChange; i < bids; i++) {
+                bidPrices[i] = tick.getBidPrice(i);
+                bidQuantities[i] = tick.getBidQuantity(i);
+                bidOrders[i] = tick.getBidOrders(i);
+                cumulativeBidQuantities[i] = quantity(bidQuantities[i])
+                        + (0 == i ? 0 : cumulativeBidQuantities[i - 1]);
+            }
+            bidLevels = bids;
+        }
+        if (askChange >= 0) {
+            for (int i = askChange; i < asks; i++) {
+                askPrices[i] = tick.getAskPrice(i);
+                askQuantities[i] = tick.getAskQuantity(i);
+                askOrders[i] = tick.getAskOrders(i);
+                cumulativeAskQuantities[i] = quantity(askQuantities[i])
+                        + (0 == i ? 0 : cumulativeAskQuantities[i - 1]);
+            }
+            askLevels = asks;
+        }
+        sequence = stable + 2;
+        return true;
+    }
+
+    /**
+     * Applies a tick of this instrument.
+     *
+     * @param feed The tick. <em>Mandatory.</em>
+     * @return Whether the depth changed.
+     */
+    public synchronized boolean apply(@Nonnull final Feed feed) {
+        if (null == scratch) {
+            scratch = new CompactFeed();
+        }
+        return apply(scratch.copyFrom(feed));
+    }
+
+    /**
+     * @return The number of updates applied.
+     */
+    public long getVersion() {
+        return sequence >>> 1;
+    }
+
+    /**
+     * @return Timestamp of the tick that last changed the book.
+     */
+    public long getTimestamp() {
+        long stable;
+        long value;
+        do {
+            stable = beginRead();
+            value = timestamp;
+        } while (!validate(stable));
+        return value;
+    }
+
+    /**
+     * @return In fixed-point units, or {@link FixedPoint#NULL} when there is no bid.
+     */
+    public long getBestBidPrice() {
+        long stable;
+        long value;
+        do {
+            stable = beginRead();
+            value = 0 == bidLevels ? FixedPoint.NULL : bidPrices[0];
+        } while (!validate(stable));
+        return value;
+    }
+
+    /**
+     * @return The quantity at the best bid, or {@code 0} when there is no bid.
+     */
+    public long getBestBidQuantity() {
+        return getCumulativeBidQuantity(1);
+    }
+
+    /**
+     * @return In fixed-point units, or {@link FixedPoint#NULL} when there is no ask.
+     */
+    public long getBestAskPrice() {
+        long stable;
+        long value;
+        do {
+            stable = beginRead();
+            value = 0 == askLevels ? FixedPoint.NULL : askPrices[0];
+        } while (!validate(stable));
+        return value;
+    }
+
+    /**
+     * @return The quantity at the best ask, or {@code 0} when there is no ask.
+     */
+    public long getBestAskQuantity() {
+        return getCumulativeAskQuantity(1);
+    }
+
+    /**
+     * @return Best ask less best bid, in fixed-point units,
+     * or {@link FixedPoint#NULL} when either side is missing.
+     */
+    public long getSpread() {
+        long stable;
+        long bid;
+        long ask;
+        do {
+            stable = beginRead();
+            bid = 0 == bidLevels ? FixedPoint.NULL : bidPrices[0];
+            ask = 0 == askLevels ? FixedPoint.NULL : askPrices[0];
+        } while (!validate(stable));
+        return spread(bid, ask);
+    }
+
+    /**
+     * @param levels Number of levels from the best bid.
+     * @return The quantity bid over those levels.
+     */
+    public long getCumulativeBidQuantity(final int levels) {
+        long stable;
+        long value;
+        do {
+            stable = beginRead();
+            final int held = Math.min(levels, bidLevels);
+            value = held <= 0 ? 0 : cumulativeBidQuantities[held - 1];
+        } while (!validate(stable));
+        return value;
+    }
+
+    /**
+     * @param levels Number of levels from the best ask.
+     * @return The quantity asked over those levels.
+     */
+    public long getCumulativeAskQuantity(final int levels) {
+        long stable;
+        long value;
+        do {
+            stable = beginRead();
+            final int held = Math.min(levels, askLevels);
+            value = held <= 0 ? 0 : cumulativeAskQuantities[held - 1];
+        } while (!validate(stable));
+        return value;
+    }
+
+    /**
+     * Copies the whole book, consistently, into the given snapshot.
+     *
+     * @param target Receives the copy. <em>Mandatory.</em>
+     * @return The target.
+     */
+    public MarketDepthSnapshot snapshot(@Nonnull final MarketDepthSnapshot target) {
+        Objects.requireNonNull(target);
+        long stable;
+        do {
+            stable = beginRead();
+            target.version = stable >>> 1;
+            target.timestamp = timestamp;
+            target.bidLevels = bidLevels;
+            System.arraycopy(bidPrices, 0, target.bidPrices, 0, DEPTH);
+            System.arraycopy(bidQuantities, 0, target.bidQuantities, 0, DEPTH);
+            System.arraycopy(bidOrders, 0, target.bidOrders, 0, DEPTH);
+            System.arraycopy(cumulativeBidQuantities, 0, target.cumulativeBidQuantities, 0, DEPTH);
+            target.askLevels = askLevels;
+            System.arraycopy(askPrices, 0, target.askPrices, 0, DEPTH);
+            System.arraycopy(askQuantities, 0, target.askQuantities, 0, DEPTH);
+            System.arraycopy(askOrders, 0, target.askOrders, 0, DEPTH);
+            System.arraycopy(cumulativeAskQuantities, 0, target.cumulativeAskQuantities, 0, DEPTH);
+        } while (!validate(stable));
+        return target;
+    }
+
+    /**
+     * @return A consistent copy of the whole book.
+     */
+    public MarketDepthSnapshot snapshot() {
+        return snapshot(new MarketDepthSnapshot());
+    }
+
+    static long spread(final long bid, final long ask) {
+        return FixedPoint.NULL == bid || FixedPoint.NULL == ask ? FixedPoint.NULL : ask - bid;
+    }
+
+    /**
+     * @return The first level that differs, or {@code -1} if none does.
+     */
+    private int firstBidChange(final CompactFeed tick, final int levels) {
+        for (int i = 0; i < levels; i++) {
+            if (i >= bidLevels || bidPrices[i] != tick.getBidPrice(i)
+                    || bidQuantities[i] != tick.getBidQuantity(i) || bidOrders[i] != tick.getBidOrders(i)) {
+                return i;
+            }
+        }
+        return levels == bidLevels ? -1 : levels;
+    }
+
+    /**
+     * @return The first level that differs, or {@code -1} if none does.
+     */
+    private int firstAskChange(final CompactFeed tick, final int levels) {
+        for (int i = 0; i < levels; i++) {
+            if (i >= askLevels || askPrices[i] != tick.getAskPrice(i)
+                    || askQuantities[i] != tick.getAskQuantity(i) || askOrders[i] != tick.getAskOrders(i)) {
+                return i;
+            }
+        }
+        return levels == askLevels ? -1 : levels;
+    }
+
+    private static long quantity(final long quantity) {
+        return FixedPoint.NULL == quantity ? 0 : quantity;
+    }
+
+    /**
+     * @return The sequence, once no update is being written.
+     */
+    private long beginRead() {
+        long stable = sequence;
+        while ((stable & 1) != 0) {
+            Thread.onSpinWait();
+            stable = sequence;
+        }
+        return stable;
+    }
+
+    /**
+     * @return Whether no update was written since the read began.
+     */
+    private boolean validate(final long stable) {
+        // The reads above must complete before the sequence is read again
+        VarHandle.loadLoadFence();
+        return stable == sequence;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * The {@link MarketDepthBook} of every instrument the FULL feed carries depth for, keyed by exchange and symbol.
+ * <p>
+ * Meant to receive the ticks straight from a
+ * {@link com.github.rishabh9.riko.upstox.websockets.decoders.FeedDecoder},
+ * or from a {@link com.github.rishabh9.riko.upstox.websockets.ShardedFeedSubscriber},
+ * as the ticks of any one instrument must be applied in order.
+ * Books are created on the first tick carrying depth, and read from any thread.
+ * </p>
+ */
+public class MarketDepthBooks implements Consumer<CompactFeed> {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, MarketDepthBook>> books = new ConcurrentHashMap<>();
+
+    /**
+     * Applies the tick to the book of its instrument.
+     *
+     * @param tick The tick. <em>Mandatory.</em>
+     */
+    @Override
+    public void accept(@Nonnull final CompactFeed tick) {
+        if (0 == tick.getBidLevels() && 0 == tick.getAskLevels()) {
+            return;
+        }
+        ConcurrentMap<String, MarketDepthBook> symbols = books.get(tick.getExchange());
+        if (null == symbols) {
+            symbols = books.computeIfAbsent(tick.getExchange(), exchange -> new ConcurrentHashMap<>());
+        }
+        MarketDepthBook book = symbols.get(tick.getSymbol());
+        if (null == book) {
+            book = symbols.computeIfAbsent(tick.getSymbol(), symbol -> new MarketDepthBook(tick.getExchange(), symbol));
+        }
+        book.apply(tick);
+    }
+
+    /**
+     * @param exchange Name of the exchange.
+     * @param symbol   Trading symbol.
+     * @return The book of the instrument, or {@code null} if no depth was received for it yet.
+     */
+    @Nullable
+    public MarketDepthBook get(@Nonnull final String exchange, @Nonnull final String symbol) {
+        final ConcurrentMap<String, MarketDepthBook> symbols = books.get(exchange);
+        return null == symbols ? null : symbols.get(symbol);
+    }
+
+    /**
+     * @return The number of books held.
+     */
+    public int size() {
+        return books.values().stream().mapToInt(ConcurrentMap::size).sum();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.google.common.base.MoreObjects;
+
+import java.util.Arrays;
+
+/**
+ * A consistent copy of a {@link MarketDepthBook}, taken at one instant.
+ * <p>
+ * Meant to be reused from one snapshot to the next, so that taking one allocates nothing.
+ * Prices are fixed-point {@code long} values (see {@link FixedPoint}); a missing price
+ * reads as {@link FixedPoint#NULL}.
+ * </p>
+ */
+public class MarketDepthSnapshot {
+
+    long version;
+    long timestamp = FixedPoint.NULL;
+    int bidLevels;
+    final long[] bidPrices = new long[CompactFeed.DEPTH];
+    final long[] bidQuantities = new long[CompactFeed.DEPTH];
+    final long[] bidOrders = new long[CompactFeed.DEPTH];
+    final long[] cumulativeBidQuantities = new long[CompactFeed.DEPTH];
+    int askLevels;
+    final long[] askPrices = new long[CompactFeed.DEPTH];
+    final long[] askQuantities = new long[CompactFeed.DEPTH];
+    final long[] askOrders = new long[CompactFeed.DEPTH];
+    final long[] cumulativeAskQuantities = new long[CompactFeed.DEPTH];
+
+    /**
+     * @return The number of updates applied to the book when the snapshot was taken.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Timestamp of the tick that last changed the book.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getBidLevels() {
+        return bidLevels;
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best bid.
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getBidPrice(int level) {
+        return bidPrices[checkLevel(level, bidLevels)];
+    }
+
+    public long getBidQuantity(int level) {
+        return bidQuantities[checkLevel(level, bidLevels)];
+    }
+
+    public long getBidOrders(int level) {
+        return bidOrders[checkLevel(level, bidLevels)];
+    }
+
+    public int getAskLevels() {
+        return askLevels;
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best ask.
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getAskPrice(int level) {
+        return askPrices[checkLevel(level, askLevels)];
+    }
+
+    public long getAskQuantity(int level) {
+        return askQuantities[checkLevel(level, askLevels)];
+    }
+
+    public long getAskOrders(int level) {
+        return askOrders[checkLevel(level, askLevels)];
+    }
+
+    /**
+     * @return In fixed-point units, or {@link FixedPoint#NULL} when there is no bid.
+     */
+    public long getBestBidPrice() {
+        return 0 == bidLevels ? FixedPoint.NULL : bidPrices[0];
+    }
+
+    /**
+     * @return In fixed-point units, or {@link FixedPoint#NULL} when there is no ask.
+     */
+    public long getBestAskPrice() {
+        return 0 == askLevels ? FixedPoint.NULL : askPrices[0];
+    }
+
+    /**
+     * @return Best ask less best bid, in fixed-point units,
+     * or {@link FixedPoint#NULL} when either side is missing.
+     */
+    public long getSpread() {
+        return MarketDepthBook.spread(getBestBidPrice(), getBestAskPrice());
+    }
+
+    /**
+     * @param levels Number of levels from the best bid.
+     * @return The quantity bid over those levels.
+     */
+    public long getCumulativeBidQuantity(int levels) {
+        final int held = Math.min(levels, bidLevels);
+        return held <= 0 ? 0 : cumulativeBidQuantities[held - 1];
+    }
+
+    /**
+     * @param levels Number of levels from the best ask.
+     * @return The quantity asked over those levels.
+     */
+    public long getCumulativeAskQuantity(int levels) {
+        final int held = Math.min(levels, askLevels);
+        return held <= 0 ? 0 : cumulativeAskQuantities[held - 1];
+    }
+
+    private static int checkLevel(final int level, final int levels) {
+        if (level < 0 || level >= levels) {
+            throw new IndexOutOfBoundsException("Level " + level + " beyond the " + levels + " levels held.");
+        }
+        return level;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("version", version)
+                .add("timestamp", timestamp)
+                .add("bidPrices", Arrays.toString(Arrays.copyOf(bidPrices, bidLevels)))
+                .add("bidQuantities", Arrays.toString(Arrays.copyOf(bidQuantities, bidLevels)))
+                .add("askPrices", Arrays.toString(Arrays.copyOf(askPrices, askLevels)))
+                .add("askQuantities", Arrays.toString(Arrays.copyOf(askQuantities, askLevels)))
+                .toString();
+    }
+}
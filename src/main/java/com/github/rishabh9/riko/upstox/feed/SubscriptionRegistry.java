@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.constants.LiveFeedType;
+import com.github.rishabh9.riko.upstox.feed.models.BatchSubscriptionResult;
+import com.github.rishabh9.riko.upstox.feed.models.FeedSubscription;
+import com.github.rishabh9.riko.upstox.feed.models.SubscriptionUpdate;
+import com.google.common.collect.Sets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Brings the feed subscriptions to a desired state, with as few calls as possible.
+ * <p>
+ * The subscriptions currently active are the ones the {@link FeedService} made successfully,
+ * keyed by type ({@link LiveFeedType#LTP} or {@link LiveFeedType#FULL}), exchange and symbol.
+ * Only the symbols that differ from the desired state are subscribed or unsubscribed to,
+ * so rotating a watchlist only costs the symbols that rotated. Symbols whose calls failed
+ * remain out of line with the desired state, and are tried again by the next update.
+ * </p>
+ * <p>
+ * Updates are applied one at a time, in the order they were requested;
+ * each one is compared with the state the previous ones left.
+ * </p>
+ */
+public class SubscriptionRegistry {
+
+    private static final Logger log = LogManager.getLogger(SubscriptionRegistry.class);
+
+    private final FeedService feedService;
+
+    /**
+     * Completes once the last requested update is applied. Guarded by {@code this}.
+     */
+    private CompletableFuture<SubscriptionUpdate> pending = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param feedService The service to subscribe through. <em>Mandatory.</em>
+     */
+    public SubscriptionRegistry(@Nonnull final FeedService feedService) {
+        this.feedService = Objects.requireNonNull(feedService);
+    }
+
+    /**
+     * Subscribe to exactly the given symbols, unsubscribing from every other one.
+     *
+     * @param desired The subscriptions wanted. Those for the same type and exchange are merged.
+     *                <em>Mandatory.</em>
+     * @return The calls made, completed once all of them are.
+     */
+    public CompletableFuture<SubscriptionUpdate> setDesiredSubscriptions(
+            @Nonnull final Collection<FeedSubscription> desired) {
+
+        final Map<List<String>, Set<String>> target = index(Objects.requireNonNull(desired));
+        return enqueue(target, key -> true);
+    }
+
+    /**
+     * Subscribe to exactly the given symbols of a type and exchange,
+     * leaving the subscriptions of other types and exchanges as they are.
+     *
+     * @param type     'ltp' or 'full'. <em>Either. Mandatory.</em>
+     * @param exchange Name of the exchange. <em>Mandatory.</em>
+     * @param symbols  Trading symbols wanted. <em>Mandatory.</em>
+     * @return The calls made, completed once all of them are.
+     */
+    public CompletableFuture<SubscriptionUpdate> setDesiredSubscriptions(@Nonnull final String type,
+                                                                         @Nonnull final String exchange,
+                                                                         @Nonnull final Collection<String> symbols) {
+
+        final FeedSubscription subscription = new FeedSubscription(Objects.requireNonNull(type),
+                Objects.requireNonNull(exchange), Objects.requireNonNull(symbols));
+        final List<String> scope = List.of(type, exchange);
+        return enqueue(index(List.of(subscription)), scope::equals);
+    }
+
+    /**
+     * @return The subscriptions currently active.
+     */
+    public List<FeedSubscription> getActiveSubscriptions() {
+        return feedService.getActiveSubscriptions();
+    }
+
+    private synchronized CompletableFuture<SubscriptionUpdate> enqueue(final Map<List<String>, Set<String>> target,
+                                                                    final Predicate<List<String>> scope) {
+        // Whether the previous update failed or not, this one starts from wherever it left
+        final CompletableFuture<SubscriptionUpdate> update = pending
+                .handle((previous, throwable) -> null)
+                .thenCompose(ignored -> apply(target, scope));
+        pending = update;
+        return update;
+    }
+
+    private CompletableFuture<SubscriptionUpdate> apply(final Map<List<String>, Set<String>> target,
+                                                        final Predicate<List<String>> scope) {
+
+        final Map<List<String>, Set<String>> active = index(feedService.getActiveSubscriptions());
+        final Set<List<String>> keys = new HashSet<>(target.keySet());
+        active.keySet().stream().filter(scope).forEach(keys::add);
+
+        final List<CompletableFuture<BatchSubscriptionResult>> subscribed = new ArrayList<>();
+        final List<CompletableFuture<BatchSubscriptionResult>> unsubscribed = new ArrayList<>();
+        for (List<String> key : keys) {
+            final Set<String> wanted = target.getOrDefault(key, Set.of());
+            final Set<String> current = active.getOrDefault(key, Set.of());
+            final Set<String> added = Sets.difference(wanted, current);
+            final Set<String> removed = Sets.difference(current, wanted);
+            if (!removed.isEmpty()) {
+                log.debug("Unsubscribing from {} symbol(s) of {} {}", removed.size(), key.get(0), key.get(1));
+                unsubscribed.add(feedService.unsubscribeAll(key.get(0), key.get(1), Set.copyOf(removed)));
+            }
+            if (!added.isEmpty()) {
+                log.debug("Subscribing to {} symbol(s) of {} {}", added.size(), key.get(0), key.get(1));
+                subscribed.add(feedService.subscribeAll(key.get(0), key.get(1), Set.copyOf(added)));
+            }
+        }
+
+        final List<CompletableFuture<BatchSubscriptionResult>> all = new ArrayList<>(subscribed);
+        all.addAll(unsubscribed);
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> new SubscriptionUpdate(join(subscribed), join(unsubscribed)));
+    }
+
+    private static Map<List<String>, Set<String>> index(final Collection<FeedSubscription> subscriptions) {
+        final Map<List<String>, Set<String>> index = new HashMap<>();
+        for (FeedSubscription subscription : subscriptions) {
+            final Set<String> symbols = index.computeIfAbsent(
+                    List.of(subscription.getType(), subscription.getExchange()), key -> new HashSet<>());
+            for (String symbol : subscription.getSymbols()) {
+                // As the service trims the symbols it subscribes to
+                if (null != symbol && !symbol.trim().isEmpty()) {
+                    symbols.add(symbol.trim());
+                }
+            }
+        }
+        return index;
+    }
+
+    private static List<BatchSubscriptionResult> join(final List<CompletableFuture<BatchSubscriptionResult>> futures) {
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed.models;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The outcome of subscribing, or unsubscribing, to many symbols at once,
+ * across as many requests as it took.
+ */
+public class BatchSubscriptionResult {
+
+    private final String type;
+    private final String exchange;
+    private final int requests;
+    private final List<String> succeeded;
+    private final List<String> failed;
+    private final List<String> errors;
+
+    public BatchSubscriptionResult(final String type,
+                                   final String exchange,
+                                   final int requests,
+                                   final Collection<String> succeeded,
+                                   final Collection<String> failed,
+                                   final Collection<String> errors) {
+        this.type = type;
+        this.exchange = exchange;
+        this.requests = requests;
+        this.succeeded = ImmutableList.copyOf(succeeded);
+        this.failed = ImmutableList.copyOf(failed);
+        this.errors = ImmutableList.copyOf(errors);
+    }
+
+    /**
+     * @param type     'ltp' or 'full'.
+     * @param exchange Name of the exchange.
+     * @param results  The results of the individual requests, in order.
+     * @return A single result covering every request.
+     */
+    public static BatchSubscriptionResult merge(final String type,
+                                                final String exchange,
+                                                final Collection<BatchSubscriptionResult> results) {
+        final ImmutableList.Builder<String> succeeded = ImmutableList.builder();
+        final ImmutableList.Builder<String> failed = ImmutableList.builder();
+        final ImmutableList.Builder<String> errors = ImmutableList.builder();
+        int requests = 0;
+        for (BatchSubscriptionResult result : results) {
+            requests += result.requests;
+            succeeded.addAll(result.succeeded);
+            failed.addAll(result.failed);
+            errors.addAll(result.errors);
+        }
+        return new BatchSubscriptionResult(type, exchange, requests,
+                succeeded.build(), failed.build(), errors.build());
+    }
+
+    /**
+     * @return 'ltp' or 'full'.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    /**
+     * @return The number of requests made.
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return The symbols Upstox confirmed.
+     */
+    public List<String> getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return The symbols of the requests that failed or were refused.
+     */
+    public List<String> getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return Why each failed request failed.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return Whether every symbol succeeded.
+     */
+    public boolean isSuccess() {
+        return failed.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchSubscriptionResult that = (BatchSubscriptionResult) o;
+        return requests == that.requests &&
+                Objects.equals(type, that.type) &&
+                Objects.equals(exchange, that.exchange) &&
+                Objects.equals(succeeded, that.succeeded) &&
+                Objects.equals(failed, that.failed) &&
+                Objects.equals(errors, that.errors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, exchange, requests, succeeded, failed, errors);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("exchange", exchange)
+                .add("requests", requests)
+                .add("succeeded", succeeded)
+                .add("failed", failed)
+                .add("errors", errors)
+                .toString();
+    }
+}
@@ -0,0 +1,713 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed.models;
+
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact counterpart of {@link Feed}.
+ * <p>
+ * Amounts are held as fixed-point {@code long} values (see {@link FixedPoint})
+ * and quantities as primitive {@code long} values, so reading them never boxes.
+ * A missing value reads as {@link FixedPoint#NULL}.
+ * The market depth is held in primitive arrays, reused from one tick to the next.
+ * </p>
+ */
+public class CompactFeed {
+
+    /**
+     * Number of depth levels published by Upstox on each side of the book.
+     */
+    public static final int DEPTH = 5;
+
+    private long timestamp = FixedPoint.NULL;
+
+    private String exchange;
+
+    private String symbol;
+
+    private long ltp = FixedPoint.NULL;
+
+    private long open = FixedPoint.NULL;
+
+    private long high = FixedPoint.NULL;
+
+    private long low = FixedPoint.NULL;
+
+    private long close = FixedPoint.NULL;
+
+    private long vtt = FixedPoint.NULL;
+
+    private long atp = FixedPoint.NULL;
+
+    private long oi = FixedPoint.NULL;
+
+    private long spotPrice = FixedPoint.NULL;
+
+    private long totalBuyQuantity = FixedPoint.NULL;
+
+    private long totalSellQuantity = FixedPoint.NULL;
+
+    private long lowerCircuit = FixedPoint.NULL;
+
+    private long upperCircuit = FixedPoint.NULL;
+
+    private long yearlyLow = FixedPoint.NULL;
+
+    private long yearlyHigh = FixedPoint.NULL;
+
+    private long ltt = FixedPoint.NULL;
+
+    private int bidLevels;
+
+    private long[] bidPrices = new long[DEPTH];
+
+    private long[] bidQuantities = new long[DEPTH];
+
+    private long[] bidOrders = new long[DEPTH];
+
+    private int askLevels;
+
+    private long[] askPrices = new long[DEPTH];
+
+    private long[] askQuantities = new long[DEPTH];
+
+    private long[] askOrders = new long[DEPTH];
+
+    /**
+     * @param feed The feed to convert.
+     * @return A compact copy of the feed.
+     */
+    public static CompactFeed from(@Nonnull final Feed feed) {
+        return new CompactFeed().copyFrom(feed);
+    }
+
+    /**
+     * Overwrites every field of this instance, so that it can be reused.
+     *
+     * @param feed The feed to copy.
+     * @return This instance.
+     */
+    public CompactFeed copyFrom(@Nonnull final Feed feed) {
+        Objects.requireNonNull(feed);
+        this.timestamp = FixedPoint.unbox(feed.getTimestamp());
+        this.exchange = feed.getExchange();
+        this.symbol = feed.getSymbol();
+        this.ltp = FixedPoint.toFixed(feed.getLtp());
+        this.open = FixedPoint.toFixed(feed.getOpen());
+        this.high = FixedPoint.toFixed(feed.getHigh());
+        this.low = FixedPoint.toFixed(feed.getLow());
+        this.close = FixedPoint.toFixed(feed.getClose());
+        this.vtt = FixedPoint.unbox(feed.getVtt());
+        this.atp = FixedPoint.toFixed(feed.getAtp());
+        this.oi = FixedPoint.toFixed(feed.getOi());
+        this.spotPrice = FixedPoint.toFixed(feed.getSpotPrice());
+        this.totalBuyQuantity = FixedPoint.unbox(feed.getTotalBuyQuantity());
+        this.totalSellQuantity = FixedPoint.unbox(feed.getTotalSellQuantity());
+        this.lowerCircuit = FixedPoint.toFixed(feed.getLowerCircuit());
+        this.upperCircuit = FixedPoint.toFixed(feed.getUpperCircuit());
+        this.yearlyLow = FixedPoint.toFixed(feed.getYearlyLow());
+        this.yearlyHigh = FixedPoint.toFixed(feed.getYearlyHigh());
+        this.ltt = FixedPoint.unbox(feed.getLtt());
+        copyDepth(feed.getBids(), true);
+        copyDepth(feed.getAsk(), false);
+        return this;
+    }
+
+    /**
+     * Overwrites every field of this instance with those of another, without allocating
+     * unless the other holds more depth levels than fit.
+     *
+     * @param other The compact feed to copy.
+     * @return This instance.
+     */
+    public CompactFeed copyFrom(@Nonnull final CompactFeed other) {
+        Objects.requireNonNull(other);
+        this.timestamp = other.timestamp;
+        this.exchange = other.exchange;
+        this.symbol = other.symbol;
+        this.ltp = other.ltp;
+        this.open = other.open;
+        this.high = other.high;
+        this.low = other.low;
+        this.close = other.close;
+        this.vtt = other.vtt;
+        this.atp = other.atp;
+        this.oi = other.oi;
+        this.spotPrice = other.spotPrice;
+        this.totalBuyQuantity = other.totalBuyQuantity;
+        this.totalSellQuantity = other.totalSellQuantity;
+        this.lowerCircuit = other.lowerCircuit;
+        this.upperCircuit = other.upperCircuit;
+        this.yearlyLow = other.yearlyLow;
+        this.yearlyHigh = other.yearlyHigh;
+        this.ltt = other.ltt;
+        setBidLevels(other.bidLevels);
+        System.arraycopy(other.bidPrices, 0, bidPrices, 0, bidLevels);
+        System.arraycopy(other.bidQuantities, 0, bidQuantities, 0, bidLevels);
+        System.arraycopy(other.bidOrders, 0, bidOrders, 0, bidLevels);
+        setAskLevels(other.askLevels);
+        System.arraycopy(other.askPrices, 0, askPrices, 0, askLevels);
+        System.arraycopy(other.askQuantities, 0, askQuantities, 0, askLevels);
+        System.arraycopy(other.askOrders, 0, askOrders, 0, askLevels);
+        return this;
+    }
+
+    /**
+     * Resets every field to a missing value and drops the market depth.
+     *
+     * @return This instance.
+     */
+    public CompactFeed clear() {
+        this.timestamp = FixedPoint.NULL;
+        this.ltp = FixedPoint.NULL;
+        this.open = FixedPoint.NULL;
+        this.high = FixedPoint.NULL;
+        this.low = FixedPoint.NULL;
+        this.close = FixedPoint.NULL;
+        this.vtt = FixedPoint.NULL;
+        this.atp = FixedPoint.NULL;
+        this.oi = FixedPoint.NULL;
+        this.spotPrice = FixedPoint.NULL;
+        this.totalBuyQuantity = FixedPoint.NULL;
+        this.totalSellQuantity = FixedPoint.NULL;
+        this.lowerCircuit = FixedPoint.NULL;
+        this.upperCircuit = FixedPoint.NULL;
+        this.yearlyLow = FixedPoint.NULL;
+        this.yearlyHigh = FixedPoint.NULL;
+        this.ltt = FixedPoint.NULL;
+        this.exchange = null;
+        this.symbol = null;
+        this.bidLevels = 0;
+        this.askLevels = 0;
+        return this;
+    }
+
+    /**
+     * @return A new {@link Feed} holding the values of this instance.
+     */
+    public Feed toFeed() {
+        final Feed feed = new Feed();
+        feed.setTimestamp(FixedPoint.box(timestamp));
+        feed.setExchange(exchange);
+        feed.setSymbol(symbol);
+        feed.setLtp(FixedPoint.toBigDecimal(ltp));
+        feed.setOpen(FixedPoint.toBigDecimal(open));
+        feed.setHigh(FixedPoint.toBigDecimal(high));
+        feed.setLow(FixedPoint.toBigDecimal(low));
+        feed.setClose(FixedPoint.toBigDecimal(close));
+        feed.setVtt(FixedPoint.box(vtt));
+        feed.setAtp(FixedPoint.toBigDecimal(atp));
+        feed.setOi(FixedPoint.toNumberString(oi));
+        feed.setSpotPrice(FixedPoint.toBigDecimal(spotPrice));
+        feed.setTotalBuyQuantity(FixedPoint.box(totalBuyQuantity));
+        feed.setTotalSellQuantity(FixedPoint.box(totalSellQuantity));
+        feed.setLowerCircuit(FixedPoint.toBigDecimal(lowerCircuit));
+        feed.setUpperCircuit(FixedPoint.toBigDecimal(upperCircuit));
+        feed.setYearlyLow(FixedPoint.toNumberString(yearlyLow));
+        feed.setYearlyHigh(FixedPoint.toNumberString(yearlyHigh));
+        feed.setLtt(FixedPoint.box(ltt));
+        feed.setBids(toDepth(bidLevels, bidPrices, bidQuantities, bidOrders));
+        feed.setAsk(toDepth(askLevels, askPrices, askQuantities, askOrders));
+        return feed;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getLtp() {
+        return ltp;
+    }
+
+    /**
+     * @param ltp In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setLtp(long ltp) {
+        this.ltp = ltp;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getOpen() {
+        return open;
+    }
+
+    /**
+     * @param open In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setOpen(long open) {
+        this.open = open;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @param high In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setHigh(long high) {
+        this.high = high;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * @param low In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setLow(long low) {
+        this.low = low;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getClose() {
+        return close;
+    }
+
+    /**
+     * @param close In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setClose(long close) {
+        this.close = close;
+    }
+
+    public long getVtt() {
+        return vtt;
+    }
+
+    public void setVtt(long vtt) {
+        this.vtt = vtt;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getAtp() {
+        return atp;
+    }
+
+    /**
+     * @param atp In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setAtp(long atp) {
+        this.atp = atp;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getOi() {
+        return oi;
+    }
+
+    /**
+     * @param oi In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setOi(long oi) {
+        this.oi = oi;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getSpotPrice() {
+        return spotPrice;
+    }
+
+    /**
+     * @param spotPrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setSpotPrice(long spotPrice) {
+        this.spotPrice = spotPrice;
+    }
+
+    public long getTotalBuyQuantity() {
+        return totalBuyQuantity;
+    }
+
+    public void setTotalBuyQuantity(long totalBuyQuantity) {
+        this.totalBuyQuantity = totalBuyQuantity;
+    }
+
+    public long getTotalSellQuantity() {
+        return totalSellQuantity;
+    }
+
+    public void setTotalSellQuantity(long totalSellQuantity) {
+        this.totalSellQuantity = totalSellQuantity;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getLowerCircuit() {
+        return lowerCircuit;
+    }
+
+    /**
+     * @param lowerCircuit In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setLowerCircuit(long lowerCircuit) {
+        this.lowerCircuit = lowerCircuit;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getUpperCircuit() {
+        return upperCircuit;
+    }
+
+    /**
+     * @param upperCircuit In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setUpperCircuit(long upperCircuit) {
+        this.upperCircuit = upperCircuit;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getYearlyLow() {
+        return yearlyLow;
+    }
+
+    /**
+     * @param yearlyLow In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setYearlyLow(long yearlyLow) {
+        this.yearlyLow = yearlyLow;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getYearlyHigh() {
+        return yearlyHigh;
+    }
+
+    /**
+     * @param yearlyHigh In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setYearlyHigh(long yearlyHigh) {
+        this.yearlyHigh = yearlyHigh;
+    }
+
+    public long getLtt() {
+        return ltt;
+    }
+
+    public void setLtt(long ltt) {
+        this.ltt = ltt;
+    }
+
+    /**
+     * @return Number of bid levels held.
+     */
+    public int getBidLevels() {
+        return bidLevels;
+    }
+
+    /**
+     * Sets the number of bid levels held, growing the storage if need be.
+     *
+     * @param levels Number of bid levels.
+     */
+    public void setBidLevels(int levels) {
+        if (levels > bidPrices.length) {
+            bidPrices = Arrays.copyOf(bidPrices, levels);
+            bidQuantities = Arrays.copyOf(bidQuantities, levels);
+            bidOrders = Arrays.copyOf(bidOrders, levels);
+        }
+        this.bidLevels = levels;
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best bid.
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getBidPrice(int level) {
+        return bidPrices[level];
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best bid.
+     * @return The quantity at that level.
+     */
+    public long getBidQuantity(int level) {
+        return bidQuantities[level];
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best bid.
+     * @return The number of orders at that level.
+     */
+    public long getBidOrders(int level) {
+        return bidOrders[level];
+    }
+
+    /**
+     * @param level    The level, starting at 0 for the best bid. Must be less than the levels held.
+     * @param price    In fixed-point units, see {@link FixedPoint}.
+     * @param quantity The quantity at that level.
+     * @param orders   The number of orders at that level.
+     */
+    public void setBid(int level, long price, long quantity, long orders) {
+        if (level >= bidLevels) {
+            throw new IndexOutOfBoundsException("Level " + level + " beyond the " + bidLevels + " bid levels held.");
+        }
+        bidPrices[level] = price;
+        bidQuantities[level] = quantity;
+        bidOrders[level] = orders;
+    }
+
+
+    /**
+     * @return Number of ask levels held.
+     */
+    public int getAskLevels() {
+        return askLevels;
+    }
+
+    /**
+     * Sets the number of ask levels held, growing the storage if need be.
+     *
+     * @param levels Number of ask levels.
+     */
+    public void setAskLevels(int levels) {
+        if (levels > askPrices.length) {
+            askPrices = Arrays.copyOf(askPrices, levels);
+            askQuantities = Arrays.copyOf(askQuantities, levels);
+            askOrders = Arrays.copyOf(askOrders, levels);
+        }
+        this.askLevels = levels;
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best ask.
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getAskPrice(int level) {
+        return askPrices[level];
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best ask.
+     * @return The quantity at that level.
+     */
+    public long getAskQuantity(int level) {
+        return askQuantities[level];
+    }
+
+    /**
+     * @param level The level, starting at 0 for the best ask.
+     * @return The number of orders at that level.
+     */
+    public long getAskOrders(int level) {
+        return askOrders[level];
+    }
+
+    /**
+     * @param level    The level, starting at 0 for the best ask. Must be less than the levels held.
+     * @param price    In fixed-point units, see {@link FixedPoint}.
+     * @param quantity The quantity at that level.
+     * @param orders   The number of orders at that level.
+     */
+    public void setAsk(int level, long price, long quantity, long orders) {
+        if (level >= askLevels) {
+            throw new IndexOutOfBoundsException("Level " + level + " beyond the " + askLevels + " ask levels held.");
+        }
+        askPrices[level] = price;
+        askQuantities[level] = quantity;
+        askOrders[level] = orders;
+    }
+
+
+    private void copyDepth(final List<BidsAsk> levels, final boolean bids) {
+        final int count = null == levels ? 0 : levels.size();
+        if (bids) {
+            setBidLevels(count);
+        } else {
+            setAskLevels(count);
+        }
+        for (int i = 0; i < count; i++) {
+            final BidsAsk level = levels.get(i);
+            final long price = FixedPoint.toFixed(level.getPrice());
+            final long quantity = FixedPoint.unbox(level.getQuantity());
+            final long orders = FixedPoint.unbox(level.getOrders());
+            if (bids) {
+                setBid(i, price, quantity, orders);
+            } else {
+                setAsk(i, price, quantity, orders);
+            }
+        }
+    }
+
+    private static List<BidsAsk> toDepth(final int levels, final long[] prices,
+                                         final long[] quantities, final long[] orders) {
+        final List<BidsAsk> depth = new ArrayList<>(levels);
+        for (int i = 0; i < levels; i++) {
+            final BidsAsk level = new BidsAsk();
+            level.setPrice(FixedPoint.toBigDecimal(prices[i]));
+            level.setQuantity(FixedPoint.box(quantities[i]));
+            level.setOrders(FixedPoint.box(orders[i]));
+            depth.add(level);
+        }
+        return depth;
+    }
+
+    private static boolean depthEquals(final int levels, final long[] a, final long[] b) {
+        for (int i = 0; i < levels; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String depthToString(final int levels, final long[] prices,
+                                        final long[] quantities, final long[] orders) {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < levels; i++) {
+            builder.append(i == 0 ? "" : ", ")
+                    .append(FixedPoint.box(quantities[i])).append('@')
+                    .append(FixedPoint.toBigDecimal(prices[i]))
+                    .append('x').append(FixedPoint.box(orders[i]));
+        }
+        return builder.append(']').toString();
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactFeed that = (CompactFeed) o;
+        return timestamp == that.timestamp &&
+                Objects.equals(exchange, that.exchange) &&
+                Objects.equals(symbol, that.symbol) &&
+                ltp == that.ltp &&
+                open == that.open &&
+                high == that.high &&
+                low == that.low &&
+                close == that.close &&
+                vtt == that.vtt &&
+                atp == that.atp &&
+                oi == that.oi &&
+                spotPrice == that.spotPrice &&
+                totalBuyQuantity == that.totalBuyQuantity &&
+                totalSellQuantity == that.totalSellQuantity &&
+                lowerCircuit == that.lowerCircuit &&
+                upperCircuit == that.upperCircuit &&
+                yearlyLow == that.yearlyLow &&
+                yearlyHigh == that.yearlyHigh &&
+                ltt == that.ltt &&
+                bidLevels == that.bidLevels &&
+                askLevels == that.askLevels &&
+                depthEquals(bidLevels, bidPrices, that.bidPrices) &&
+                depthEquals(bidLevels, bidQuantities, that.bidQuantities) &&
+                depthEquals(bidLevels, bidOrders, that.bidOrders) &&
+                depthEquals(askLevels, askPrices, that.askPrices) &&
+                depthEquals(askLevels, askQuantities, that.askQuantities) &&
+                depthEquals(askLevels, askOrders, that.askOrders);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, exchange, symbol, ltp, open, high, low, close, vtt, atp,
+                oi, spotPrice, totalBuyQuantity, totalSellQuantity, lowerCircuit,
+                upperCircuit, yearlyLow, yearlyHigh, ltt, bidLevels, askLevels);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestamp", FixedPoint.box(timestamp))
+                .add("exchange", exchange)
+                .add("symbol", symbol)
+                .add("ltp", FixedPoint.toBigDecimal(ltp))
+                .add("open", FixedPoint.toBigDecimal(open))
+                .add("high", FixedPoint.toBigDecimal(high))
+                .add("low", FixedPoint.toBigDecimal(low))
+                .add("close", FixedPoint.toBigDecimal(close))
+                .add("vtt", FixedPoint.box(vtt))
+                .add("atp", FixedPoint.toBigDecimal(atp))
+                .add("oi", FixedPoint.toBigDecimal(oi))
+                .add("spotPrice", FixedPoint.toBigDecimal(spotPrice))
+                .add("totalBuyQuantity", FixedPoint.box(totalBuyQuantity))
+                .add("totalSellQuantity", FixedPoint.box(totalSellQuantity))
+                .add("lowerCircuit", FixedPoint.toBigDecimal(lowerCircuit))
+                .add("upperCircuit", FixedPoint.toBigDecimal(upperCircuit))
+                .add("yearlyLow", FixedPoint.toBigDecimal(yearlyLow))
+                .add("yearlyHigh", FixedPoint.toBigDecimal(yearlyHigh))
+                .add("ltt", FixedPoint.box(ltt))
+                .add("bids", depthToString(bidLevels, bidPrices, bidQuantities, bidOrders))
+                .add("ask", depthToString(askLevels, askPrices, askQuantities, askOrders))
+                .toString();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed.models;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The calls made to bring the subscriptions to the desired state, one result per type and exchange.
+ */
+public class SubscriptionUpdate {
+
+    private final List<BatchSubscriptionResult> subscribed;
+    private final List<BatchSubscriptionResult> unsubscribed;
+
+    public SubscriptionUpdate(final Collection<BatchSubscriptionResult> subscribed,
+                              final Collection<BatchSubscriptionResult> unsubscribed) {
+        this.subscribed = ImmutableList.copyOf(subscribed);
+        this.unsubscribed = ImmutableList.copyOf(unsubscribed);
+    }
+
+    /**
+     * @return The symbols newly subscribed to.
+     */
+    public List<BatchSubscriptionResult> getSubscribed() {
+        return subscribed;
+    }
+
+    /**
+     * @return The symbols no longer desired.
+     */
+    public List<BatchSubscriptionResult> getUnsubscribed() {
+        return unsubscribed;
+    }
+
+    /**
+     * @return The number of requests made.
+     */
+    public int getRequests() {
+        int requests = 0;
+        for (BatchSubscriptionResult result : subscribed) {
+            requests += result.getRequests();
+        }
+        for (BatchSubscriptionResult result : unsubscribed) {
+            requests += result.getRequests();
+        }
+        return requests;
+    }
+
+    /**
+     * @return Whether every call succeeded.
+     */
+    public boolean isSuccess() {
+        return subscribed.stream().allMatch(BatchSubscriptionResult::isSuccess)
+                && unsubscribed.stream().allMatch(BatchSubscriptionResult::isSuccess);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SubscriptionUpdate that = (SubscriptionUpdate) o;
+        return Objects.equals(subscribed, that.subscribed) &&
+                Objects.equals(unsubscribed, that.unsubscribed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(subscribed, unsubscribed);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("subscribed", subscribed)
+                .add("unsubscribed", unsubscribed)
+                .toString();
+    }
+}
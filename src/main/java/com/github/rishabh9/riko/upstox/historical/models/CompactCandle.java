@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.historical.models;
+
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * Compact counterpart of {@link Candle}.
+ * <p>
+ * Amounts are held as fixed-point {@code long} values (see {@link FixedPoint})
+ * and quantities as primitive {@code long} values, so reading them never boxes.
+ * A missing value reads as {@link FixedPoint#NULL}.
+ * </p>
+ */
+public class CompactCandle {
+
+    private long timestamp = FixedPoint.NULL;
+
+    private long open = FixedPoint.NULL;
+
+    private long high = FixedPoint.NULL;
+
+    private long low = FixedPoint.NULL;
+
+    private long close = FixedPoint.NULL;
+
+    private long volume = FixedPoint.NULL;
+
+    private long cp = FixedPoint.NULL;
+
+    /**
+     * @param candle The candle to convert.
+     * @return A compact copy of the candle.
+     */
+    public static CompactCandle from(@Nonnull final Candle candle) {
+        return new CompactCandle().copyFrom(candle);
+    }
+
+    /**
+     * Overwrites every field of this instance, so that it can be reused.
+     *
+     * @param candle The candle to copy.
+     * @return This instance.
+     */
+    public CompactCandle copyFrom(@Nonnull final Candle candle) {
+        Objects.requireNonNull(candle);
+        this.timestamp = FixedPoint.unbox(candle.getTimestamp());
+        this.open = FixedPoint.toFixed(candle.getOpen());
+        this.high = FixedPoint.toFixed(candle.getHigh());
+        this.low = FixedPoint.toFixed(candle.getLow());
+        this.close = FixedPoint.toFixed(candle.getClose());
+        this.volume = FixedPoint.unbox(candle.getVolume());
+        this.cp = FixedPoint.toFixed(candle.getCp());
+        return this;
+    }
+
+    /**
+     * @return A new {@link Candle} holding the values of this instance.
+     */
+    public Candle toCandle() {
+        final Candle candle = new Candle();
+        candle.setTimestamp(FixedPoint.box(timestamp));
+        candle.setOpen(FixedPoint.toBigDecimal(open));
+        candle.setHigh(FixedPoint.toBigDecimal(high));
+        candle.setLow(FixedPoint.toBigDecimal(low));
+        candle.setClose(FixedPoint.toBigDecimal(close));
+        candle.setVolume(FixedPoint.box(volume));
+        candle.setCp(FixedPoint.toBigDecimal(cp));
+        return candle;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getOpen() {
+        return open;
+    }
+
+    /**
+     * @param open In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setOpen(long open) {
+        this.open = open;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @param high In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setHigh(long high) {
+        this.high = high;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * @param low In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setLow(long low) {
+        this.low = low;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getClose() {
+        return close;
+    }
+
+    /**
+     * @param close In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setClose(long close) {
+        this.close = close;
+    }
+
+    public long getVolume() {
+        return volume;
+    }
+
+    public void setVolume(long volume) {
+        this.volume = volume;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getCp() {
+        return cp;
+    }
+
+    /**
+     * @param cp In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setCp(long cp) {
+        this.cp = cp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactCandle that = (CompactCandle) o;
+        return timestamp == that.timestamp &&
+                open == that.open &&
+                high == that.high &&
+                low == that.low &&
+                close == that.close &&
+                volume == that.volume &&
+                cp == that.cp;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, open, high, low, close, volume, cp);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestamp", FixedPoint.box(timestamp))
+                .add("open", FixedPoint.toBigDecimal(open))
+                .add("high", FixedPoint.toBigDecimal(high))
+                .add("low", FixedPoint.toBigDecimal(low))
+                .add("close", FixedPoint.toBigDecimal(close))
+                .add("volume", FixedPoint.box(volume))
+                .add("cp", FixedPoint.toBigDecimal(cp))
+                .toString();
+    }
+}
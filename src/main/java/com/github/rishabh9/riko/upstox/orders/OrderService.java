@@ -25,8 +25,11 @@
 package com.github.rishabh9.riko.upstox.orders;
 
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.RetrySettings;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.orders.exceptions.OrderStatusUnknownException;
 import com.github.rishabh9.riko.upstox.orders.models.Order;
 import com.github.rishabh9.riko.upstox.orders.models.OrderRequest;
 import com.github.rishabh9.riko.upstox.orders.models.Trade;
@@ -34,14 +37,30 @@ import com.google.common.base.Strings;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import retrofit2.HttpException;
+
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class OrderService extends Service {
 
     private static final Logger log = LogManager.getLogger(OrderService.class);
 
+    /**
+     * How much earlier than the request an order in the history may have been placed,
+     * and still be taken for the one requested. Allows for the clocks being apart.
+     */
+    private static final long PLACED_ORDER_TOLERANCE_MICROS = TimeUnit.SECONDS.toMicros(1);
+
     /**
      * @param upstoxAuthService The service to retrieve authentication details
      */
@@ -116,6 +135,25 @@ public class OrderService extends Service {
 
     /**
      * Place an order to the exchange via Upstox.
+     * <p>
+     * Placing an order is never retried. When retries are enabled, and placing fails
+     * with an I/O error or a server error, the outcome depends on whether the request
+     * could have reached Upstox:
+     * </p>
+     * <ul>
+     * <li>If it provably never left the client, as when connecting failed,
+     * the original failure is returned, and the order may be placed again.</li>
+     * <li>Otherwise, as after a read timeout or a {@code 502}, the order may still be
+     * on its way, so the order history is polled, with backoff, for as long as the
+     * retry deadline. If the order shows up, it is returned as if placing had succeeded.
+     * If it does not, or the history cannot tell, the failure is an
+     * {@link OrderStatusUnknownException}, and the order must not be placed again blindly.</li>
+     * </ul>
+     * <p>
+     * An order in the history is taken for this one when it has the same details,
+     * and was placed at most a second before it was requested. An identical order placed
+     * concurrently, by the same strategy for instance, may therefore be taken for this one.
+     * </p>
      *
      * @param request The order request
      * @return The creates order
@@ -129,7 +167,15 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - POST Place Order");
-        return api.placeOrder(request);
+        if (!ServiceGenerator.getInstance().getRetrySettings().isEnabled()) {
+            return api.placeOrder(request);
+        }
+        final long placedAtMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        return api.placeOrder(request)
+                .handle((response, error) -> null == error
+                        ? CompletableFuture.completedFuture(response)
+                        : reconcile(api, request, placedAtMicros, error))
+                .thenCompose(Function.identity());
     }
 
     /**
@@ -185,6 +231,138 @@ public class OrderService extends Service {
         return api.cancelAllOrders();
     }
 
+    private CompletableFuture<UpstoxResponse<Order>> reconcile(final OrderApi api,
+                                                               final OrderRequest request,
+                                                               final long placedAtMicros,
+                                                               final Throwable error) {
+
+        final Throwable cause = error instanceof CompletionException && null != error.getCause()
+                ? error.getCause() : error;
+        if (isNeverSent(cause)
+                || !(cause instanceof IOException
+                || (cause instanceof HttpException && ((HttpException) cause).code() >= 500))) {
+            final CompletableFuture<UpstoxResponse<Order>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(cause);
+            return failed;
+        }
+        log.warn("Placing an order failed with {}, looking it up in the order history", cause.toString());
+        final RetrySettings settings = ServiceGenerator.getInstance().getRetrySettings();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getDeadlineMillis());
+        return lookUp(api, request, placedAtMicros, cause, settings, deadline, 0);
+    }
+
+    /**
+     * Poll the order history until the order shows up, or the deadline passes.
+     */
+    private CompletableFuture<UpstoxResponse<Order>> lookUp(final OrderApi api,
+                                                            final OrderRequest request,
+                                                            final long placedAtMicros,
+                                                            final Throwable cause,
+                                                            final RetrySettings settings,
+                                                            final long deadline,
+                                                            final int polls) {
+
+        return api.getOrderHistory().handle((history, historyError) -> {
+            if (null == historyError) {
+                final Order placed = findPlacedOrder(request, history.getData(), placedAtMicros);
+                if (null != placed) {
+                    log.warn("Order {} was placed despite the failure", placed.getOrderId());
+                    final UpstoxResponse<Order> response = new UpstoxResponse<>();
+                    response.setCode(200);
+                    response.setStatus("OK");
+                    response.setMessage("Order found in the order history");
+                    response.setData(placed);
+                    return CompletableFuture.completedFuture(response);
+                }
+            }
+            final long backoff = Math.min(settings.getMaxBackoffMillis(),
+                    settings.getInitialBackoffMillis() << Math.min(polls, 30));
+            if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) - deadline > 0) {
+                final OrderStatusUnknownException unknown = new OrderStatusUnknownException(
+                        "Placing the order failed, and it did not show up in the order history in time."
+                                + " It may still be placed.", cause);
+                if (null != historyError) {
+                    unknown.addSuppressed(historyError);
+                }
+                throw unknown;
+            }
+            log.debug("Order not in the order history yet, looking again in {} ms", backoff);
+            return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                    .thenCompose(v -> lookUp(api, request, placedAtMicros, cause, settings, deadline, polls + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * @return Whether the failure proves the request never left the client.
+     */
+    private static boolean isNeverSent(final Throwable cause) {
+        return cause instanceof ConnectException
+                || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * @param request        The order requested.
+     * @param orders         The order history.
+     * @param placedAtMicros When the order was requested, in microseconds since the epoch.
+     * @return The latest order of the history like the one requested, and placed no earlier
+     * than a second before it was requested, or {@code null} if there is none.
+     * Orders are told apart only by their details and time, hence an identical order
+     * placed concurrently may be returned instead.
+     * @throws OrderStatusUnknownException If there are orders like the one requested,
+     *                                     but it is unknown when they were placed.
+     */
+    static Order findPlacedOrder(final OrderRequest request, final List<Order> orders, final long placedAtMicros) {
+
+        Order placed = null;
+        long placedAt = Long.MIN_VALUE;
+        boolean unknown = false;
+        if (null != orders) {
+            for (Order order : orders) {
+                if (!isLike(request, order)) {
+                    continue;
+                }
+                final long time;
+                try {
+                    time = Long.parseLong(Strings.nullToEmpty(order.getTimeInMicro()).trim());
+                } catch (NumberFormatException e) {
+                    unknown = true;
+                    continue;
+                }
+                if (time >= placedAtMicros - PLACED_ORDER_TOLERANCE_MICROS && time > placedAt) {
+                    placed = order;
+                    placedAt = time;
+                }
+            }
+        }
+        if (null == placed && unknown) {
+            throw new OrderStatusUnknownException(
+                    "Orders like the one requested are in the order history, but when they were placed is unknown.");
+        }
+        return placed;
+    }
+
+    private static boolean isLike(final OrderRequest request, final Order order) {
+        return isSame(request.getExchange(), order.getExchange())
+                && isSame(request.getSymbol(), order.getSymbol())
+                && isSame(request.getTransactionType(), order.getTransactionType())
+                && isSame(request.getOrderType(), order.getOrderType())
+                && isSame(request.getProduct(), order.getProduct())
+                && (null == request.getQuantity() || request.getQuantity().equals(order.getQuantity()))
+                && isSamePrice(request.getPrice(), order.getPrice());
+    }
+
+    private static boolean isSame(final String requested, final String actual) {
+        return null == requested || requested.equalsIgnoreCase(actual);
+    }
+
+    private static boolean isSamePrice(final BigDecimal requested, final BigDecimal actual) {
+        // Market orders carry no price
+        return null == requested || 0 == requested.signum()
+                || (null != actual && 0 == requested.compareTo(actual));
+    }
+
     private void validateOrderRequest(OrderRequest request) {
         if (null == request) {
             log.error("Order placement request parameters are missing.");
@@ -0,0 +1,474 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.orders.models;
+
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * Compact counterpart of {@link Order}.
+ * <p>
+ * Amounts are held as fixed-point {@code long} values (see {@link FixedPoint})
+ * and quantities as primitive {@code long} values, so reading them never boxes.
+ * A missing value reads as {@link FixedPoint#NULL}.
+ * </p>
+ */
+public class CompactOrder {
+
+    private String exchange;
+
+    private long token = FixedPoint.NULL;
+
+    private String symbol;
+
+    private String product;
+
+    private String orderType;
+
+    private String duration;
+
+    private long price = FixedPoint.NULL;
+
+    private long triggerPrice = FixedPoint.NULL;
+
+    private long quantity = FixedPoint.NULL;
+
+    private long disclosedQuantity = FixedPoint.NULL;
+
+    private String transactionType;
+
+    private long averagePrice = FixedPoint.NULL;
+
+    private long tradedQuantity = FixedPoint.NULL;
+
+    private String message;
+
+    private String exchangeOrderId;
+
+    private String parentOrderId;
+
+    private String orderId;
+
+    private String exchangeTime;
+
+    private String timeInMicro;
+
+    private String status;
+
+    private boolean amo;
+
+    private String validDate;
+
+    private String orderRequestId;
+
+    private String fillLeg;
+
+    private String report;
+
+    private String text;
+
+    /**
+     * @param order The order to convert.
+     * @return A compact copy of the order.
+     */
+    public static CompactOrder from(@Nonnull final Order order) {
+        return new CompactOrder().copyFrom(order);
+    }
+
+    /**
+     * Overwrites every field of this instance, so that it can be reused.
+     *
+     * @param order The order to copy.
+     * @return This instance.
+     */
+    public CompactOrder copyFrom(@Nonnull final Order order) {
+        Objects.requireNonNull(order);
+        this.exchange = order.getExchange();
+        this.token = FixedPoint.unbox(order.getToken());
+        this.symbol = order.getSymbol();
+        this.product = order.getProduct();
+        this.orderType = order.getOrderType();
+        this.duration = order.getDuration();
+        this.price = FixedPoint.toFixed(order.getPrice());
+        this.triggerPrice = FixedPoint.toFixed(order.getTriggerPrice());
+        this.quantity = FixedPoint.unbox(order.getQuantity());
+        this.disclosedQuantity = FixedPoint.unbox(order.getDisclosedQuantity());
+        this.transactionType = order.getTransactionType();
+        this.averagePrice = FixedPoint.toFixed(order.getAveragePrice());
+        this.tradedQuantity = FixedPoint.unbox(order.getTradedQuantity());
+        this.message = order.getMessage();
+        this.exchangeOrderId = order.getExchangeOrderId();
+        this.parentOrderId = order.getParentOrderId();
+        this.orderId = order.getOrderId();
+        this.exchangeTime = order.getExchangeTime();
+        this.timeInMicro = order.getTimeInMicro();
+        this.status = order.getStatus();
+        this.amo = order.isIs_amo();
+        this.validDate = order.getValidDate();
+        this.orderRequestId = order.getOrderRequestId();
+        this.fillLeg = order.getFillLeg();
+        this.report = order.getReport();
+        this.text = order.getText();
+        return this;
+    }
+
+    /**
+     * @return A new {@link Order} holding the values of this instance.
+     */
+    public Order toOrder() {
+        final Order order = new Order();
+        order.setExchange(exchange);
+        order.setToken(FixedPoint.box(token));
+        order.setSymbol(symbol);
+        order.setProduct(product);
+        order.setOrderType(orderType);
+        order.setDuration(duration);
+        order.setPrice(FixedPoint.toBigDecimal(price));
+        order.setTriggerPrice(FixedPoint.toBigDecimal(triggerPrice));
+        order.setQuantity(FixedPoint.box(quantity));
+        order.setDisclosedQuantity(FixedPoint.box(disclosedQuantity));
+        order.setTransactionType(transactionType);
+        order.setAveragePrice(FixedPoint.toBigDecimal(averagePrice));
+        order.setTradedQuantity(FixedPoint.box(tradedQuantity));
+        order.setMessage(message);
+        order.setExchangeOrderId(exchangeOrderId);
+        order.setParentOrderId(parentOrderId);
+        order.setOrderId(orderId);
+        order.setExchangeTime(exchangeTime);
+        order.setTimeInMicro(timeInMicro);
+        order.setStatus(status);
+        order.setIs_amo(amo);
+        order.setValidDate(validDate);
+        order.setOrderRequestId(orderRequestId);
+        order.setFillLeg(fillLeg);
+        order.setReport(report);
+        order.setText(text);
+        return order;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public void setToken(long token) {
+        this.token = token;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public void setProduct(String product) {
+        this.product = product;
+    }
+
+    public String getOrderType() {
+        return orderType;
+    }
+
+    public void setOrderType(String orderType) {
+        this.orderType = orderType;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getPrice() {
+        return price;
+    }
+
+    /**
+     * @param price In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setPrice(long price) {
+        this.price = price;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getTriggerPrice() {
+        return triggerPrice;
+    }
+
+    /**
+     * @param triggerPrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setTriggerPrice(long triggerPrice) {
+        this.triggerPrice = triggerPrice;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getDisclosedQuantity() {
+        return disclosedQuantity;
+    }
+
+    public void setDisclosedQuantity(long disclosedQuantity) {
+        this.disclosedQuantity = disclosedQuantity;
+    }
+
+    public String getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(String transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getAveragePrice() {
+        return averagePrice;
+    }
+
+    /**
+     * @param averagePrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setAveragePrice(long averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+
+    public long getTradedQuantity() {
+        return tradedQuantity;
+    }
+
+    public void setTradedQuantity(long tradedQuantity) {
+        this.tradedQuantity = tradedQuantity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getExchangeOrderId() {
+        return exchangeOrderId;
+    }
+
+    public void setExchangeOrderId(String exchangeOrderId) {
+        this.exchangeOrderId = exchangeOrderId;
+    }
+
+    public String getParentOrderId() {
+        return parentOrderId;
+    }
+
+    public void setParentOrderId(String parentOrderId) {
+        this.parentOrderId = parentOrderId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getExchangeTime() {
+        return exchangeTime;
+    }
+
+    public void setExchangeTime(String exchangeTime) {
+        this.exchangeTime = exchangeTime;
+    }
+
+    public String getTimeInMicro() {
+        return timeInMicro;
+    }
+
+    public void setTimeInMicro(String timeInMicro) {
+        this.timeInMicro = timeInMicro;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isAmo() {
+        return amo;
+    }
+
+    public void setAmo(boolean amo) {
+        this.amo = amo;
+    }
+
+    public String getValidDate() {
+        return validDate;
+    }
+
+    public void setValidDate(String validDate) {
+        this.validDate = validDate;
+    }
+
+    public String getOrderRequestId() {
+        return orderRequestId;
+    }
+
+    public void setOrderRequestId(String orderRequestId) {
+        this.orderRequestId = orderRequestId;
+    }
+
+    public String getFillLeg() {
+        return fillLeg;
+    }
+
+    public void setFillLeg(String fillLeg) {
+        this.fillLeg = fillLeg;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    public void setReport(String report) {
+        this.report = report;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactOrder that = (CompactOrder) o;
+        return Objects.equals(exchange, that.exchange) &&
+                token == that.token &&
+                Objects.equals(symbol, that.symbol) &&
+                Objects.equals(product, that.product) &&
+                Objects.equals(orderType, that.orderType) &&
+                Objects.equals(duration, that.duration) &&
+                price == that.price &&
+                triggerPrice == that.triggerPrice &&
+                quantity == that.quantity &&
+                disclosedQuantity == that.disclosedQuantity &&
+                Objects.equals(transactionType, that.transactionType) &&
+                averagePrice == that.averagePrice &&
+                tradedQuantity == that.tradedQuantity &&
+                Objects.equals(message, that.message) &&
+                Objects.equals(exchangeOrderId, that.exchangeOrderId) &&
+                Objects.equals(parentOrderId, that.parentOrderId) &&
+                Objects.equals(orderId, that.orderId) &&
+                Objects.equals(exchangeTime, that.exchangeTime) &&
+                Objects.equals(timeInMicro, that.timeInMicro) &&
+                Objects.equals(status, that.status) &&
+                amo == that.amo &&
+                Objects.equals(validDate, that.validDate) &&
+                Objects.equals(orderRequestId, that.orderRequestId) &&
+                Objects.equals(fillLeg, that.fillLeg) &&
+                Objects.equals(report, that.report) &&
+                Objects.equals(text, that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(exchange, token, symbol, product, orderType, duration, price,
+                triggerPrice, quantity, disclosedQuantity, transactionType,
+                averagePrice, tradedQuantity, message, exchangeOrderId,
+                parentOrderId, orderId, exchangeTime, timeInMicro, status, amo,
+                validDate, orderRequestId, fillLeg, report, text);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("exchange", exchange)
+                .add("token", FixedPoint.box(token))
+                .add("symbol", symbol)
+                .add("product", product)
+                .add("orderType", orderType)
+                .add("duration", duration)
+                .add("price", FixedPoint.toBigDecimal(price))
+                .add("triggerPrice", FixedPoint.toBigDecimal(triggerPrice))
+                .add("quantity", FixedPoint.box(quantity))
+                .add("disclosedQuantity", FixedPoint.box(disclosedQuantity))
+                .add("transactionType", transactionType)
+                .add("averagePrice", FixedPoint.toBigDecimal(averagePrice))
+                .add("tradedQuantity", FixedPoint.box(tradedQuantity))
+                .add("message", message)
+                .add("exchangeOrderId", exchangeOrderId)
+                .add("parentOrderId", parentOrderId)
+                .add("orderId", orderId)
+                .add("exchangeTime", exchangeTime)
+                .add("timeInMicro", timeInMicro)
+                .add("status", status)
+                .add("amo", amo)
+                .add("validDate", validDate)
+                .add("orderRequestId", orderRequestId)
+                .add("fillLeg", fillLeg)
+                .add("report", report)
+                .add("text", text)
+                .toString();
+    }
+}
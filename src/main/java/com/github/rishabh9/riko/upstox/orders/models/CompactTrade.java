@@ -0,0 +1,278 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.orders.models;
+
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * Compact counterpart of {@link Trade}.
+ * <p>
+ * Amounts are held as fixed-point {@code long} values (see {@link FixedPoint})
+ * and quantities as primitive {@code long} values, so reading them never boxes.
+ * A missing value reads as {@link FixedPoint#NULL}.
+ * </p>
+ */
+public class CompactTrade {
+
+    private String exchange;
+
+    private long token = FixedPoint.NULL;
+
+    private String symbol;
+
+    private String product;
+
+    private String orderType;
+
+    private String transactionType;
+
+    private long tradedQuantity = FixedPoint.NULL;
+
+    private String exchangeOrderId;
+
+    private String orderId;
+
+    private String exchangeTime;
+
+    private String timeInMicro;
+
+    private long tradedPrice = FixedPoint.NULL;
+
+    private long tradeId = FixedPoint.NULL;
+
+    /**
+     * @param trade The trade to convert.
+     * @return A compact copy of the trade.
+     */
+    public static CompactTrade from(@Nonnull final Trade trade) {
+        return new CompactTrade().copyFrom(trade);
+    }
+
+    /**
+     * Overwrites every field of this instance, so that it can be reused.
+     *
+     * @param trade The trade to copy.
+     * @return This instance.
+     */
+    public CompactTrade copyFrom(@Nonnull final Trade trade) {
+        Objects.requireNonNull(trade);
+        this.exchange = trade.getExchange();
+        this.token = FixedPoint.unbox(trade.getToken());
+        this.symbol = trade.getSymbol();
+        this.product = trade.getProduct();
+        this.orderType = trade.getOrderType();
+        this.transactionType = trade.getTransactionType();
+        this.tradedQuantity = FixedPoint.unbox(trade.getTradedQuantity());
+        this.exchangeOrderId = trade.getExchangeOrderId();
+        this.orderId = trade.getOrderId();
+        this.exchangeTime = trade.getExchangeTime();
+        this.timeInMicro = trade.getTimeInMicro();
+        this.tradedPrice = FixedPoint.toFixed(trade.getTradedPrice());
+        this.tradeId = FixedPoint.unbox(trade.getTradeId());
+        return this;
+    }
+
+    /**
+     * @return A new {@link Trade} holding the values of this instance.
+     */
+    public Trade toTrade() {
+        final Trade trade = new Trade();
+        trade.setExchange(exchange);
+        trade.setToken(FixedPoint.box(token));
+        trade.setSymbol(symbol);
+        trade.setProduct(product);
+        trade.setOrderType(orderType);
+        trade.setTransactionType(transactionType);
+        trade.setTradedQuantity(FixedPoint.box(tradedQuantity));
+        trade.setExchangeOrderId(exchangeOrderId);
+        trade.setOrderId(orderId);
+        trade.setExchangeTime(exchangeTime);
+        trade.setTimeInMicro(timeInMicro);
+        trade.setTradedPrice(FixedPoint.toBigDecimal(tradedPrice));
+        trade.setTradeId(FixedPoint.box(tradeId));
+        return trade;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public void setToken(long token) {
+        this.token = token;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public void setProduct(String product) {
+        this.product = product;
+    }
+
+    public String getOrderType() {
+        return orderType;
+    }
+
+    public void setOrderType(String orderType) {
+        this.orderType = orderType;
+    }
+
+    public String getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(String transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public long getTradedQuantity() {
+        return tradedQuantity;
+    }
+
+    public void setTradedQuantity(long tradedQuantity) {
+        this.tradedQuantity = tradedQuantity;
+    }
+
+    public String getExchangeOrderId() {
+        return exchangeOrderId;
+    }
+
+    public void setExchangeOrderId(String exchangeOrderId) {
+        this.exchangeOrderId = exchangeOrderId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getExchangeTime() {
+        return exchangeTime;
+    }
+
+    public void setExchangeTime(String exchangeTime) {
+        this.exchangeTime = exchangeTime;
+    }
+
+    public String getTimeInMicro() {
+        return timeInMicro;
+    }
+
+    public void setTimeInMicro(String timeInMicro) {
+        this.timeInMicro = timeInMicro;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getTradedPrice() {
+        return tradedPrice;
+    }
+
+    /**
+     * @param tradedPrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setTradedPrice(long tradedPrice) {
+        this.tradedPrice = tradedPrice;
+    }
+
+    public long getTradeId() {
+        return tradeId;
+    }
+
+    public void setTradeId(long tradeId) {
+        this.tradeId = tradeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactTrade that = (CompactTrade) o;
+        return Objects.equals(exchange, that.exchange) &&
+                token == that.token &&
+                Objects.equals(symbol, that.symbol) &&
+                Objects.equals(product, that.product) &&
+                Objects.equals(orderType, that.orderType) &&
+                Objects.equals(transactionType, that.transactionType) &&
+                tradedQuantity == that.tradedQuantity &&
+                Objects.equals(exchangeOrderId, that.exchangeOrderId) &&
+                Objects.equals(orderId, that.orderId) &&
+                Objects.equals(exchangeTime, that.exchangeTime) &&
+                Objects.equals(timeInMicro, that.timeInMicro) &&
+                tradedPrice == that.tradedPrice &&
+                tradeId == that.tradeId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(exchange, token, symbol, product, orderType, transactionType,
+                tradedQuantity, exchangeOrderId, orderId, exchangeTime, timeInMicro,
+                tradedPrice, tradeId);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("exchange", exchange)
+                .add("token", FixedPoint.box(token))
+                .add("symbol", symbol)
+                .add("product", product)
+                .add("orderType", orderType)
+                .add("transactionType", transactionType)
+                .add("tradedQuantity", FixedPoint.box(tradedQuantity))
+                .add("exchangeOrderId", exchangeOrderId)
+                .add("orderId", orderId)
+                .add("exchangeTime", exchangeTime)
+                .add("timeInMicro", timeInMicro)
+                .add("tradedPrice", FixedPoint.toBigDecimal(tradedPrice))
+                .add("tradeId", FixedPoint.box(tradeId))
+                .toString();
+    }
+}
@@ -83,6 +83,7 @@ public class UserService extends Service {
 
     /**
      * Fetches the current positions for the user for the current day.
+     * Hedged, when enabled by {@link com.github.rishabh9.riko.upstox.common.models.HedgeSettings}.
      *
      * @return List of Position
      */
@@ -24,6 +24,7 @@
 
 package com.github.rishabh9.riko.upstox.users;
 
+import com.github.rishabh9.riko.upstox.common.hedge.Hedged;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.users.models.*;
 import okhttp3.ResponseBody;
@@ -62,6 +63,7 @@ public interface UsersApi {
      *
      * @return A CompletableFuture to execute the request (a)synchronously.
      */
+    @Hedged
     @GET("/live/profile/positions")
     CompletableFuture<UpstoxResponse<List<Position>>> getPositions();
 
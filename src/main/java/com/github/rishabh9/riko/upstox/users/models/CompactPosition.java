@@ -0,0 +1,440 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.users.models;
+
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * Compact counterpart of {@link Position}.
+ * <p>
+ * Amounts are held as fixed-point {@code long} values (see {@link FixedPoint})
+ * and quantities as primitive {@code long} values, so reading them never boxes.
+ * A missing value reads as {@link FixedPoint#NULL}.
+ * Amounts that Upstox sends as a {@link com.github.rishabh9.riko.upstox.common.converters.NumberString}
+ * convert back to a {@code NumberString} that is not a number.
+ * </p>
+ */
+public class CompactPosition {
+
+    private String exchange;
+
+    private String product;
+
+    private String symbol;
+
+    private long token = FixedPoint.NULL;
+
+    private long buyAmount = FixedPoint.NULL;
+
+    private long sellAmount = FixedPoint.NULL;
+
+    private long buyQuantity = FixedPoint.NULL;
+
+    private long sellQuantity = FixedPoint.NULL;
+
+    private long cfBuyAmount = FixedPoint.NULL;
+
+    private long cfSellAmount = FixedPoint.NULL;
+
+    private long cfBuyQuantity = FixedPoint.NULL;
+
+    private long cfSellQuantity = FixedPoint.NULL;
+
+    private long averageBuyPrice = FixedPoint.NULL;
+
+    private long averageSellPrice = FixedPoint.NULL;
+
+    private long netQuantity = FixedPoint.NULL;
+
+    private long closePrice = FixedPoint.NULL;
+
+    private long lastTradedPrice = FixedPoint.NULL;
+
+    private long realizedProfit = FixedPoint.NULL;
+
+    private long unrealizedProfit = FixedPoint.NULL;
+
+    private long cfAveragePrice = FixedPoint.NULL;
+
+    /**
+     * @param position The position to convert.
+     * @return A compact copy of the position.
+     */
+    public static CompactPosition from(@Nonnull final Position position) {
+        return new CompactPosition().copyFrom(position);
+    }
+
+    /**
+     * Overwrites every field of this instance, so that it can be reused.
+     *
+     * @param position The position to copy.
+     * @return This instance.
+     */
+    public CompactPosition copyFrom(@Nonnull final Position position) {
+        Objects.requireNonNull(position);
+        this.exchange = position.getExchange();
+        this.product = position.getProduct();
+        this.symbol = position.getSymbol();
+        this.token = FixedPoint.unbox(position.getToken());
+        this.buyAmount = FixedPoint.toFixed(position.getBuyAmount());
+        this.sellAmount = FixedPoint.toFixed(position.getSellAmount());
+        this.buyQuantity = FixedPoint.unbox(position.getBuyQuantity());
+        this.sellQuantity = FixedPoint.unbox(position.getSellQuantity());
+        this.cfBuyAmount = FixedPoint.toFixed(position.getCfBuyAmount());
+        this.cfSellAmount = FixedPoint.toFixed(position.getCfSellAmount());
+        this.cfBuyQuantity = FixedPoint.unbox(position.getCfBuyQuantity());
+        this.cfSellQuantity = FixedPoint.unbox(position.getCfSellQuantity());
+        this.averageBuyPrice = FixedPoint.toFixed(position.getAverageBuyPrice());
+        this.averageSellPrice = FixedPoint.toFixed(position.getAverageSellPrice());
+        this.netQuantity = FixedPoint.unbox(position.getNetQuantity());
+        this.closePrice = FixedPoint.toFixed(position.getClosePrice());
+        this.lastTradedPrice = FixedPoint.toFixed(position.getLastTradedPrice());
+        this.realizedProfit = FixedPoint.toFixed(position.getRealizedProfit());
+        this.unrealizedProfit = FixedPoint.toFixed(position.getUnrealizedProfit());
+        this.cfAveragePrice = FixedPoint.toFixed(position.getCfAveragePrice());
+        return this;
+    }
+
+    /**
+     * @return A new {@link Position} holding the values of this instance.
+     */
+    public Position toPosition() {
+        final Position position = new Position();
+        position.setExchange(exchange);
+        position.setProduct(product);
+        position.setSymbol(symbol);
+        position.setToken(FixedPoint.box(token));
+        position.setBuyAmount(FixedPoint.toBigDecimal(buyAmount));
+        position.setSellAmount(FixedPoint.toBigDecimal(sellAmount));
+        position.setBuyQuantity(FixedPoint.box(buyQuantity));
+        position.setSellQuantity(FixedPoint.box(sellQuantity));
+        position.setCfBuyAmount(FixedPoint.toBigDecimal(cfBuyAmount));
+        position.setCfSellAmount(FixedPoint.toBigDecimal(cfSellAmount));
+        position.setCfBuyQuantity(FixedPoint.box(cfBuyQuantity));
+        position.setCfSellQuantity(FixedPoint.box(cfSellQuantity));
+        position.setAverageBuyPrice(FixedPoint.toNumberString(averageBuyPrice));
+        position.setAverageSellPrice(FixedPoint.toNumberString(averageSellPrice));
+        position.setNetQuantity(FixedPoint.box(netQuantity));
+        position.setClosePrice(FixedPoint.toBigDecimal(closePrice));
+        position.setLastTradedPrice(FixedPoint.toNumberString(lastTradedPrice));
+        position.setRealizedProfit(FixedPoint.toNumberString(realizedProfit));
+        position.setUnrealizedProfit(FixedPoint.toNumberString(unrealizedProfit));
+        position.setCfAveragePrice(FixedPoint.toBigDecimal(cfAveragePrice));
+        return position;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public void setProduct(String product) {
+        this.product = product;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public void setToken(long token) {
+        this.token = token;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getBuyAmount() {
+        return buyAmount;
+    }
+
+    /**
+     * @param buyAmount In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setBuyAmount(long buyAmount) {
+        this.buyAmount = buyAmount;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getSellAmount() {
+        return sellAmount;
+    }
+
+    /**
+     * @param sellAmount In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setSellAmount(long sellAmount) {
+        this.sellAmount = sellAmount;
+    }
+
+    public long getBuyQuantity() {
+        return buyQuantity;
+    }
+
+    public void setBuyQuantity(long buyQuantity) {
+        this.buyQuantity = buyQuantity;
+    }
+
+    public long getSellQuantity() {
+        return sellQuantity;
+    }
+
+    public void setSellQuantity(long sellQuantity) {
+        this.sellQuantity = sellQuantity;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getCfBuyAmount() {
+        return cfBuyAmount;
+    }
+
+    /**
+     * @param cfBuyAmount In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setCfBuyAmount(long cfBuyAmount) {
+        this.cfBuyAmount = cfBuyAmount;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getCfSellAmount() {
+        return cfSellAmount;
+    }
+
+    /**
+     * @param cfSellAmount In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setCfSellAmount(long cfSellAmount) {
+        this.cfSellAmount = cfSellAmount;
+    }
+
+    public long getCfBuyQuantity() {
+        return cfBuyQuantity;
+    }
+
+    public void setCfBuyQuantity(long cfBuyQuantity) {
+        this.cfBuyQuantity = cfBuyQuantity;
+    }
+
+    public long getCfSellQuantity() {
+        return cfSellQuantity;
+    }
+
+    public void setCfSellQuantity(long cfSellQuantity) {
+        this.cfSellQuantity = cfSellQuantity;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getAverageBuyPrice() {
+        return averageBuyPrice;
+    }
+
+    /**
+     * @param averageBuyPrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setAverageBuyPrice(long averageBuyPrice) {
+        this.averageBuyPrice = averageBuyPrice;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getAverageSellPrice() {
+        return averageSellPrice;
+    }
+
+    /**
+     * @param averageSellPrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setAverageSellPrice(long averageSellPrice) {
+        this.averageSellPrice = averageSellPrice;
+    }
+
+    public long getNetQuantity() {
+        return netQuantity;
+    }
+
+    public void setNetQuantity(long netQuantity) {
+        this.netQuantity = netQuantity;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getClosePrice() {
+        return closePrice;
+    }
+
+    /**
+     * @param closePrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setClosePrice(long closePrice) {
+        this.closePrice = closePrice;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getLastTradedPrice() {
+        return lastTradedPrice;
+    }
+
+    /**
+     * @param lastTradedPrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setLastTradedPrice(long lastTradedPrice) {
+        this.lastTradedPrice = lastTradedPrice;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getRealizedProfit() {
+        return realizedProfit;
+    }
+
+    /**
+     * @param realizedProfit In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setRealizedProfit(long realizedProfit) {
+        this.realizedProfit = realizedProfit;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getUnrealizedProfit() {
+        return unrealizedProfit;
+    }
+
+    /**
+     * @param unrealizedProfit In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setUnrealizedProfit(long unrealizedProfit) {
+        this.unrealizedProfit = unrealizedProfit;
+    }
+
+    /**
+     * @return In fixed-point units, see {@link FixedPoint}.
+     */
+    public long getCfAveragePrice() {
+        return cfAveragePrice;
+    }
+
+    /**
+     * @param cfAveragePrice In fixed-point units, see {@link FixedPoint}.
+     */
+    public void setCfAveragePrice(long cfAveragePrice) {
+        this.cfAveragePrice = cfAveragePrice;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactPosition that = (CompactPosition) o;
+        return Objects.equals(exchange, that.exchange) &&
+                Objects.equals(product, that.product) &&
+                Objects.equals(symbol, that.symbol) &&
+                token == that.token &&
+                buyAmount == that.buyAmount &&
+                sellAmount == that.sellAmount &&
+                buyQuantity == that.buyQuantity &&
+                sellQuantity == that.sellQuantity &&
+                cfBuyAmount == that.cfBuyAmount &&
+                cfSellAmount == that.cfSellAmount &&
+                cfBuyQuantity == that.cfBuyQuantity &&
+                cfSellQuantity == that.cfSellQuantity &&
+                averageBuyPrice == that.averageBuyPrice &&
+                averageSellPrice == that.averageSellPrice &&
+                netQuantity == that.netQuantity &&
+                closePrice == that.closePrice &&
+                lastTradedPrice == that.lastTradedPrice &&
+                realizedProfit == that.realizedProfit &&
+                unrealizedProfit == that.unrealizedProfit &&
+                cfAveragePrice == that.cfAveragePrice;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(exchange, product, symbol, token, buyAmount, sellAmount, buyQuantity,
+                sellQuantity, cfBuyAmount, cfSellAmount, cfBuyQuantity,
+                cfSellQuantity, averageBuyPrice, averageSellPrice, netQuantity,
+                closePrice, lastTradedPrice, realizedProfit, unrealizedProfit,
+                cfAveragePrice);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("exchange", exchange)
+                .add("product", product)
+                .add("symbol", symbol)
+                .add("token", FixedPoint.box(token))
+                .add("buyAmount", FixedPoint.toBigDecimal(buyAmount))
+                .add("sellAmount", FixedPoint.toBigDecimal(sellAmount))
+                .add("buyQuantity", FixedPoint.box(buyQuantity))
+                .add("sellQuantity", FixedPoint.box(sellQuantity))
+                .add("cfBuyAmount", FixedPoint.toBigDecimal(cfBuyAmount))
+                .add("cfSellAmount", FixedPoint.toBigDecimal(cfSellAmount))
+                .add("cfBuyQuantity", FixedPoint.box(cfBuyQuantity))
+                .add("cfSellQuantity", FixedPoint.box(cfSellQuantity))
+                .add("averageBuyPrice", FixedPoint.toBigDecimal(averageBuyPrice))
+                .add("averageSellPrice", FixedPoint.toBigDecimal(averageSellPrice))
+                .add("netQuantity", FixedPoint.box(netQuantity))
+                .add("closePrice", FixedPoint.toBigDecimal(closePrice))
+                .add("lastTradedPrice", FixedPoint.toBigDecimal(lastTradedPrice))
+                .add("realizedProfit", FixedPoint.toBigDecimal(realizedProfit))
+                .add("unrealizedProfit", FixedPoint.toBigDecimal(unrealizedProfit))
+                .add("cfAveragePrice", FixedPoint.toBigDecimal(cfAveragePrice))
+                .toString();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+/**
+ * What happens to the messages of a {@link MessageSubscriber} that does not keep up.
+ * None of the policies ever blocks the thread reading the socket.
+ * <p>
+ * Honoured by the {@link com.github.rishabh9.riko.upstox.websockets.dispatchers.RingBufferDispatcher}.
+ * The {@link com.github.rishabh9.riko.upstox.websockets.dispatchers.SubmissionPublisherDispatcher}
+ * keeps its own behaviour.
+ * </p>
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * When the buffer is full, the oldest message waiting is dropped to make room.
+     */
+    DROP_OLDEST,
+
+    /**
+     * When the buffer is full, the message just received is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * A feed frame replaces the one waiting for the same symbols, if any,
+     * so that the subscriber only ever receives the latest ticks.
+     * Other messages are never conflated, and are dropped when the buffer is full.
+     * <p>
+     * Whole frames are conflated, not single ticks: a frame only replaces one holding
+     * the very same instruments in the same order. Frames for overlapping but different
+     * sets of instruments all stay in the buffer. The
+     * {@link com.github.rishabh9.riko.upstox.websockets.ConflatingFeedSubscriber}
+     * keeps the latest tick of each instrument whatever the frames.
+     * </p>
+     */
+    CONFLATE_LATEST_PER_SYMBOL,
+
+    /**
+     * No message is ever dropped. When the buffer is full, the subscriber is failed
+     * with a {@link com.github.rishabh9.riko.upstox.websockets.exceptions.SlowSubscriberException}
+     * instead of making the reading thread wait.
+     */
+    FAIL_WHEN_FULL
+}
@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.websockets.decoders.FeedDecoder;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.FeedDecodingException;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the latest tick of each instrument, keyed by exchange and symbol,
+ * until a consumer polls for them.
+ * <p>
+ * Each poll hands over the instruments that changed since the previous poll,
+ * once each, however many ticks they received in between. The work of a consumer
+ * hence grows with the number of instruments moving, not with the number of ticks.
+ * Memory stays bounded by the number of instruments subscribed to.
+ * </p>
+ * <p>
+ * Meant to be polled from a single consumer thread. Concurrent polls are serialised.
+ * </p>
+ */
+public class ConflatingFeedSubscriber implements MessageSubscriber {
+
+    private static final Logger log = LogManager.getLogger(ConflatingFeedSubscriber.class);
+
+    private final String name;
+    private final FeedDecoder decoder = new FeedDecoder();
+    private final Consumer<CompactFeed> onTick = this::onTick;
+
+    /**
+     * Guarded by {@code this}. Exchange and symbol are interned by the decoder,
+     * so looking an instrument up allocates nothing.
+     */
+    private final Map<String, Map<String, Entry>> entries = new HashMap<>();
+    private final ArrayDeque<Entry> changed = new ArrayDeque<>();
+
+    /**
+     * Guarded by {@code pollLock}.
+     */
+    private final Object pollLock = new Object();
+    private final List<Entry> polling = new ArrayList<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    public ConflatingFeedSubscriber() {
+        this("conflating-feed-subscriber");
+    }
+
+    /**
+     * @param name Name identifying this subscriber.
+     */
+    public ConflatingFeedSubscriber(@Nonnull final String name) {
+        this.name = Objects.requireNonNull(name);
+    }
+
+    /**
+     * Hands the latest tick of every instrument changed since the previous poll over
+     * to the consumer. The tick is only valid during the call.
+     *
+     * @param consumer Receives the ticks, in the order the instruments first changed.
+     * @return The number of instruments changed.
+     */
+    public int poll(@Nonnull final Consumer<CompactFeed> consumer) {
+        Objects.requireNonNull(consumer);
+        synchronized (pollLock) {
+            synchronized (this) {
+                Entry entry;
+                while (null != (entry = changed.poll())) {
+                    entry.polled.copyFrom(entry.latest);
+                    entry.queued = false;
+                    polling.add(entry);
+                }
+            }
+            try {
+                for (Entry entry : polling) {
+                    consumer.accept(entry.polled);
+                }
+                return polling.size();
+            } finally {
+                polling.clear();
+            }
+        }
+    }
+
+    /**
+     * @return The latest tick of every instrument changed since the previous poll.
+     */
+    public List<Feed> poll() {
+        final List<Feed> feeds = new ArrayList<>();
+        poll(tick -> feeds.add(tick.toFeed()));
+        return feeds;
+    }
+
+    /**
+     * @return The number of instruments changed since the previous poll.
+     */
+    public synchronized int getChangedCount() {
+        return changed.size();
+    }
+
+    /**
+     * @return The number of ticks received.
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return The number of ticks replaced by a later one before being polled.
+     */
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+
+    /**
+     * @return Whether the socket has closed.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return The reason the socket failed, if it did.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Conflates upstream too, so that a burst does not fill the dispatcher's buffer.
+     */
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.CONFLATE_LATEST_PER_SYMBOL;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(WebSocketMessage item) {
+        if (item instanceof BinaryMessage) {
+            try {
+                decoder.decode((BinaryMessage) item, onTick);
+            } catch (FeedDecodingException e) {
+                log.warn("Subscriber {} skipped a malformed frame: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void onTick(final CompactFeed tick) {
+        received.lazySet(received.get() + 1);
+        final Map<String, Entry> symbols = entries.computeIfAbsent(tick.getExchange(), exchange -> new HashMap<>());
+        Entry entry = symbols.get(tick.getSymbol());
+        if (null == entry) {
+            entry = new Entry();
+            symbols.put(tick.getSymbol(), entry);
+        }
+        entry.latest.copyFrom(tick);
+        if (entry.queued) {
+            conflated.lazySet(conflated.get() + 1);
+        } else {
+            entry.queued = true;
+            changed.add(entry);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Subscriber {} received an error", name, throwable);
+        this.error = throwable;
+        this.done = true;
+    }
+
+    @Override
+    public void onComplete() {
+        this.done = true;
+    }
+
+    private static final class Entry {
+        private final CompactFeed latest = new CompactFeed();
+        private final CompactFeed polled = new CompactFeed();
+        private boolean queued;
+    }
+}
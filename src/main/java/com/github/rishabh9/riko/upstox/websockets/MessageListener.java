@@ -24,67 +24,103 @@
 
 package com.github.rishabh9.riko.upstox.websockets;
 
-import com.github.rishabh9.riko.upstox.websockets.exceptions.SlowSubscriberException;
+import com.github.rishabh9.riko.upstox.websockets.dispatchers.MessageDispatcher;
 import com.github.rishabh9.riko.upstox.websockets.messages.*;
 import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okio.ByteString;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
-import java.util.concurrent.SubmissionPublisher;
-import java.util.concurrent.TimeUnit;
 
 /**
  * The web socket listener.
  * Responsible to receive the messages over the socket
- * and to publish them over to the subscribers.
+ * and to publish them over to the subscribers,
+ * through a {@link MessageDispatcher}.
  */
 public final class MessageListener
         extends okhttp3.WebSocketListener
         implements Flow.Publisher<WebSocketMessage> {
 
-    private static final Logger log = LogManager.getLogger(MessageListener.class);
+    private final MessageDispatcher dispatcher;
+    private final ConnectionObserver observer;
 
-    private static final int MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE = 3;
-    private final SubmissionPublisher<WebSocketMessage> publisher;
+    /**
+     * Created once, as the listener serves a single socket.
+     */
+    private volatile WrappedWebSocket wrappedWebSocket;
+
+    /**
+     * Completed once the socket opens, or fails to.
+     */
+    private final CompletableFuture<WrappedWebSocket> opened = new CompletableFuture<>();
 
+    /**
+     * @param subscribers The subscribers, served by the dispatcher configured by the system properties.
+     */
     public MessageListener(@Nonnull List<MessageSubscriber> subscribers) {
-        this.publisher =
-                new SubmissionPublisher<>(
-                        Executors.newWorkStealingPool(),
-                        Flow.defaultBufferSize());
+        this(subscribers, MessageDispatcher.fromSystemProperties());
+    }
 
-        Objects.requireNonNull(subscribers).forEach(publisher::subscribe);
+    /**
+     * @param subscribers The subscribers.
+     * @param dispatcher  Hands the messages over to the subscribers.
+     */
+    public MessageListener(@Nonnull List<MessageSubscriber> subscribers,
+                           @Nonnull MessageDispatcher dispatcher) {
+        this(dispatcher, null);
+
+        Objects.requireNonNull(subscribers).forEach(dispatcher::subscribe);
+    }
+
+    /**
+     * @param dispatcher Hands the messages over to the subscribers, already subscribed.
+     * @param observer   Told when the socket opens and goes away, in which case
+     *                   the dispatcher is left open for the next socket. If {@code null},
+     *                   the dispatcher is closed with the socket.
+     */
+    MessageListener(@Nonnull MessageDispatcher dispatcher, @Nullable ConnectionObserver observer) {
+        this.dispatcher = Objects.requireNonNull(dispatcher);
+        this.observer = observer;
     }
 
     private void publishMessage(WebSocketMessage message) {
-        int lag = publisher.offer(message,
-                MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE, TimeUnit.SECONDS,
-                (subscriber, msg) -> {
-                    // inform subscriber that it isn't receiving the messages.
-                    // We can try again - but only once.
-                    // But we won't try again, as the subscriber should be quick.
-                    final String errorMsg = "Subscriber "
-                            + ((MessageSubscriber) subscriber).getName()
-                            + " is slow in receiving messages. Dropping message: "
-                            + msg.toString();
-                    subscriber.onError(new SlowSubscriberException(errorMsg));
-                    return false; // If we do not want to re-try once again.
-                    // return true; // If we want to re-try once
-                });
-        if (lag < 0) {
-            log.warn("Dropping {} messages", -lag);
-        } else {
-            log.debug("The slowest consumer has {} messages in total to be picked up.", lag);
+        dispatcher.dispatch(message);
+    }
+
+    private WrappedWebSocket wrap(WebSocket webSocket) {
+        WrappedWebSocket wrapped = wrappedWebSocket;
+        if (null == wrapped) {
+            synchronized (this) {
+                wrapped = wrappedWebSocket;
+                if (null == wrapped) {
+                    wrapped = new WrappedWebSocket(webSocket);
+                    wrappedWebSocket = wrapped;
+                }
+            }
         }
+        return wrapped;
+    }
+
+    /**
+     * @return The dispatcher, for its metrics.
+     */
+    public MessageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * @return Completed with the socket once it opens, or exceptionally if it fails before.
+     * Completed on the socket's own thread.
+     */
+    CompletableFuture<WrappedWebSocket> opened() {
+        return opened;
     }
 
     /**
@@ -95,7 +131,11 @@ public final class MessageListener
         super.onOpen(webSocket, response);
         publishMessage(
                 new ConnectedMessage(
-                        new WrappedWebSocket(webSocket), response.message()));
+                        wrap(webSocket), response.message()));
+        opened.complete(wrap(webSocket));
+        if (null != observer) {
+            observer.onOpen(wrap(webSocket));
+        }
     }
 
     /**
@@ -106,7 +146,7 @@ public final class MessageListener
         super.onMessage(webSocket, message);
         publishMessage(
                 new TextMessage(
-                        new WrappedWebSocket(webSocket), message));
+                        wrap(webSocket), message));
     }
 
     /**
@@ -117,7 +157,7 @@ public final class MessageListener
         super.onMessage(webSocket, bytes);
         publishMessage(
                 new BinaryMessage(
-                        new WrappedWebSocket(webSocket), bytes));
+                        wrap(webSocket), bytes));
     }
 
     /**
@@ -128,7 +168,12 @@ public final class MessageListener
         super.onClosing(webSocket, code, reason);
         publishMessage(
                 new ClosingMessage(
-                        new WrappedWebSocket(webSocket), code, reason));
+                        wrap(webSocket), code, reason));
+        if (null != observer) {
+            // Complete the closing handshake, so that the socket gets closed and replaced.
+            // Not with the server's code, which may be one that must not be sent, such as 1005.
+            webSocket.close(1000, null);
+        }
     }
 
     /**
@@ -139,8 +184,12 @@ public final class MessageListener
         super.onClosed(webSocket, code, reason);
         publishMessage(
                 new DisconnectedMessage(
-                        new WrappedWebSocket(webSocket), code, reason));
-        publisher.close();
+                        wrap(webSocket), code, reason));
+        if (null == observer) {
+            dispatcher.close();
+        } else {
+            observer.onDisconnect(wrap(webSocket), null);
+        }
     }
 
     /**
@@ -151,8 +200,13 @@ public final class MessageListener
         super.onFailure(webSocket, t, response);
         publishMessage(
                 new ErrorMessage(
-                        new WrappedWebSocket(webSocket), t, response));
-        publisher.closeExceptionally(t);
+                        wrap(webSocket), t, response));
+        opened.completeExceptionally(t);
+        if (null == observer) {
+            dispatcher.closeExceptionally(t);
+        } else {
+            observer.onDisconnect(wrap(webSocket), t);
+        }
     }
 
     /**
@@ -160,6 +214,6 @@ public final class MessageListener
      */
     @Override
     public void subscribe(Flow.Subscriber<? super WebSocketMessage> subscriber) {
-        publisher.subscribe(subscriber);
+        dispatcher.subscribe(subscriber);
     }
 }
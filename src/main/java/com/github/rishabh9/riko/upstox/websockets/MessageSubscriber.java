@@ -41,4 +41,11 @@ public interface MessageSubscriber extends Flow.Subscriber<WebSocketMessage> {
     default String getName() {
         return "websocket-subscriber-" + UUID.randomUUID().toString();
     }
+
+    /**
+     * @return What to do with the messages when this subscriber does not keep up.
+     */
+    default BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.DROP_NEWEST;
+    }
 }
@@ -0,0 +1,374 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.websockets.decoders.FeedDecoder;
+import com.github.rishabh9.riko.upstox.websockets.dispatchers.DispatchExecutor;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.FeedDecodingException;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import okio.ByteString;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.github.rishabh9.riko.upstox.websockets.decoders.FeedDecoder.RECORD_SEPARATOR;
+
+/**
+ * Spreads the decoding of the feed, and the handling of its ticks, across shards,
+ * keyed by exchange and symbol.
+ * <p>
+ * The socket's thread only splits each frame into its records and hashes their instrument,
+ * which is cheap. Each shard then decodes and handles its records on its own thread,
+ * so a feed of thousands of instruments keeps several cores busy.
+ * All the ticks of an instrument go through the same shard: the handler receives them
+ * in the order they arrived, though ticks of different instruments reach it concurrently.
+ * </p>
+ * <p>
+ * A shard fails when the handler throws. Its instruments, along with the records it had
+ * yet to handle, are then spread across the remaining shards, still in order.
+ * The subscriber fails once no shard is left.
+ * </p>
+ */
+public class ShardedFeedSubscriber implements MessageSubscriber {
+
+    private static final Logger log = LogManager.getLogger(ShardedFeedSubscriber.class);
+
+    /**
+     * Instruments are hashed into slots, and the slots assigned to shards,
+     * so that a failed shard's instruments can be spread evenly over the others.
+     */
+    private static final int SLOTS_PER_SHARD = 16;
+
+    private final String name;
+    private final Consumer<CompactFeed> handler;
+    private final Executor executor;
+    private final Shard[] shards;
+
+    /**
+     * The shard of each slot. Only accessed by the thread delivering the messages.
+     */
+    private final int[] slots;
+    private int liveShards;
+
+    private final AtomicBoolean rebalance = new AtomicBoolean();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Flow.Subscription subscription;
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    /**
+     * @param shards  Number of shards. <em>Mandatory.</em>
+     * @param handler Receives the ticks. Called concurrently from the shards, and only
+     *                valid during the call. <em>Mandatory.</em>
+     */
+    public ShardedFeedSubscriber(final int shards, @Nonnull final Consumer<CompactFeed> handler) {
+        this("sharded-feed-subscriber", shards, handler, DispatchExecutor.getDefault());
+    }
+
+    /**
+     * @param name     Name identifying this subscriber. <em>Mandatory.</em>
+     * @param shards   Number of shards. <em>Mandatory.</em>
+     * @param handler  Receives the ticks. Called concurrently from the shards, and only
+     *                 valid during the call. <em>Mandatory.</em>
+     * @param executor Runs the shards. <em>Mandatory.</em>
+     */
+    public ShardedFeedSubscriber(@Nonnull final String name,
+                                 final int shards,
+                                 @Nonnull final Consumer<CompactFeed> handler,
+                                 @Nonnull final Executor executor) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Number of shards must be positive. Provided: " + shards);
+        }
+        this.name = Objects.requireNonNull(name);
+        this.handler = Objects.requireNonNull(handler);
+        this.executor = Objects.requireNonNull(executor);
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(i);
+        }
+        this.slots = new int[shards * SLOTS_PER_SHARD];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i % shards;
+        }
+        this.liveShards = shards;
+    }
+
+    /**
+     * @return The number of shards the subscriber started with.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return The number of shards that have not failed.
+     */
+    public int getLiveShardCount() {
+        int live = 0;
+        for (Shard shard : shards) {
+            if (!shard.failed) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * @return The number of records received.
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return The number of ticks handed over to the handler.
+     */
+    public long getDeliveredCount() {
+        long delivered = 0;
+        for (Shard shard : shards) {
+            delivered += shard.delivered.get();
+        }
+        return delivered;
+    }
+
+    /**
+     * @return The number of records that were malformed, or that the handler failed on.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of records received but not handled yet.
+     */
+    public long getPendingCount() {
+        long pending = 0;
+        for (Shard shard : shards) {
+            pending += shard.mailbox.size();
+        }
+        return pending;
+    }
+
+    /**
+     * @return Whether the socket has closed, or every shard has failed.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return The reason the socket, or the shard that failed last, failed.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(WebSocketMessage item) {
+        if (!(item instanceof BinaryMessage) || done) {
+            return;
+        }
+        final ByteString frame = ((BinaryMessage) item).getMessage();
+        final int size = frame.size();
+        int start = 0;
+        while (start < size) {
+            int end = start;
+            while (end < size && frame.getByte(end) != RECORD_SEPARATOR) {
+                end++;
+            }
+            if (end > start) {
+                if (rebalance.get() && rebalance.getAndSet(false)) {
+                    rebalance();
+                }
+                if (0 == liveShards) {
+                    return;
+                }
+                route(frame.substring(start, end));
+            }
+            start = end + 1;
+        }
+    }
+
+    private void route(final ByteString record) {
+        received.lazySet(received.get() + 1);
+        final int slot = Math.floorMod(FeedDecoder.instrumentHash(record), slots.length);
+        shards[slots[slot]].offer(record);
+    }
+
+    /**
+     * Reassigns the slots of the failed shards, then hands their pending records over to the new owners.
+     * Runs on the thread delivering the messages, before routing any further record,
+     * so every instrument keeps its order.
+     */
+    private void rebalance() {
+        for (Shard shard : shards) {
+            if (!shard.failed || shard.retired) {
+                continue;
+            }
+            shard.retired = true;
+            liveShards--;
+            if (0 == liveShards) {
+                break;
+            }
+            int next = 0;
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == shard.index) {
+                    do {
+                        next = (next + 1) % shards.length;
+                    } while (shards[next].failed);
+                    slots[i] = next;
+                }
+            }
+            log.warn("Subscriber {} moved the instruments of failed shard {} to the {} remaining shard(s)",
+                    name, shard.index, liveShards);
+            ByteString record;
+            while (null != (record = shard.mailbox.poll())) {
+                final int slot = Math.floorMod(FeedDecoder.instrumentHash(record), slots.length);
+                shards[slots[slot]].offer(record);
+            }
+        }
+        if (0 == liveShards) {
+            log.error("Subscriber {} has no shard left", name);
+            done = true;
+            final Flow.Subscription current = subscription;
+            if (null != current) {
+                current.cancel();
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("Subscriber {} received an error", name, throwable);
+        this.error = throwable;
+        this.done = true;
+    }
+
+    @Override
+    public void onComplete() {
+        this.done = true;
+    }
+
+    private final class Shard implements Runnable {
+
+        private final int index;
+        private final FeedDecoder decoder = new FeedDecoder();
+        private final Queue<ByteString> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong delivered = new AtomicLong();
+        private final Consumer<CompactFeed> onTick = this::onTick;
+
+        private volatile boolean failed;
+
+        /**
+         * Whether its slots have been reassigned. Only accessed by the thread delivering the messages.
+         */
+        private boolean retired;
+
+        private Shard(final int index) {
+            this.index = index;
+        }
+
+        private void offer(final ByteString record) {
+            mailbox.add(record);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!failed && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    fail(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                ByteString record;
+                while (!failed && null != (record = mailbox.poll())) {
+                    try {
+                        decoder.decode(record, onTick);
+                    } catch (FeedDecodingException e) {
+                        dropped.incrementAndGet();
+                        log.warn("Subscriber {} skipped a malformed record: {}", name, e.getMessage());
+                    } catch (RuntimeException e) {
+                        dropped.incrementAndGet();
+                        fail(e);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // A record may have arrived after the last poll
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void onTick(final CompactFeed tick) {
+            handler.accept(tick);
+            delivered.lazySet(delivered.get() + 1);
+        }
+
+        private void fail(final Throwable cause) {
+            log.error("Subscriber {} lost shard {}", name, index, cause);
+            failed = true;
+            error = cause;
+            rebalance.set(true);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.ExecutionMode;
+import com.github.rishabh9.riko.upstox.common.metrics.ReconnectMetrics;
+import com.github.rishabh9.riko.upstox.feed.FeedService;
+import com.github.rishabh9.riko.upstox.websockets.dispatchers.MessageDispatcher;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * A web socket connection that replaces its socket whenever it goes away, until closed.
+ * <p>
+ * Each attempt retrieves the web socket parameters afresh. Attempts are spaced by
+ * an exponential backoff, with jitter so that clients do not reconnect all at once.
+ * Once a socket opens, the subscriptions made through the {@link FeedService}
+ * are made again. The subscribers stay subscribed to the same dispatcher throughout:
+ * they receive the {@link com.github.rishabh9.riko.upstox.websockets.messages.ErrorMessage}
+ * or {@link com.github.rishabh9.riko.upstox.websockets.messages.DisconnectedMessage}
+ * of each socket, and are only completed once this connection is closed.
+ * </p>
+ */
+public class SupervisedWebSocket implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(SupervisedWebSocket.class);
+
+    private static final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                    ExecutionMode.PLATFORM.newThreadFactory("riko-ws-supervisor-"));
+
+    private final WebSocketService webSocketService;
+    private final FeedService feedService;
+    private final MessageDispatcher dispatcher;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * Identifies the current socket. Callbacks of earlier sockets are ignored.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean started;
+    private volatile boolean closed;
+    private volatile WrappedWebSocket webSocket;
+    private volatile ScheduledFuture<?> pendingAttempt;
+    private volatile int attempt;
+
+    private volatile long disconnectedAtNanos;
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private volatile long lastGapMillis;
+    private volatile long maxGapMillis;
+    private final AtomicLong totalGapMillis = new AtomicLong();
+
+    /**
+     * @param webSocketService Opens the sockets.
+     * @param feedService      The service the feed was subscribed through.
+     * @param subscribers      The subscribers interested in the messages received at the web socket.
+     */
+    public SupervisedWebSocket(@Nonnull final WebSocketService webSocketService,
+                               @Nonnull final FeedService feedService,
+                               @Nonnull final List<MessageSubscriber> subscribers) {
+        this(webSocketService, feedService, subscribers, MessageDispatcher.fromSystemProperties(),
+                Long.parseLong(System.getProperty(RIKO_WS_RECONNECT_BACKOFF_INITIAL,
+                        RIKO_WS_RECONNECT_BACKOFF_INITIAL_DEFAULT)),
+                Long.parseLong(System.getProperty(RIKO_WS_RECONNECT_BACKOFF_MAX,
+                        RIKO_WS_RECONNECT_BACKOFF_MAX_DEFAULT)));
+    }
+
+    /**
+     * @param webSocketService     Opens the sockets.
+     * @param feedService          The service the feed was subscribed through.
+     * @param subscribers          The subscribers interested in the messages received at the web socket.
+     * @param dispatcher           Hands the messages over to the subscribers.
+     * @param initialBackoffMillis Wait before the first attempt to reconnect, doubled on each failure.
+     * @param maxBackoffMillis     Longest wait between attempts.
+     */
+    public SupervisedWebSocket(@Nonnull final WebSocketService webSocketService,
+                               @Nonnull final FeedService feedService,
+                               @Nonnull final List<MessageSubscriber> subscribers,
+                               @Nonnull final MessageDispatcher dispatcher,
+                               final long initialBackoffMillis,
+                               final long maxBackoffMillis) {
+        if (null == subscribers || subscribers.isEmpty()) {
+            throw new IllegalArgumentException("Subscribers not provided. Not connecting to the socket.");
+        }
+        if (initialBackoffMillis < 1 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Backoff must be positive and not exceed its maximum. Provided: "
+                    + "initialBackoffMillis=" + initialBackoffMillis + ", maxBackoffMillis=" + maxBackoffMillis);
+        }
+        this.webSocketService = Objects.requireNonNull(webSocketService);
+        this.feedService = Objects.requireNonNull(feedService);
+        this.dispatcher = Objects.requireNonNull(dispatcher);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        subscribers.forEach(dispatcher::subscribe);
+    }
+
+    /**
+     * Starts connecting. Returns immediately; the socket opens in the background.
+     */
+    public synchronized void start() {
+        if (closed) {
+            throw new IllegalStateException("Connection already closed.");
+        }
+        if (!started) {
+            started = true;
+            connect(generation.get());
+        }
+    }
+
+    /**
+     * Closes the current socket, and completes the subscribers once it is closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        final ScheduledFuture<?> attempt = pendingAttempt;
+        if (null != attempt) {
+            attempt.cancel(false);
+        }
+        final WrappedWebSocket current = webSocket;
+        if (null == current || !current.close()) {
+            // No socket to wait for
+            generation.incrementAndGet();
+            dispatcher.close();
+        }
+    }
+
+    /**
+     * @return Whether a socket is open.
+     */
+    public boolean isConnected() {
+        return null != webSocket;
+    }
+
+    /**
+     * @return The current socket, or {@code null} while there is none.
+     */
+    public WrappedWebSocket getWebSocket() {
+        return webSocket;
+    }
+
+    /**
+     * @return The dispatcher, for its metrics.
+     */
+    public MessageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * @return The reconnection counters.
+     */
+    public ReconnectMetrics getMetrics() {
+        final long disconnectedAt = disconnectedAtNanos;
+        final long currentGapMillis = 0 == disconnectedAt
+                ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - disconnectedAt);
+        return new ReconnectMetrics(isConnected(), reconnects.get(), failedAttempts.get(),
+                currentGapMillis, lastGapMillis, maxGapMillis, totalGapMillis.get());
+    }
+
+    private void connect(final long expected) {
+        pendingAttempt = null;
+        if (closed || generation.get() != expected) {
+            return;
+        }
+        log.debug("Connecting web socket, attempt {}", attempt + 1);
+        final Observer observer = new Observer(expected);
+        webSocketService.open(new MessageListener(dispatcher, observer))
+                .whenComplete((socket, throwable) -> {
+                    if (null != throwable) {
+                        onDisconnect(expected, null,
+                                throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                    }
+                });
+    }
+
+    private synchronized void onOpen(final long expected, final WrappedWebSocket socket) {
+        if (generation.get() != expected || closed) {
+            socket.close();
+            return;
+        }
+        webSocket = socket;
+        attempt = 0;
+        final long disconnectedAt = disconnectedAtNanos;
+        if (0 != disconnectedAt) {
+            final long gapMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - disconnectedAt);
+            disconnectedAtNanos = 0;
+            lastGapMillis = gapMillis;
+            maxGapMillis = Math.max(maxGapMillis, gapMillis);
+            totalGapMillis.addAndGet(gapMillis);
+            reconnects.incrementAndGet();
+            log.info("Web socket reconnected after {} ms", gapMillis);
+        }
+        feedService.resubscribe().whenComplete((results, throwable) -> {
+            if (null != throwable) {
+                log.error("Unable to subscribe again after reconnecting", throwable);
+                return;
+            }
+            results.stream()
+                    .filter(result -> !result.isSuccess())
+                    .forEach(result -> log.error("Unable to subscribe again to {} symbol(s) of {} after "
+                            + "reconnecting: {}", result.getFailed().size(), result.getExchange(), result.getErrors()));
+        });
+    }
+
+    private synchronized void onDisconnect(final long expected, @Nullable final WrappedWebSocket socket,
+                                           @Nullable final Throwable cause) {
+        if (!generation.compareAndSet(expected, expected + 1)) {
+            // Already handled, or an earlier socket
+            return;
+        }
+        if (null != socket) {
+            // Releases its connection right away, should the socket linger after going away
+            socket.cancel();
+        }
+        final boolean wasOpen = null != socket && socket == webSocket;
+        webSocket = null;
+        if (closed) {
+            dispatcher.close();
+            return;
+        }
+        if (wasOpen) {
+            // The gap starts when an open socket goes away
+            disconnectedAtNanos = System.nanoTime();
+        } else {
+            failedAttempts.incrementAndGet();
+        }
+        final long backoff = backoffMillis(attempt++);
+        log.warn("Web socket went away, reconnecting in {} ms", backoff, cause);
+        pendingAttempt = scheduler.schedule(() -> connect(expected + 1), backoff, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Half the exponential backoff, plus a random part of the other half.
+     */
+    private long backoffMillis(final int attempt) {
+        final long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 30));
+        final long half = Math.max(1, backoff / 2);
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    private final class Observer implements ConnectionObserver {
+
+        private final long generation;
+
+        private Observer(final long generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void onOpen(WrappedWebSocket webSocket) {
+            SupervisedWebSocket.this.onOpen(generation, webSocket);
+        }
+
+        @Override
+        public void onDisconnect(WrappedWebSocket webSocket, @Nullable Throwable cause) {
+            SupervisedWebSocket.this.onDisconnect(generation, webSocket, cause);
+        }
+    }
+}
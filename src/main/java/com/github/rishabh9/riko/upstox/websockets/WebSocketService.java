@@ -25,10 +25,12 @@
 package com.github.rishabh9.riko.upstox.websockets;
 
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.websockets.dispatchers.MessageDispatcher;
 import com.github.rishabh9.riko.upstox.websockets.exceptions.WebRequestException;
 import com.github.rishabh9.riko.upstox.websockets.models.WebsocketParameters;
 import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
@@ -39,9 +41,11 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
 
@@ -70,6 +74,7 @@ public class WebSocketService extends Service {
      * Connect to Upstox via web socket.<br>
      * Internally, this method retrieves the published parameters to connect to Upstox
      * via web sockets and then tries to setup a web socket connection.
+     * Blocks until connecting has started; see {@link #connectAsync(List)} to not block.
      *
      * @param subscribers The subscribers interested in the messages received at the web socket.
      *                    <em>Mandatory.</em>
@@ -80,44 +85,131 @@ public class WebSocketService extends Service {
     public WrappedWebSocket connect(final List<MessageSubscriber> subscribers)
             throws ExecutionException, InterruptedException {
 
+        return connect(subscribers, MessageDispatcher.fromSystemProperties());
+    }
+
+    /**
+     * Connect to Upstox via web socket, handing the messages over to the subscribers
+     * through the given dispatcher.
+     *
+     * @param subscribers The subscribers interested in the messages received at the web socket.
+     *                    <em>Mandatory.</em>
+     * @param dispatcher  Hands the messages over to the subscribers. <em>Mandatory.</em>
+     * @return The web socket wrapped in custom class for usability,
+     * or {@code null} when it could not be opened, in which case the subscribers are told of the error.
+     * @throws ExecutionException   When there is an exception creating the connection.
+     * @throws InterruptedException When there is an error while waiting for the connection to complete.
+     */
+    public WrappedWebSocket connect(final List<MessageSubscriber> subscribers,
+                                    @Nonnull final MessageDispatcher dispatcher)
+            throws ExecutionException, InterruptedException {
+
+        Objects.requireNonNull(dispatcher);
+        if (null == subscribers || subscribers.isEmpty()) {
+            throw new IllegalArgumentException("Subscribers not provided. Not connecting to the socket.");
+        }
+
+        return open(new MessageListener(subscribers, dispatcher))
+                .exceptionally((throwable) -> {
+                    final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    log.error("Error opening and connecting to WebSocket", cause);
+                    // The socket was never created, so the listener is not told
+                    dispatcher.closeExceptionally(cause);
+                    return null;
+                })
+                .get();
+    }
+
+    /**
+     * Connect to Upstox via web socket, without blocking.<br>
+     * Internally, this method retrieves the published parameters to connect to Upstox
+     * via web sockets and then tries to setup a web socket connection.
+     *
+     * @param subscribers The subscribers interested in the messages received at the web socket.
+     *                    <em>Mandatory.</em>
+     * @return The web socket wrapped in custom class for usability, completed once the socket is open.
+     * Completed exceptionally, and the subscribers told of the error, when the socket could not be opened.
+     * Cancelling it before the socket opens cancels the socket.
+     */
+    public CompletableFuture<WrappedWebSocket> connectAsync(final List<MessageSubscriber> subscribers) {
+
+        return connectAsync(subscribers, MessageDispatcher.fromSystemProperties());
+    }
+
+    /**
+     * Connect to Upstox via web socket without blocking, handing the messages over to the subscribers
+     * through the given dispatcher.
+     *
+     * @param subscribers The subscribers interested in the messages received at the web socket.
+     *                    <em>Mandatory.</em>
+     * @param dispatcher  Hands the messages over to the subscribers. <em>Mandatory.</em>
+     * @return The web socket wrapped in custom class for usability, completed once the socket is open.
+     * Completed exceptionally, and the subscribers told of the error, when the socket could not be opened.
+     * Cancelling it before the socket opens cancels the socket.
+     */
+    public CompletableFuture<WrappedWebSocket> connectAsync(final List<MessageSubscriber> subscribers,
+                                                            @Nonnull final MessageDispatcher dispatcher) {
+
+        Objects.requireNonNull(dispatcher);
         if (null == subscribers || subscribers.isEmpty()) {
             throw new IllegalArgumentException("Subscribers not provided. Not connecting to the socket.");
         }
 
+        final MessageListener listener = new MessageListener(subscribers, dispatcher);
+        final CompletableFuture<WrappedWebSocket> opening = open(listener);
+        opening.whenComplete((socket, throwable) -> {
+            if (null != throwable) {
+                final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                log.error("Error opening and connecting to WebSocket", cause);
+                // The socket was never created, so the listener is not told
+                dispatcher.closeExceptionally(cause);
+                listener.opened().completeExceptionally(cause);
+            }
+        });
+        // Leave the socket's thread, which must go back to reading
+        final CompletableFuture<WrappedWebSocket> connected = listener.opened()
+                .thenApplyAsync(Function.identity());
+        connected.whenComplete((socket, throwable) -> {
+            if (connected.isCancelled()) {
+                opening.thenAccept(WrappedWebSocket::cancel);
+            }
+        });
+        return connected;
+    }
+
+    /**
+     * Retrieves the parameters to connect with, then starts connecting the socket.
+     *
+     * @param listener Receives the events of the socket.
+     * @return The socket, completed once connecting has started.
+     */
+    CompletableFuture<WrappedWebSocket> open(final MessageListener listener) {
+
         // Retrieve the webSocket parameters before connecting, as per Upstox documentation.
         return getWebsocketParameters()
                 .thenApplyAsync((response) -> {
                     if (null == response || response.getCode() != 200) {
                         log.fatal("Unable to retrieve websocket parameters. " +
-                                "Response was {} with response code: {}", response, response.getCode());
+                                "Response was {} with response code: {}", response,
+                                null == response ? null : response.getCode());
                         throw new WebRequestException(
                                 "Unable to retrieve parameters for making a websocket connection.");
                     }
-                    return makeConnection(response.getData(), subscribers);
-                })
-                .exceptionally((throwable) -> {
-                    log.error("Error opening and connecting to WebSocket", throwable);
-                    return null;
-                })
-                .get();
+                    return makeConnection(response.getData(), listener);
+                });
     }
 
     private WrappedWebSocket makeConnection(final WebsocketParameters parameters,
-                                            final List<MessageSubscriber> subscribers) {
-
-        final OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
-        final OkHttpClient httpClient = httpClientBuilder
-                .connectionPool(
-                        new ConnectionPool(5, parameters.getKeepaliveInterval(), TimeUnit.SECONDS))
-                .readTimeout(parameters.getPythonPingTimeout() * 3, TimeUnit.SECONDS)
-                .writeTimeout(parameters.getPythonPingTimeout() * 3, TimeUnit.SECONDS)
-                .pingInterval(parameters.getPythonPingInterval(), TimeUnit.SECONDS)
-                .retryOnConnectionFailure(Boolean.parseBoolean(System.getProperty(RIKO_WS_RECONNECT, RIKO_WS_RECONNECT_DEFAULT)))
-                .build();
+                                            final MessageListener listener) {
+
+        final OkHttpClient httpClient = ServiceGenerator.getInstance().getWebSocketClient(
+                parameters.getPythonPingInterval(),
+                parameters.getPythonPingTimeout() * 3,
+                Boolean.parseBoolean(System.getProperty(RIKO_WS_RECONNECT, RIKO_WS_RECONNECT_DEFAULT)));
 
         final Request request = prepareRequest();
 
-        final WebSocket webSocket = httpClient.newWebSocket(request, new MessageListener(subscribers));
+        final WebSocket webSocket = httpClient.newWebSocket(request, listener);
 
         return new WrappedWebSocket(webSocket);
     }
@@ -0,0 +1,359 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.decoders;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.FeedDecodingException;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import okio.ByteString;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the binary frames of the live feed straight into a {@link CompactFeed},
+ * reading the bytes of the frame in place.
+ * <p>
+ * A frame holds one or more records separated by {@code ';'}, each record holding
+ * fields separated by {@code ','}. The first five fields are the timestamp, exchange,
+ * symbol, last traded price and close price, which is all an {@code LTP} record holds.
+ * A {@code Full} record continues with open, high, low, vtt, atp, oi, spot price,
+ * total buy quantity, total sell quantity, lower circuit, upper circuit, yearly low
+ * and yearly high, then five bids and five asks as quantity, price and orders,
+ * and optionally the last traded time. Empty fields, {@code NaN} and {@code null}
+ * read as {@link FixedPoint#NULL}.
+ * </p>
+ * <p>
+ * The same {@link CompactFeed} is handed to the consumer for every record, so it is
+ * only valid during the call. Exchange and symbol names are interned, so once every
+ * symbol has been seen decoding allocates nothing. An instance is not thread-safe;
+ * use one per reading thread.
+ * </p>
+ */
+public class FeedDecoder {
+
+    public static final byte RECORD_SEPARATOR = ';';
+
+    public static final byte FIELD_SEPARATOR = ',';
+
+    private static final int TIMESTAMP = 0;
+    private static final int EXCHANGE = 1;
+    private static final int SYMBOL = 2;
+    private static final int LTP = 3;
+    private static final int CLOSE = 4;
+    private static final int OPEN = 5;
+    private static final int HIGH = 6;
+    private static final int LOW = 7;
+    private static final int VTT = 8;
+    private static final int ATP = 9;
+    private static final int OI = 10;
+    private static final int SPOT_PRICE = 11;
+    private static final int TOTAL_BUY_QUANTITY = 12;
+    private static final int TOTAL_SELL_QUANTITY = 13;
+    private static final int LOWER_CIRCUIT = 14;
+    private static final int UPPER_CIRCUIT = 15;
+    private static final int YEARLY_LOW = 16;
+    private static final int YEARLY_HIGH = 17;
+    private static final int BIDS = 18;
+    private static final int ASKS = BIDS + 3 * CompactFeed.DEPTH;
+    private static final int LTT = ASKS + 3 * CompactFeed.DEPTH;
+
+    private static final int LTP_FIELDS = CLOSE + 1;
+    private static final int FULL_FIELDS = LTT;
+    private static final int MAX_FIELDS = LTT + 1;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final byte[] NAN = {'n', 'a', 'n'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final CompactFeed tick = new CompactFeed();
+
+    private final int[] starts = new int[MAX_FIELDS];
+
+    private final int[] ends = new int[MAX_FIELDS];
+
+    private final SymbolTable exchanges = new SymbolTable(16);
+
+    private final SymbolTable symbols = new SymbolTable(1024);
+
+    /**
+     * @param message  The binary message received on the web socket.
+     * @param consumer Receives every tick of the message, in order.
+     * @return The number of ticks decoded.
+     * @throws FeedDecodingException When the message is not a feed frame.
+     */
+    public int decode(@Nonnull final BinaryMessage message,
+                      @Nonnull final Consumer<CompactFeed> consumer) {
+        return decode(message.getMessage(), consumer);
+    }
+
+    /**
+     * @param frame    The frame to decode.
+     * @param consumer Receives every tick of the frame, in order.
+     * @return The number of ticks decoded.
+     * @throws FeedDecodingException When the frame is malformed.
+     */
+    public int decode(@Nonnull final ByteString frame,
+                      @Nonnull final Consumer<CompactFeed> consumer) {
+        Objects.requireNonNull(frame);
+        Objects.requireNonNull(consumer);
+        final int size = frame.size();
+        int count = 0;
+        int start = 0;
+        while (start < size) {
+            int end = indexOf(frame, RECORD_SEPARATOR, start, size);
+            int from = start;
+            int to = end;
+            while (from < to && isWhitespace(frame.getByte(from))) {
+                from++;
+            }
+            while (to > from && isWhitespace(frame.getByte(to - 1))) {
+                to--;
+            }
+            if (from < to) {
+                decodeRecord(frame, from, to);
+                consumer.accept(tick);
+                count++;
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Hashes the exchange and symbol of every record of a frame, without decoding it.
+     * Frames holding ticks for the same instruments, in the same order, hash the same.
+     *
+     * @param frame The frame.
+     * @return A 64-bit FNV-1a hash of the instruments of the frame.
+     */
+    public static long instrumentHash(@Nonnull final ByteString frame) {
+        long hash = FNV_OFFSET_BASIS;
+        int field = 0;
+        final int size = frame.size();
+        for (int i = 0; i < size; i++) {
+            final byte b = frame.getByte(i);
+            if (b == RECORD_SEPARATOR) {
+                field = 0;
+            } else if (b == FIELD_SEPARATOR) {
+                field++;
+            } else if (field != EXCHANGE && field != SYMBOL) {
+                continue;
+            }
+            hash = (hash ^ b) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private void decodeRecord(final ByteString frame, final int start, final int end) {
+        int fields = 0;
+        int from = start;
+        while (fields < MAX_FIELDS) {
+            final int to = indexOf(frame, FIELD_SEPARATOR, from, end);
+            starts[fields] = from;
+            ends[fields] = to;
+            fields++;
+            if (to == end) {
+                break;
+            }
+            from = to + 1;
+        }
+        if (fields < LTP_FIELDS) {
+            throw new FeedDecodingException("Record at offset " + start + " has " + fields
+                    + " fields, expected at least " + LTP_FIELDS + ".");
+        }
+        if (fields > LTP_FIELDS && fields < FULL_FIELDS) {
+            throw new FeedDecodingException("Record at offset " + start + " has " + fields
+                    + " fields, expected " + LTP_FIELDS + " or at least " + FULL_FIELDS + ".");
+        }
+
+        tick.clear();
+        tick.setTimestamp(parseLong(frame, TIMESTAMP));
+        tick.setExchange(exchanges.lookup(frame, starts[EXCHANGE], ends[EXCHANGE]));
+        tick.setSymbol(symbols.lookup(frame, starts[SYMBOL], ends[SYMBOL]));
+        tick.setLtp(parseFixed(frame, LTP));
+        tick.setClose(parseFixed(frame, CLOSE));
+        if (fields < FULL_FIELDS) {
+            return;
+        }
+        tick.setOpen(parseFixed(frame, OPEN));
+        tick.setHigh(parseFixed(frame, HIGH));
+        tick.setLow(parseFixed(frame, LOW));
+        tick.setVtt(parseLong(frame, VTT));
+        tick.setAtp(parseFixed(frame, ATP));
+        tick.setOi(parseFixed(frame, OI));
+        tick.setSpotPrice(parseFixed(frame, SPOT_PRICE));
+        tick.setTotalBuyQuantity(parseLong(frame, TOTAL_BUY_QUANTITY));
+        tick.setTotalSellQuantity(parseLong(frame, TOTAL_SELL_QUANTITY));
+        tick.setLowerCircuit(parseFixed(frame, LOWER_CIRCUIT));
+        tick.setUpperCircuit(parseFixed(frame, UPPER_CIRCUIT));
+        tick.setYearlyLow(parseFixed(frame, YEARLY_LOW));
+        tick.setYearlyHigh(parseFixed(frame, YEARLY_HIGH));
+        tick.setBidLevels(CompactFeed.DEPTH);
+        tick.setAskLevels(CompactFeed.DEPTH);
+        for (int level = 0; level < CompactFeed.DEPTH; level++) {
+            final int bid = BIDS + 3 * level;
+            tick.setBid(level, parseFixed(frame, bid + 1),
+                    parseLong(frame, bid), parseLong(frame, bid + 2));
+            final int ask = ASKS + 3 * level;
+            tick.setAsk(level, parseFixed(frame, ask + 1),
+                    parseLong(frame, ask), parseLong(frame, ask + 2));
+        }
+        if (fields > LTT) {
+            tick.setLtt(parseLong(frame, LTT));
+        }
+    }
+
+    private long parseFixed(final ByteString frame, final int field) {
+        final int start = starts[field];
+        final int end = ends[field];
+        if (isMissing(frame, start, end)) {
+            return FixedPoint.NULL;
+        }
+        int i = start;
+        final byte first = frame.getByte(i);
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            final byte b = frame.getByte(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                throw malformed(frame, field);
+            }
+            if (scale >= FixedPoint.SCALE) {
+                if (scale == FixedPoint.SCALE) {
+                    roundUp = b >= '5';
+                }
+                scale++;
+                continue;
+            }
+            if (value > (Long.MAX_VALUE - 9) / 10) {
+                throw malformed(frame, field);
+            }
+            value = value * 10 + (b - '0');
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw malformed(frame, field);
+        }
+        for (int s = Math.max(scale, 0); s < FixedPoint.SCALE; s++) {
+            if (value > Long.MAX_VALUE / 10) {
+                throw malformed(frame, field);
+            }
+            value *= 10;
+        }
+        if (roundUp) {
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    private long parseLong(final ByteString frame, final int field) {
+        final int start = starts[field];
+        final int end = ends[field];
+        if (isMissing(frame, start, end)) {
+            return FixedPoint.NULL;
+        }
+        int i = start;
+        final byte first = frame.getByte(i);
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            final byte b = frame.getByte(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (fraction && b == '0') {
+                // Whole numbers are sometimes sent as "100.0"
+            } else if (b >= '0' && b <= '9' && !fraction && value <= (Long.MAX_VALUE - 9) / 10) {
+                value = value * 10 + (b - '0');
+                digits++;
+            } else {
+                throw malformed(frame, field);
+            }
+        }
+        if (digits == 0) {
+            throw malformed(frame, field);
+        }
+        return negative ? -value : value;
+    }
+
+    private FeedDecodingException malformed(final ByteString frame, final int field) {
+        return new FeedDecodingException("Field " + field + " is not a number: '"
+                + frame.substring(starts[field], ends[field]).utf8() + "'.");
+    }
+
+    private static boolean isMissing(final ByteString frame, final int start, final int end) {
+        return start == end
+                || equalsIgnoreCase(frame, start, end, NAN)
+                || equalsIgnoreCase(frame, start, end, NULL);
+    }
+
+    private static boolean equalsIgnoreCase(final ByteString frame, final int start, final int end,
+                                            final byte[] lowerCase) {
+        if (end - start != lowerCase.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            if ((frame.getByte(start + i) | 0x20) != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(final ByteString frame, final byte separator, final int from, final int end) {
+        for (int i = from; i < end; i++) {
+            if (frame.getByte(i) == separator) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
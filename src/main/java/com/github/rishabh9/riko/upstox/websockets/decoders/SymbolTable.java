@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.decoders;
+
+import okio.ByteString;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps the bytes of a symbol or an exchange to the same {@link String} every time,
+ * so that decoding a name already seen allocates nothing. Not thread-safe.
+ */
+class SymbolTable {
+
+    private byte[][] keys;
+
+    private String[] values;
+
+    private int size;
+
+    SymbolTable(final int expected) {
+        final int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        this.keys = new byte[capacity][];
+        this.values = new String[capacity];
+    }
+
+    /**
+     * @param frame The frame holding the name.
+     * @param start Index of the first byte of the name.
+     * @param end   Index after the last byte of the name.
+     * @return The name as a string, created only the first time it is seen.
+     */
+    String lookup(final ByteString frame, final int start, final int end) {
+        final int hash = hash(frame, start, end);
+        final int mask = keys.length - 1;
+        int index = hash & mask;
+        byte[] key;
+        while (null != (key = keys[index])) {
+            if (matches(key, frame, start, end)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        final byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = frame.getByte(i);
+        }
+        final String value = new String(bytes, StandardCharsets.UTF_8);
+        keys[index] = bytes;
+        values[index] = value;
+        if (++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        final byte[][] oldKeys = keys;
+        final String[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldKeys.length * 2];
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (null != oldKeys[i]) {
+                int index = hash(oldKeys[i]) & mask;
+                while (null != keys[index]) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static boolean matches(final byte[] key, final ByteString frame, final int start, final int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != frame.getByte(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(final ByteString frame, final int start, final int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + frame.getByte(i);
+        }
+        return spread(hash);
+    }
+
+    private static int hash(final byte[] bytes) {
+        int hash = 1;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        return spread(hash);
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
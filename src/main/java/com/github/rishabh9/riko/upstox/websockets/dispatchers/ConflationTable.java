@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The latest message waiting for each instrument hash of a conflating subscriber.
+ * Used by the reading thread only, and never boxes the hashes.
+ */
+final class ConflationTable {
+
+    /**
+     * Holds the latest message for an instrument hash until the subscriber takes it.
+     * It sits in the subscriber's ring while it holds a message.
+     */
+    static final class Latest extends AtomicReference<WebSocketMessage> {
+    }
+
+    private final int maxSize;
+    private final long[] keys;
+    private final Latest[] values;
+    private int size;
+
+    /**
+     * @param maxSize Number of instrument hashes tracked before starting afresh.
+     */
+    ConflationTable(final int maxSize) {
+        this.maxSize = maxSize;
+        final int capacity = Integer.highestOneBit(Math.max(maxSize, 4) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Latest[capacity];
+    }
+
+    /**
+     * @param key The instrument hash.
+     * @return The holder of the latest message for that hash, created the first time.
+     */
+    Latest get(final long key) {
+        final int mask = keys.length - 1;
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        while (null != values[index]) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        if (size == maxSize) {
+            // Holders still in the ring keep working, later frames just get new ones
+            Arrays.fill(values, null);
+            size = 0;
+            return get(key);
+        }
+        final Latest latest = new Latest();
+        keys[index] = key;
+        values[index] = latest;
+        size++;
+        return latest;
+    }
+}
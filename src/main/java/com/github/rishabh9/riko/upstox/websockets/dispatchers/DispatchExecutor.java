@@ -0,0 +1,306 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.common.ExecutionMode;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Runs the delivery of web socket messages to the subscribers.
+ * <p>
+ * The dispatchers of every socket share {@link #getDefault()} unless given another
+ * executor, so reconnecting does not create threads of its own. A socket's tasks
+ * end when it closes, and threads left idle for a minute go away.
+ * Threads are named after {@link Builder#namePrefix(String)}, and
+ * {@link Builder#onThreadStart(Consumer)} runs on every new thread before any task,
+ * which is where to pin it to a core.
+ * </p>
+ * <p>
+ * The {@link RingBufferDispatcher} holds a thread for as long as a subscriber
+ * is subscribed, so the executor needs at least as many threads as subscribers.
+ * Tasks never wait in a queue: once every thread is busy, a task is rejected with a
+ * {@link java.util.concurrent.RejectedExecutionException}, and the subscriber or shard it was for is failed.
+ * </p>
+ */
+public class DispatchExecutor implements Executor {
+
+    private static final Logger log = LogManager.getLogger(DispatchExecutor.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static volatile DispatchExecutor defaultExecutor;
+
+    private final String namePrefix;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger createdThreads = new AtomicInteger();
+    private final boolean shared;
+
+    private DispatchExecutor(final Builder builder, final boolean shared) {
+        this.namePrefix = builder.namePrefix;
+        this.shared = shared;
+        final int maxThreads = builder.maxThreads == 0 ? Integer.MAX_VALUE : builder.maxThreads;
+        final ThreadFactory threadFactory = newThreadFactory(builder);
+        // Never queue: a delivery task may run for as long as its subscriber, so a queued one might never start
+        this.executor = new ThreadPoolExecutor(builder.maxThreads, maxThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(builder.maxThreads > 0);
+    }
+
+    /**
+     * @return The executor shared by the dispatchers not given one,
+     * sized by {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys#RIKO_WS_DISPATCH_THREADS}.
+     */
+    public static DispatchExecutor getDefault() {
+        DispatchExecutor executor = defaultExecutor;
+        if (null == executor) {
+            synchronized (DispatchExecutor.class) {
+                executor = defaultExecutor;
+                if (null == executor) {
+                    executor = new DispatchExecutor(builder(), true);
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return A builder initialised from the system properties.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ThreadFactory newThreadFactory(final Builder builder) {
+        final boolean daemon = builder.daemon;
+        final Consumer<Thread> onThreadStart = builder.onThreadStart;
+        final ThreadFactory virtualThreads = ExecutionMode.VIRTUAL == builder.executionMode
+                ? builder.executionMode.newThreadFactory(namePrefix) : null;
+        return runnable -> {
+            final Runnable task = () -> {
+                if (null != onThreadStart) {
+                    onThreadStart.accept(Thread.currentThread());
+                }
+                runnable.run();
+            };
+            final int number = createdThreads.incrementAndGet();
+            if (null != virtualThreads) {
+                return virtualThreads.newThread(task);
+            }
+            final Thread thread = new Thread(task, namePrefix + number);
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(@Nonnull final Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * Stops accepting tasks and lets the running ones finish.
+     * Has no effect on the {@link #getDefault() default} executor, which lives as long as the application.
+     */
+    public void shutdown() {
+        if (shared) {
+            log.debug("Not shutting down the shared dispatch executor");
+            return;
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * @return Whether {@link #shutdown()} was called.
+     */
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * @return Number of threads in the pool.
+     */
+    public int getThreadCount() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * @return Number of threads running a task, approximately.
+     */
+    public int getActiveThreadCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return Largest number of threads the pool ever had.
+     */
+    public int getLargestThreadCount() {
+        return executor.getLargestPoolSize();
+    }
+
+    /**
+     * @return Number of threads created since the executor started.
+     */
+    public int getCreatedThreadCount() {
+        return createdThreads.get();
+    }
+
+    /**
+     * @return Number of tasks waiting for a thread.
+     */
+    public int getQueuedTaskCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return Number of tasks completed, approximately.
+     */
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("namePrefix", namePrefix)
+                .add("threads", getThreadCount())
+                .add("activeThreads", getActiveThreadCount())
+                .add("largestThreads", getLargestThreadCount())
+                .add("createdThreads", getCreatedThreadCount())
+                .add("queuedTasks", getQueuedTaskCount())
+                .add("completedTasks", getCompletedTaskCount())
+                .toString();
+    }
+
+    public static class Builder {
+
+        private String namePrefix = "riko-ws-dispatch-";
+        private int maxThreads = Integer.parseInt(
+                System.getProperty(RIKO_WS_DISPATCH_THREADS, RIKO_WS_DISPATCH_THREADS_DEFAULT));
+        private boolean daemon = true;
+        private Consumer<Thread> onThreadStart;
+        private ExecutionMode executionMode = defaultExecutionMode();
+
+        private Builder() {
+        }
+
+        /**
+         * @return The mode configured by the system properties,
+         * unless the ring buffer is configured to wait other than by blocking.
+         */
+        private static ExecutionMode defaultExecutionMode() {
+            final ExecutionMode mode = ExecutionMode.fromSystemProperties();
+            if (ExecutionMode.VIRTUAL == mode
+                    && MessageDispatcher.RING.equalsIgnoreCase(
+                    System.getProperty(RIKO_WS_DISPATCHER, RIKO_WS_DISPATCHER_DEFAULT))
+                    && WaitStrategy.BLOCKING != WaitStrategy.valueOf(
+                    System.getProperty(RIKO_WS_WAIT_STRATEGY, RIKO_WS_WAIT_STRATEGY_DEFAULT).toUpperCase())) {
+                log.warn("Virtual threads suit the {} wait strategy only, delivering on platform threads instead.",
+                        WaitStrategy.BLOCKING);
+                return ExecutionMode.PLATFORM;
+            }
+            return mode;
+        }
+
+        /**
+         * @param executionMode {@link ExecutionMode#VIRTUAL} to deliver on virtual threads,
+         *                      which are always daemon threads. Virtual threads suit the
+         *                      {@link WaitStrategy#BLOCKING} strategy only, as the others keep
+         *                      their carrier thread busy.
+         * @return This builder
+         */
+        public Builder executionMode(@Nonnull final ExecutionMode executionMode) {
+            this.executionMode = Objects.requireNonNull(executionMode);
+            return this;
+        }
+
+        /**
+         * @param namePrefix Prefix of the thread names, followed by a counter.
+         * @return This builder
+         */
+        public Builder namePrefix(@Nonnull final String namePrefix) {
+            this.namePrefix = Objects.requireNonNull(namePrefix);
+            return this;
+        }
+
+        /**
+         * @param maxThreads Maximum number of threads, tasks beyond which are rejected.
+         *                   {@code 0} for as many threads as tasks.
+         * @return This builder
+         */
+        public Builder maxThreads(final int maxThreads) {
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * @param daemon Whether the threads are daemon threads. They are by default.
+         * @return This builder
+         */
+        public Builder daemon(final boolean daemon) {
+            this.daemon = daemon;
+            return this;
+        }
+
+        /**
+         * @param onThreadStart Runs on every new thread before its first task,
+         *                      for instance to pin it to a core.
+         * @return This builder
+         */
+        public Builder onThreadStart(final Consumer<Thread> onThreadStart) {
+            this.onThreadStart = onThreadStart;
+            return this;
+        }
+
+        /**
+         * @return The executor.
+         * @throws IllegalArgumentException If the maximum number of threads is negative.
+         */
+        public DispatchExecutor build() {
+            if (maxThreads < 0) {
+                throw new IllegalArgumentException(
+                        "Maximum number of dispatch threads must not be negative. Provided: " + maxThreads);
+            }
+            return new DispatchExecutor(this, false);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.common.metrics.SubscriberMetrics;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Hands the messages received on the web socket over to the subscribers.
+ * <p>
+ * {@link #dispatch(WebSocketMessage)} is called on the thread reading the socket,
+ * one message at a time, and must return quickly.
+ * </p>
+ */
+public interface MessageDispatcher extends Flow.Publisher<WebSocketMessage> {
+
+    /**
+     * Name of the {@link RingBufferDispatcher} in {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys#RIKO_WS_DISPATCHER}.
+     */
+    String RING = "ring";
+
+    /**
+     * Name of the {@link SubmissionPublisherDispatcher} in {@link com.github.rishabh9.riko.upstox.common.constants.PropertyKeys#RIKO_WS_DISPATCHER}.
+     */
+    String PUBLISHER = "publisher";
+
+    /**
+     * @param message The message to hand over to every subscriber.
+     */
+    void dispatch(WebSocketMessage message);
+
+    /**
+     * Completes every subscriber once it has received the messages already dispatched.
+     */
+    void close();
+
+    /**
+     * Fails every subscriber with the given error.
+     *
+     * @param error The reason the socket failed.
+     */
+    void closeExceptionally(Throwable error);
+
+    /**
+     * @return The counters of every current subscriber.
+     */
+    List<SubscriberMetrics> getSubscriberMetrics();
+
+    /**
+     * @return The dispatcher configured by the system properties.
+     */
+    static MessageDispatcher fromSystemProperties() {
+        return fromSystemProperties(DispatchExecutor.getDefault());
+    }
+
+    /**
+     * @param executor Delivers the messages to the subscribers.
+     * @return The dispatcher configured by the system properties, running on the given executor.
+     */
+    static MessageDispatcher fromSystemProperties(final Executor executor) {
+        final String type = System.getProperty(RIKO_WS_DISPATCHER, RIKO_WS_DISPATCHER_DEFAULT);
+        if (PUBLISHER.equalsIgnoreCase(type)) {
+            return new SubmissionPublisherDispatcher(executor);
+        }
+        if (RING.equalsIgnoreCase(type)) {
+            return new RingBufferDispatcher(
+                    Integer.parseInt(System.getProperty(RIKO_WS_RING_SIZE, RIKO_WS_RING_SIZE_DEFAULT)),
+                    WaitStrategy.valueOf(System.getProperty(RIKO_WS_WAIT_STRATEGY, RIKO_WS_WAIT_STRATEGY_DEFAULT)
+                            .toUpperCase()),
+                    executor);
+        }
+        throw new IllegalArgumentException("Unknown dispatcher '" + type + "' in " + RIKO_WS_DISPATCHER + ".");
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.common.metrics.SubscriberMetrics;
+import com.github.rishabh9.riko.upstox.websockets.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.MessageSubscriber;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.google.common.collect.ImmutableList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Dispatches through one preallocated ring per subscriber.
+ * <p>
+ * The reading thread is the only producer: it writes each message into every ring
+ * and never blocks nor allocates. Each subscriber is served by its own thread,
+ * which waits for messages as per the {@link WaitStrategy} and honours the demand
+ * signalled through {@link Flow.Subscription#request(long)}. When the ring of a
+ * subscriber is full, its {@link MessageSubscriber#getBackpressurePolicy()} applies
+ * to that subscriber alone, and what it drops or conflates is counted in its
+ * {@link SubscriberMetrics}.
+ * </p>
+ */
+public class RingBufferDispatcher implements MessageDispatcher {
+
+    private static final Logger log = LogManager.getLogger(RingBufferDispatcher.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final WaitStrategy waitStrategy;
+    private final Executor executor;
+    private final List<SubscriberRing> rings = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+    private volatile Throwable closedWith;
+
+    public RingBufferDispatcher() {
+        this(DEFAULT_CAPACITY, WaitStrategy.BLOCKING);
+    }
+
+    /**
+     * @param capacity     Messages buffered per subscriber. Rounded up to a power of two.
+     * @param waitStrategy How the subscribers' threads wait for messages.
+     */
+    public RingBufferDispatcher(final int capacity, @Nonnull final WaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, DispatchExecutor.getDefault());
+    }
+
+    /**
+     * @param capacity     Messages buffered per subscriber. Rounded up to a power of two.
+     * @param waitStrategy How the subscribers' threads wait for messages.
+     * @param executor     Runs one task per subscriber, for as long as it is subscribed.
+     *                     It is not shut down when the socket closes.
+     */
+    public RingBufferDispatcher(final int capacity, @Nonnull final WaitStrategy waitStrategy,
+                                @Nonnull final Executor executor) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, was " + capacity + ".");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispatch(final WebSocketMessage message) {
+        for (SubscriberRing ring : rings) {
+            ring.offer(message);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        closeExceptionally(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void closeExceptionally(final Throwable error) {
+        if (!closed) {
+            closedWith = error;
+            closed = true;
+            rings.forEach(ring -> ring.terminate(error));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SubscriberMetrics> getSubscriberMetrics() {
+        final ImmutableList.Builder<SubscriberMetrics> metrics = ImmutableList.builder();
+        rings.forEach(ring -> metrics.add(ring.metrics()));
+        return metrics.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super WebSocketMessage> subscriber) {
+        Objects.requireNonNull(subscriber);
+        final String name;
+        final BackpressurePolicy policy;
+        if (subscriber instanceof MessageSubscriber) {
+            name = ((MessageSubscriber) subscriber).getName();
+            policy = Objects.requireNonNull(((MessageSubscriber) subscriber).getBackpressurePolicy());
+        } else {
+            name = subscriber.toString();
+            policy = BackpressurePolicy.DROP_NEWEST;
+        }
+        final SubscriberRing ring =
+                new SubscriberRing(subscriber, name, policy, capacity, waitStrategy, rings::remove);
+        rings.add(ring);
+        if (closed) {
+            ring.terminate(closedWith);
+        }
+        log.debug("Subscribing {} with a ring of {} messages and policy {}", name, capacity, policy);
+        try {
+            executor.execute(ring);
+        } catch (RejectedExecutionException e) {
+            log.error("No thread left to deliver the messages of {}, failing it.", name, e);
+            ring.reject(e);
+        }
+    }
+}
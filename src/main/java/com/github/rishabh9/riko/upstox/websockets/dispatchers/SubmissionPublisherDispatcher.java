@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.common.metrics.SubscriberMetrics;
+import com.github.rishabh9.riko.upstox.websockets.MessageSubscriber;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.SlowSubscriberException;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.google.common.collect.ImmutableList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatches through a {@link SubmissionPublisher}, as Riko always did.
+ * <p>
+ * When a subscriber's buffer is full, the reading thread waits up to
+ * {@value #MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE} seconds before dropping the message
+ * and signalling a {@link SlowSubscriberException} to the subscriber.
+ * </p>
+ */
+public class SubmissionPublisherDispatcher implements MessageDispatcher {
+
+    private static final Logger log = LogManager.getLogger(SubmissionPublisherDispatcher.class);
+
+    private static final int MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE = 3;
+
+    private final SubmissionPublisher<WebSocketMessage> publisher;
+    private final List<CountingSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public SubmissionPublisherDispatcher() {
+        this(DispatchExecutor.getDefault());
+    }
+
+    /**
+     * @param executor Delivers the messages to the subscribers.
+     *                 It is not shut down when the socket closes.
+     */
+    public SubmissionPublisherDispatcher(@Nonnull final Executor executor) {
+        this.publisher =
+                new SubmissionPublisher<>(
+                        Objects.requireNonNull(executor),
+                        Flow.defaultBufferSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispatch(final WebSocketMessage message) {
+        subscribers.forEach(subscriber -> subscriber.published.increment());
+        int lag = publisher.offer(message,
+                MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE, TimeUnit.SECONDS,
+                (subscriber, msg) -> {
+                    // inform subscriber that it isn't receiving the messages.
+                    // We can try again - but only once.
+                    // But we won't try again, as the subscriber should be quick.
+                    final CountingSubscriber counting = (CountingSubscriber) subscriber;
+                    counting.dropped.increment();
+                    final String errorMsg = "Subscriber "
+                            + counting.name
+                            + " is slow in receiving messages. Dropping message: "
+                            + msg.toString();
+                    subscriber.onError(new SlowSubscriberException(errorMsg));
+                    return false; // If we do not want to re-try once again.
+                    // return true; // If we want to re-try once
+                });
+        if (lag < 0) {
+            log.warn("Dropping {} messages", -lag);
+        } else {
+            log.debug("The slowest consumer has {} messages in total to be picked up.", lag);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void closeExceptionally(final Throwable error) {
+        publisher.closeExceptionally(error);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SubscriberMetrics> getSubscriberMetrics() {
+        final ImmutableList.Builder<SubscriberMetrics> metrics = ImmutableList.builder();
+        subscribers.forEach(subscriber -> {
+            final long published = subscriber.published.sum();
+            final long delivered = subscriber.delivered.sum();
+            final long dropped = subscriber.dropped.sum();
+            metrics.add(new SubscriberMetrics(subscriber.name, published, delivered, dropped, 0,
+                    Math.max(0, published - delivered - dropped)));
+        });
+        return metrics.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super WebSocketMessage> subscriber) {
+        final CountingSubscriber counting = new CountingSubscriber(Objects.requireNonNull(subscriber));
+        subscribers.add(counting);
+        publisher.subscribe(counting);
+    }
+
+    /**
+     * Counts the messages on their way to the subscriber it wraps.
+     */
+    private final class CountingSubscriber implements Flow.Subscriber<WebSocketMessage> {
+
+        private final Flow.Subscriber<? super WebSocketMessage> delegate;
+        private final String name;
+        private final LongAdder published = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private CountingSubscriber(final Flow.Subscriber<? super WebSocketMessage> delegate) {
+            this.delegate = delegate;
+            this.name = delegate instanceof MessageSubscriber
+                    ? ((MessageSubscriber) delegate).getName() : delegate.toString();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscribers.remove(CountingSubscriber.this);
+                    subscription.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            delivered.increment();
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscribers.remove(this);
+            delegate.onComplete();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.common.metrics.SubscriberMetrics;
+import com.github.rishabh9.riko.upstox.websockets.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.decoders.FeedDecoder;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.SlowSubscriberException;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * The preallocated ring of a single subscriber of the {@link RingBufferDispatcher},
+ * written by the reading thread only and read by the subscriber's thread only.
+ * It is also the subscriber's {@link Flow.Subscription}.
+ * <p>
+ * The head is advanced with a compare-and-set, as the reading thread moves it
+ * too when dropping the oldest message. Slots are not cleared once delivered,
+ * for the same reason; they are overwritten on the next lap instead.
+ * </p>
+ */
+final class SubscriberRing implements Flow.Subscription, Runnable {
+
+    private static final Logger log = LogManager.getLogger(SubscriberRing.class);
+
+    private final Flow.Subscriber<? super WebSocketMessage> subscriber;
+    private final String name;
+    private final BackpressurePolicy policy;
+    private final WaitStrategy waitStrategy;
+    private final Consumer<SubscriberRing> onCancel;
+
+    /**
+     * Either messages, or holders of the latest message when conflating.
+     */
+    private final Object[] slots;
+    private final int mask;
+    private final ConflationTable conflation;
+
+    /**
+     * Sequence of the next message to deliver.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Sequence of the next message to publish. Written by the reading thread.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+
+    private volatile boolean cancelled;
+    private volatile boolean terminated;
+    private volatile Throwable error;
+    private volatile IllegalArgumentException badRequest;
+
+    private volatile Thread thread;
+    private volatile boolean parked;
+
+    SubscriberRing(final Flow.Subscriber<? super WebSocketMessage> subscriber, final String name,
+                   final BackpressurePolicy policy, final int capacity, final WaitStrategy waitStrategy,
+                   final Consumer<SubscriberRing> onCancel) {
+        this.subscriber = subscriber;
+        this.name = name;
+        this.policy = policy;
+        this.waitStrategy = waitStrategy;
+        this.onCancel = onCancel;
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+        this.conflation = BackpressurePolicy.CONFLATE_LATEST_PER_SYMBOL == policy
+                ? new ConflationTable(4 * capacity) : null;
+    }
+
+    /**
+     * Publishes a message without ever blocking. Called by the reading thread only.
+     *
+     * @param message The message.
+     */
+    void offer(final WebSocketMessage message) {
+        if (terminated || cancelled) {
+            return;
+        }
+        if (null != conflation && message instanceof BinaryMessage) {
+            conflate((BinaryMessage) message);
+        } else {
+            enqueue(message);
+        }
+    }
+
+    private void conflate(final BinaryMessage message) {
+        final ConflationTable.Latest latest =
+                conflation.get(FeedDecoder.instrumentHash(message.getMessage()));
+        if (null != latest.getAndSet(message)) {
+            // The holder is already in the ring, and now holds this message instead
+            increment(conflated);
+        } else if (!enqueue(latest)) {
+            latest.set(null);
+        }
+    }
+
+    private boolean enqueue(final Object item) {
+        final long sequence = tail.get();
+        final long oldest = sequence - slots.length;
+        if (oldest >= head.get()) {
+            switch (policy) {
+                case DROP_OLDEST:
+                    // Fails only if the subscriber just took it, which makes room all the same
+                    if (head.compareAndSet(oldest, oldest + 1)) {
+                        increment(dropped);
+                    }
+                    break;
+                case FAIL_WHEN_FULL:
+                    increment(dropped);
+                    terminate(new SlowSubscriberException("Subscriber " + name
+                            + " is more than " + slots.length + " messages behind."));
+                    return false;
+                default:
+                    increment(dropped);
+                    return false;
+            }
+        }
+        slots[(int) (sequence & mask)] = item;
+        tail.set(sequence + 1);
+        signal();
+        return true;
+    }
+
+    /**
+     * Completes the subscriber once the ring is drained, or fails it if an error is given
+     * once the messages it has requested are delivered.
+     *
+     * @param cause The error, or {@code null}.
+     */
+    void terminate(final Throwable cause) {
+        if (!terminated) {
+            error = cause;
+            terminated = true;
+            signal();
+        }
+    }
+
+    /**
+     * Fails the subscriber at once, in place of running.
+     *
+     * @param cause Why the ring cannot run.
+     */
+    void reject(final Throwable cause) {
+        cancel();
+        try {
+            subscriber.onSubscribe(this);
+        } finally {
+            subscriber.onError(cause);
+        }
+    }
+
+    /**
+     * Delivers the messages to the subscriber until it cancels or the ring terminates.
+     */
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        try {
+            subscriber.onSubscribe(this);
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        int idle = 0;
+        while (!cancelled) {
+            if (null != badRequest) {
+                fail(badRequest);
+                return;
+            }
+            final boolean done = terminated;
+            final long sequence = head.get();
+            if (sequence < tail.get()) {
+                if (demand.get() > 0) {
+                    final Object item = slots[(int) (sequence & mask)];
+                    if (head.compareAndSet(sequence, sequence + 1)) {
+                        deliver(item);
+                    }
+                    idle = 0;
+                    continue;
+                }
+                if (done && null != error) {
+                    // Failing does not wait for demand to drain the ring
+                    complete();
+                    return;
+                }
+            } else if (done) {
+                complete();
+                return;
+            }
+            idle = waitStrategy.idle(this, idle);
+        }
+    }
+
+    private void deliver(final Object item) {
+        final WebSocketMessage message = item instanceof ConflationTable.Latest
+                ? ((ConflationTable.Latest) item).getAndSet(null) : (WebSocketMessage) item;
+        if (null == message) {
+            return;
+        }
+        if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+        }
+        try {
+            subscriber.onNext(message);
+        } catch (Throwable t) {
+            log.error("Subscriber {} failed to receive a message, cancelling it.", name, t);
+            fail(t);
+            return;
+        }
+        increment(delivered);
+    }
+
+    private void complete() {
+        cancel();
+        final Throwable cause = error;
+        if (null == cause) {
+            subscriber.onComplete();
+        } else {
+            subscriber.onError(cause);
+        }
+    }
+
+    private void fail(final Throwable cause) {
+        cancel();
+        subscriber.onError(cause);
+    }
+
+    /**
+     * Parks the subscriber's thread unless there is something to do.
+     *
+     * @param nanos The longest time to park for, guarding against a missed signal.
+     */
+    void park(final long nanos) {
+        parked = true;
+        if (!hasWork()) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        parked = false;
+    }
+
+    private boolean hasWork() {
+        final boolean empty = head.get() >= tail.get();
+        return cancelled || null != badRequest
+                || (terminated && (empty || null != error))
+                || (!empty && demand.get() > 0);
+    }
+
+    private void signal() {
+        if (waitStrategy.signals() && parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Counters written by a single thread do not need an atomic increment.
+     */
+    private static void increment(final AtomicLong counter) {
+        counter.lazySet(counter.get() + 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            badRequest = new IllegalArgumentException("Non-positive request of " + n + " messages.");
+        } else {
+            demand.accumulateAndGet(n, (current, added) -> {
+                final long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+        }
+        signal();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            onCancel.accept(this);
+            signal();
+        }
+    }
+
+    SubscriberMetrics metrics() {
+        final long published = tail.get();
+        return new SubscriberMetrics(name, published, delivered.get(), dropped.get(), conflated.get(),
+                Math.max(0, published - head.get()));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a subscriber's thread of the {@link RingBufferDispatcher} waits for the next message.
+ * The strategies trade CPU usage for latency, from {@link #BUSY_SPIN} burning a core
+ * to {@link #BLOCKING} sleeping until woken up by the reading thread.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spins on the CPU. Lowest latency, but keeps a core busy per subscriber.
+     */
+    BUSY_SPIN {
+        @Override
+        int idle(final SubscriberRing ring, final int counter) {
+            Thread.onSpinWait();
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins for a while, then yields the CPU to other threads.
+     */
+    YIELDING {
+        @Override
+        int idle(final SubscriberRing ring, final int counter) {
+            if (counter < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins, yields, then sleeps for short periods.
+     */
+    SLEEPING {
+        @Override
+        int idle(final SubscriberRing ring, final int counter) {
+            if (counter < SPINS) {
+                Thread.onSpinWait();
+            } else if (counter < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins for a while, then parks until the reading thread publishes a message.
+     * The reading thread pays for an unpark only when the subscriber is parked.
+     */
+    BLOCKING {
+        @Override
+        int idle(final SubscriberRing ring, final int counter) {
+            if (counter < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                ring.park(MAX_PARK_NANOS);
+            }
+            return counter + 1;
+        }
+
+        @Override
+        boolean signals() {
+            return true;
+        }
+    };
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Called by the subscriber's thread when it has nothing to do.
+     *
+     * @param ring    The ring of the subscriber.
+     * @param counter How many times in a row it had nothing to do.
+     * @return The counter for the next call.
+     */
+    abstract int idle(SubscriberRing ring, int counter);
+
+    /**
+     * @return Whether the reading thread has to wake up the subscriber's thread.
+     */
+    boolean signals() {
+        return false;
+    }
+}
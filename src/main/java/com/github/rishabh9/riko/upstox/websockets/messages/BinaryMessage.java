@@ -53,6 +53,14 @@ public class BinaryMessage extends WebSocketMessage {
         return message.size();
     }
 
+    /**
+     * @return The message itself, without copying it. {@link ByteString} is immutable,
+     * and reading it byte by byte with {@link ByteString#getByte(int)} allocates nothing.
+     */
+    public ByteString getMessage() {
+        return message;
+    }
+
     public String getMessageAsString() {
         return message.string(Charset.forName("UTF-8"));
     }
@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import org.junit.jupiter.api.Test;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_EXECUTION_MODE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionModeTest {
+
+    @Test
+    void fromSystemProperties_fallsBackToPlatform_whenVirtualThreadsAreNotSupported() {
+        System.setProperty(RIKO_EXECUTION_MODE, "virtual");
+        try {
+            assertEquals(ExecutionMode.isVirtualThreadSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM,
+                    ExecutionMode.fromSystemProperties());
+        } finally {
+            System.clearProperty(RIKO_EXECUTION_MODE);
+        }
+        assertEquals(ExecutionMode.PLATFORM, ExecutionMode.fromSystemProperties());
+    }
+
+}
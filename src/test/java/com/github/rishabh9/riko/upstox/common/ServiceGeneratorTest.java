@@ -0,0 +1,491 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.rishabh9.riko.upstox.common;
+
+import com.github.rishabh9.riko.upstox.common.metrics.ConnectionMetrics;
+import com.github.rishabh9.riko.upstox.common.metrics.RateLimitMetrics;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
+import com.github.rishabh9.riko.upstox.common.models.ConnectionSettings;
+import com.github.rishabh9.riko.upstox.common.models.HedgeSettings;
+import com.github.rishabh9.riko.upstox.common.models.RateLimitSettings;
+import com.github.rishabh9.riko.upstox.common.models.RetrySettings;
+import com.github.rishabh9.riko.upstox.common.ratelimit.EndpointClass;
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.FeedApi;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.orders.OrderApi;
+import com.github.rishabh9.riko.upstox.orders.models.OrderRequest;
+import com.github.rishabh9.riko.upstox.users.UsersApi;
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceGeneratorTest {
+
+    @Test
+    void createService_reusesService_whenHeadersAreUnchanged() {
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+
+        UsersApi first = generator.createService(UsersApi.class,
+                new AuthHeaders("Bearer token_1", "apiKey"));
+        UsersApi second = generator.createService(UsersApi.class,
+                new AuthHeaders("Bearer token_1", "apiKey"));
+
+        assertSame(first, second, "Service must be reused for the same auth headers");
+        assertNotSame(first, generator.createService(OrderApi.class,
+                new AuthHeaders("Bearer token_1", "apiKey")));
+    }
+
+    @Test
+    void createService_buildsNewService_whenTokenChanges() {
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+
+        UsersApi first = generator.createService(UsersApi.class,
+                new AuthHeaders("Bearer token_1", "apiKey"));
+        UsersApi second = generator.createService(UsersApi.class,
+                new AuthHeaders("Bearer token_2", "apiKey"));
+
+        assertNotSame(first, second, "Service must not be reused once the token changes");
+    }
+
+    @Test
+    void createService_failsCall_whenAccessTokenIsGone() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        UsersApi api = generator.createService(UsersApi.class, new UpstoxAuthService() {
+            @Override
+            public ApiCredentials getApiCredentials() {
+                return new ApiCredentials("apiKey", "secret");
+            }
+
+            @Override
+            public AccessToken getAccessToken() {
+                return null;
+            }
+        });
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> api.getProfile().get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException);
+            assertEquals(0, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void createService_reusesService_whenNotAuthenticated() {
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+
+        assertSame(generator.createService(UsersApi.class),
+                generator.createService(UsersApi.class));
+    }
+
+    @Test
+    void createService_neverLeaksHeaders_whenCalledConcurrently() throws Exception {
+        MockWebServer server = new MockWebServer();
+        // Echo the headers back, so every caller can verify what was sent on its behalf.
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                UpstoxResponse<Object> response = new UpstoxResponse<>();
+                response.setCode(200);
+                response.setMessage(request.getHeader("Authorization")
+                        + "|" + request.getHeader("X-API-KEY"));
+                return new MockResponse().setBody(new Gson().toJson(response));
+            }
+        });
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        final int threads = 32;
+        final int callsPerThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final String token = "Bearer token_" + i;
+                final String apiKey = "apiKey_" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < callsPerThread; j++) {
+                        CompletableFuture<?> profile = ServiceGenerator.getInstance()
+                                .createService(UsersApi.class, new AuthHeaders(token, apiKey))
+                                .getProfile();
+                        assertEquals(token + "|" + apiKey,
+                                ((UpstoxResponse<?>) profile.get()).getMessage(),
+                                "Request was sent with another caller's headers");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(threads * callsPerThread, server.getRequestCount());
+        } finally {
+            executor.shutdownNow();
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void createService_sendsLatestToken_whenTokenIsRotated() throws Exception {
+        final AtomicReference<String> currentToken = new AtomicReference<>("access_token_1");
+        UpstoxAuthService upstoxAuthService = new UpstoxAuthService() {
+            @Override
+            public ApiCredentials getApiCredentials() {
+                return new ApiCredentials("secretApiKey", "secret-secret");
+            }
+
+            @Override
+            public AccessToken getAccessToken() {
+                AccessToken token = new AccessToken();
+                token.setType("bearer");
+                token.setToken(currentToken.get());
+                return token;
+            }
+        };
+
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        try {
+            UsersApi api = ServiceGenerator.getInstance().createService(UsersApi.class, upstoxAuthService);
+            api.getProfile().get();
+
+            currentToken.set("access_token_2");
+            UsersApi rotated = ServiceGenerator.getInstance().createService(UsersApi.class, upstoxAuthService);
+            assertSame(api, rotated, "Service must survive a token rotation");
+            rotated.getProfile().get();
+
+            RecordedRequest first = server.takeRequest();
+            assertEquals("Bearer access_token_1", first.getHeader("Authorization"));
+            assertEquals("secretApiKey", first.getHeader("X-API-KEY"));
+            assertEquals("Bearer access_token_2", server.takeRequest().getHeader("Authorization"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void configure_countsPoolHitsAndMisses_whenConnectionIsReused() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        generator.configure(ConnectionSettings.builder()
+                .maxRequests(10)
+                .maxRequestsPerHost(10)
+                .maxIdleConnections(2)
+                .keepAliveDuration(1, TimeUnit.MINUTES)
+                .build());
+
+        try {
+            UsersApi api = generator.createService(UsersApi.class,
+                    new AuthHeaders("Bearer token_1", "apiKey"));
+            api.getProfile().get();
+            api.getProfile().get();
+
+            ConnectionMetrics metrics = generator.getConnectionMetrics();
+            assertEquals(1, metrics.getPoolMisses());
+            assertEquals(1, metrics.getPoolHits());
+            assertEquals(0, metrics.getQueuedCalls());
+            assertEquals(1, metrics.getConnectionCount());
+        } finally {
+            generator.configure(ConnectionSettings.fromSystemProperties());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void getWebSocketClient_sharesPool_withServices() {
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+
+        OkHttpClient client = generator.getWebSocketClient(10, 30, true);
+        assertSame(client, generator.getWebSocketClient(10, 30, true));
+        assertTrue(client.interceptors().isEmpty());
+        assertEquals(10_000, client.pingIntervalMillis());
+        assertEquals(30_000, client.readTimeoutMillis());
+        assertEquals(Integer.MAX_VALUE, client.dispatcher().getMaxRequestsPerHost());
+
+        OkHttpClient pinged = generator.getWebSocketClient(5, 30, true);
+        assertNotSame(client, pinged);
+        assertSame(client.dispatcher(), pinged.dispatcher());
+        assertSame(client.connectionPool(), pinged.connectionPool());
+
+        generator.configure(ConnectionSettings.fromSystemProperties());
+        OkHttpClient configured = generator.getWebSocketClient(5, 30, true);
+        assertNotSame(pinged, configured);
+        assertSame(pinged.dispatcher(), configured.dispatcher());
+        assertNotSame(pinged.connectionPool(), configured.connectionPool());
+    }
+
+    @Test
+    void configure_throwIAE_whenSettingsAreInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                        ConnectionSettings.builder().maxRequestsPerHost(0).build(),
+                "Validation of connection settings missing.");
+
+        assertThrows(NullPointerException.class, () ->
+                        ServiceGenerator.getInstance().configure(null),
+                "Null check missing for connection settings.");
+    }
+
+    @Test
+    void warmUp_primesConnection_beforeFirstOrder() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        generator.configure(ConnectionSettings.fromSystemProperties());
+
+        try {
+            assertEquals(Integer.valueOf(1), generator.warmUp(1).get(10, TimeUnit.SECONDS));
+            assertEquals("HEAD", server.takeRequest().getMethod());
+
+            ConnectionMetrics metrics = generator.getConnectionMetrics();
+            assertEquals(-1, metrics.getTimeToFirstOrderNanos());
+
+            generator.createService(OrderApi.class, new AuthHeaders("Bearer token_1", "apiKey"))
+                    .placeOrder(new OrderRequest())
+                    .get();
+
+            assertEquals(1, metrics.getPoolMisses(), "Order must reuse the warmed up connection");
+            assertEquals(1, metrics.getPoolHits());
+            assertTrue(metrics.getTimeToFirstOrderNanos() > 0);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void warmUp_completes_whenServerIsUnreachable() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        server.shutdown();
+
+        assertEquals(Integer.valueOf(0),
+                ServiceGenerator.getInstance().warmUp(2).get(10, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> ServiceGenerator.getInstance().warmUp(0));
+    }
+
+    @Test
+    void configureRateLimits_letsOrdersJumpAhead_ofPortfolioPolling() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("{\"code\":200}");
+            }
+        });
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        generator.configureRateLimits(RateLimitSettings.builder()
+                .enabled(true)
+                .globalPermitsPerSecond(2)
+                .permitsPerSecond(EndpointClass.ORDERS, 0)
+                .permitsPerSecond(EndpointClass.PORTFOLIO, 0)
+                .build());
+        AuthHeaders headers = new AuthHeaders("Bearer token_1", "apiKey");
+        try {
+            List<CompletableFuture<?>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(generator.createService(UsersApi.class, headers).getPositions());
+            }
+            results.add(generator.createService(OrderApi.class, headers).placeOrder(new OrderRequest()));
+            for (CompletableFuture<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals("/live/profile/positions", server.takeRequest().getPath());
+            assertEquals("/live/profile/positions", server.takeRequest().getPath());
+            RecordedRequest third = server.takeRequest();
+            assertEquals("POST", third.getMethod(), "Order must go ahead of the waiting portfolio calls");
+            assertEquals("/live/orders", third.getPath());
+
+            Map<EndpointClass, RateLimitMetrics> metrics = generator.getRateLimitMetrics();
+            assertEquals(4, metrics.get(EndpointClass.PORTFOLIO).getGranted());
+            assertEquals(2, metrics.get(EndpointClass.PORTFOLIO).getDelayed());
+            assertEquals(1, metrics.get(EndpointClass.ORDERS).getDelayed());
+            assertTrue(metrics.get(EndpointClass.PORTFOLIO).getMaxDelayMillis()
+                    > metrics.get(EndpointClass.ORDERS).getMaxDelayMillis());
+            assertEquals(0, metrics.get(EndpointClass.PORTFOLIO).getWaiting());
+        } finally {
+            generator.configureRateLimits(RateLimitSettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+        assertTrue(generator.getRateLimitMetrics().isEmpty());
+    }
+
+    @Test
+    void configureRateLimits_holdsBackEndpoints_whenServerAnswersTooManyRequests() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        generator.configureRateLimits(RateLimitSettings.builder().enabled(true).build());
+        AuthHeaders headers = new AuthHeaders("Bearer token_1", "apiKey");
+        try {
+            assertThrows(ExecutionException.class, () ->
+                    generator.createService(UsersApi.class, headers).getPositions().get(10, TimeUnit.SECONDS));
+
+            // Other classes of endpoints are not held back
+            long start = System.nanoTime();
+            generator.createService(OrderApi.class, headers).getOrderHistory().get(10, TimeUnit.SECONDS);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+
+            generator.createService(UsersApi.class, headers).getHoldings().get(10, TimeUnit.SECONDS);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 800,
+                    "Portfolio call must wait out the Retry-After");
+
+            RateLimitMetrics portfolio = generator.getRateLimitMetrics().get(EndpointClass.PORTFOLIO);
+            assertEquals(1, portfolio.getThrottled());
+            assertEquals(1, portfolio.getDelayed());
+        } finally {
+            generator.configureRateLimits(RateLimitSettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void configureRateLimits_takesPermitPerAttempt_whenCallIsRetried() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        generator.configureRateLimits(RateLimitSettings.builder().enabled(true).build());
+        generator.configureRetries(RetrySettings.builder()
+                .enabled(true)
+                .maxAttempts(3)
+                .backoff(10, 50, TimeUnit.MILLISECONDS)
+                .build());
+        AuthHeaders headers = new AuthHeaders("Bearer token_1", "apiKey");
+        try {
+            generator.createService(UsersApi.class, headers).getPositions().get(10, TimeUnit.SECONDS);
+
+            assertEquals(3, server.getRequestCount());
+            assertEquals(server.getRequestCount(),
+                    generator.getRateLimitMetrics().get(EndpointClass.PORTFOLIO).getGranted());
+        } finally {
+            generator.configureRetries(RetrySettings.builder().enabled(false).build());
+            generator.configureRateLimits(RateLimitSettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void configureRateLimits_takesPermitForHedge() throws Exception {
+        MockWebServer server = new MockWebServer();
+        final AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse answer = new MockResponse().setBody("{\"code\":200}");
+                // Only the first request is slow
+                return requests.incrementAndGet() == 1 ? answer.setBodyDelay(5, TimeUnit.SECONDS) : answer;
+            }
+        });
+        server.start();
+
+        ServiceGenerator generator = ServiceGenerator.getInstance();
+        generator.rebuildWithUrl(server.url("/"));
+        generator.configureRateLimits(RateLimitSettings.builder().enabled(true).build());
+        generator.configureHedging(HedgeSettings.builder()
+                .enabled(true)
+                .initialDelay(50, TimeUnit.MILLISECONDS)
+                .build());
+        AuthHeaders headers = new AuthHeaders("Bearer token_1", "apiKey");
+        try {
+            generator.createService(FeedApi.class, headers).liveFeed("NSE_EQ", "RELIANCE", "ltp")
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, server.getRequestCount());
+            assertEquals(2, generator.getRateLimitMetrics().get(EndpointClass.FEED).getGranted());
+        } finally {
+            generator.configureHedging(HedgeSettings.builder().enabled(false).build());
+            generator.configureRateLimits(RateLimitSettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void configureRateLimits_throwIAE_whenSettingsAreInvalid() {
+        assertThrows(IllegalArgumentException.class, () ->
+                        RateLimitSettings.builder().permitsPerSecond(EndpointClass.FEED, -1).build(),
+                "Validation of rate limit settings missing.");
+
+        assertThrows(NullPointerException.class, () ->
+                        ServiceGenerator.getInstance().configureRateLimits(null),
+                "Null check missing for rate limit settings.");
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    @Test
+    void toFixed_returnsNull_whenValueIsMissing() {
+        assertEquals(FixedPoint.NULL, FixedPoint.toFixed((BigDecimal) null));
+        assertEquals(FixedPoint.NULL, FixedPoint.toFixed((NumberString) null));
+        assertEquals(FixedPoint.NULL, FixedPoint.toFixed(new NumberString(null)));
+        assertEquals(FixedPoint.NULL, FixedPoint.unbox(null));
+    }
+
+    @Test
+    void toBigDecimal_returnsNull_forNull() {
+        assertNull(FixedPoint.toBigDecimal(FixedPoint.NULL));
+        assertFalse(FixedPoint.toNumberString(FixedPoint.NULL).isNumber());
+        assertNull(FixedPoint.box(FixedPoint.NULL));
+    }
+
+    @Test
+    void toBigDecimal_returnsTheAmountConverted() {
+        assertRoundTrip("1234.5600", 12_345_600L);
+        assertRoundTrip("0.0001", 1L);
+        assertRoundTrip("-0.0001", -1L);
+        assertRoundTrip("0.0000", 0L);
+        assertRoundTrip(BigDecimal.valueOf(Long.MAX_VALUE, FixedPoint.SCALE).toPlainString(), Long.MAX_VALUE);
+        assertRoundTrip(BigDecimal.valueOf(-Long.MAX_VALUE, FixedPoint.SCALE).toPlainString(), -Long.MAX_VALUE);
+        assertEquals(FixedPoint.ONE, FixedPoint.toFixed(BigDecimal.ONE));
+    }
+
+    @Test
+    void toFixed_roundsHalfUpBeyondTheFourthDecimal() {
+        assertEquals(1L, FixedPoint.toFixed(new BigDecimal("0.00005")));
+        assertEquals(-1L, FixedPoint.toFixed(new BigDecimal("-0.00005")));
+        assertEquals(0L, FixedPoint.toFixed(new BigDecimal("0.00004999")));
+        assertEquals(1_000_000L, FixedPoint.toFixed(new BigDecimal("99.99995")));
+        assertEquals(1L, FixedPoint.toFixed(new NumberString(new BigDecimal("0.00005"))));
+    }
+
+    @Test
+    void toFixed_failsForAmountsOutOfRange() {
+        BigDecimal beyond = BigDecimal.valueOf(Long.MAX_VALUE, FixedPoint.SCALE).add(new BigDecimal("0.0001"));
+
+        assertThrows(ArithmeticException.class, () -> FixedPoint.toFixed(beyond));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.toFixed(new NumberString(beyond)));
+    }
+
+    @Test
+    void box_returnsTheValue() {
+        assertEquals(Long.valueOf(-5L), FixedPoint.box(FixedPoint.unbox(-5L)));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), FixedPoint.box(FixedPoint.unbox(Long.MAX_VALUE)));
+    }
+
+    private static void assertRoundTrip(String amount, long units) {
+        BigDecimal value = new BigDecimal(amount);
+        assertEquals(units, FixedPoint.toFixed(value));
+        assertEquals(value, FixedPoint.toBigDecimal(units));
+        assertEquals(new NumberString(value), FixedPoint.toNumberString(units));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimit;
+
+import com.github.rishabh9.riko.upstox.common.models.RateLimitSettings;
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static RateLimiter limiter(int global, int historical) {
+        return new RateLimiter(RateLimitSettings.builder()
+                .globalPermitsPerSecond(global)
+                .permitsPerSecond(EndpointClass.HISTORICAL, historical)
+                .build());
+    }
+
+    @Test
+    void acquire_grantsBurst_thenQueues() throws Exception {
+        RateLimiter limiter = limiter(0, 2);
+
+        assertTrue(limiter.acquire(EndpointClass.HISTORICAL, RequestPriority.NORMAL).isDone());
+        assertTrue(limiter.acquire(EndpointClass.HISTORICAL, RequestPriority.NORMAL).isDone());
+        CompletableFuture<Void> third = limiter.acquire(EndpointClass.HISTORICAL, RequestPriority.NORMAL);
+        assertFalse(third.isDone(), "Burst must be limited to one second's worth of permits");
+        assertEquals(1, limiter.getMetrics().get(EndpointClass.HISTORICAL).getWaiting());
+
+        third.get(5, TimeUnit.SECONDS);
+        assertEquals(3, limiter.getMetrics().get(EndpointClass.HISTORICAL).getGranted());
+        assertEquals(1, limiter.getMetrics().get(EndpointClass.HISTORICAL).getDelayed());
+    }
+
+    @Test
+    void acquire_doesNotHoldBackOtherClasses_whenOneClassIsExhausted() {
+        RateLimiter limiter = limiter(0, 1);
+
+        assertTrue(limiter.acquire(EndpointClass.HISTORICAL, RequestPriority.HIGH).isDone());
+        assertFalse(limiter.acquire(EndpointClass.HISTORICAL, RequestPriority.HIGH).isDone());
+        assertTrue(limiter.acquire(EndpointClass.FEED, RequestPriority.LOW).isDone());
+    }
+
+    @Test
+    void acquire_givesUpPlace_whenCancelled() throws Exception {
+        RateLimiter limiter = limiter(1, 0);
+
+        assertTrue(limiter.acquire(EndpointClass.ORDERS, RequestPriority.NORMAL).isDone());
+        CompletableFuture<Void> cancelled = limiter.acquire(EndpointClass.ORDERS, RequestPriority.HIGH);
+        CompletableFuture<Void> next = limiter.acquire(EndpointClass.ORDERS, RequestPriority.NORMAL);
+        cancelled.cancel(false);
+
+        next.get(5, TimeUnit.SECONDS);
+        assertEquals(0, limiter.getMetrics().get(EndpointClass.ORDERS).getWaiting());
+        assertEquals(2, limiter.getMetrics().get(EndpointClass.ORDERS).getGranted());
+    }
+
+    @Test
+    void of_classifiesRequests() {
+        Request place = new Request.Builder().url("https://api.upstox.com/live/orders")
+                .post(okhttp3.RequestBody.create(null, new byte[0])).build();
+        Request orders = new Request.Builder().url("https://api.upstox.com/live/orders").build();
+        Request positions = new Request.Builder().url("https://api.upstox.com/live/profile/positions").build();
+        Request candles = new Request.Builder().url("https://api.upstox.com/historical/ohlc/NSE_EQ/RELIANCE").build();
+
+        assertEquals(RequestPriority.HIGH, RequestPriority.of(place));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.of(orders));
+        assertEquals(RequestPriority.LOW, RequestPriority.of(positions));
+        assertEquals(EndpointClass.HISTORICAL, EndpointClass.of(candles));
+        assertEquals(EndpointClass.PORTFOLIO, EndpointClass.of(positions));
+    }
+
+    @Test
+    void parseRetryAfter_ignoresDates() {
+        assertEquals(3, RateLimitedCallAdapterFactory.parseRetryAfter(" 3"));
+        assertEquals(0, RateLimitedCallAdapterFactory.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals(0, RateLimitedCallAdapterFactory.parseRetryAfter(null));
+    }
+}
@@ -28,19 +28,28 @@ import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.models.BatchSubscriptionResult;
 import com.github.rishabh9.riko.upstox.feed.models.Feed;
 import com.github.rishabh9.riko.upstox.feed.models.SubscriptionResponse;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import com.google.gson.Gson;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH;
 import static okhttp3.mockwebserver.SocketPolicy.DISCONNECT_AFTER_REQUEST;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -97,6 +106,61 @@ class FeedServiceTest {
         }
     }
 
+    @Test
+    void liveFeed_success_whenNumbersAreEmptyStrings() throws IOException {
+        MockWebServer server = new MockWebServer();
+
+        server.enqueue(new MockResponse().setBody("{\"code\":200,\"data\":{" +
+                "\"exchange\":\"NSE_FO\"," +
+                "\"ltp\":\"1030.50\"," +
+                "\"close\":\"\"," +
+                "\"spot_price\":\"  \"," +
+                "\"vtt\":\"\"," +
+                "\"total_buy_qty\":\"1500\"," +
+                "\"ltt\":1529300000000," +
+                "\"oi\":\"\"}}"));
+
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        FeedService service = new FeedService(upstoxAuthService);
+
+        try {
+            Feed feed = service.liveFeed("NSE_FO", "NIFTY18JUNFUT", "TYPE").get().getData();
+            assertEquals(new BigDecimal("1030.50"), feed.getLtp());
+            assertNull(feed.getClose());
+            assertNull(feed.getSpotPrice());
+            assertNull(feed.getVtt());
+            assertEquals(Long.valueOf(1500), feed.getTotalBuyQuantity());
+            assertEquals(Long.valueOf(1529300000000L), feed.getLtt());
+            assertFalse(feed.getOi().isNumber());
+        } catch (ExecutionException | InterruptedException e) {
+            log.fatal(e);
+            fail();
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void liveFeed_failure_whenNumberIsMalformed() throws IOException {
+        MockWebServer server = new MockWebServer();
+
+        server.enqueue(new MockResponse().setBody("{\"code\":200,\"data\":{\"vtt\":\"12a\"}}"));
+
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        FeedService service = new FeedService(upstoxAuthService);
+
+        assertThrows(ExecutionException.class,
+                service.liveFeed("NSE_FO", "NIFTY18JUNFUT", "TYPE")::get);
+
+        server.shutdown();
+    }
+
     @Test
     void liveFeed_failure_whenUpstoxReturnsError() throws IOException {
         MockWebServer server = new MockWebServer();
@@ -416,4 +480,104 @@ class FeedServiceTest {
                         service.unsubscribe("TYPE", "NSE", ""),
                 "Symbols cannot be empty. Mandatory validation missing.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void subscribeAll_sendsChunksConcurrently_andMergesResults() throws Exception {
+        MockWebServer server = new MockWebServer();
+        List<String> requested = new CopyOnWriteArrayList<>();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String symbols = request.getRequestUrl().queryParameter("symbol");
+                requested.add(symbols);
+                if (symbols.contains("SYM3")) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                return new MockResponse().setBody("{\"code\":200,\"data\":{\"success\":true}}");
+            }
+        });
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        System.setProperty(RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH, "20");
+
+        FeedService service = new FeedService(upstoxAuthService);
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            symbols.add("SYM" + i);
+        }
+        symbols.add("SYM0");
+
+        try {
+            BatchSubscriptionResult result = service.subscribeAll("full", "NSE_FO", symbols).get();
+
+            assertEquals(4, result.getRequests());
+            assertEquals(4, requested.size());
+            assertFalse(result.isSuccess());
+            assertEquals(List.of("SYM0", "SYM1", "SYM2", "SYM6", "SYM7", "SYM8", "SYM9"), result.getSucceeded());
+            assertEquals(List.of("SYM3", "SYM4", "SYM5"), result.getFailed());
+            assertEquals(1, result.getErrors().size());
+            assertEquals(Set.of("SYM0", "SYM1", "SYM2", "SYM6", "SYM7", "SYM8", "SYM9"),
+                    service.getActiveSubscriptions().get(0).getSymbols());
+
+            result = service.unsubscribeAll("full", "NSE_FO", List.of("SYM0", "SYM1")).get();
+            assertTrue(result.isSuccess());
+            assertEquals(1, result.getRequests());
+            assertEquals(Set.of("SYM2", "SYM6", "SYM7", "SYM8", "SYM9"),
+                    service.getActiveSubscriptions().get(0).getSymbols());
+        } finally {
+            System.clearProperty(RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH);
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void subscribeAll_doesNotTrackSymbols_whenSubscriptionIsRefused() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                boolean refused = request.getRequestUrl().queryParameter("symbol").contains("TCS");
+                return new MockResponse().setBody("{\"code\":200,\"data\":{\"success\":" + !refused + "}}");
+            }
+        });
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        System.setProperty(RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH, "4");
+
+        FeedService service = new FeedService(upstoxAuthService);
+
+        try {
+            BatchSubscriptionResult result = service.subscribeAll("ltp", "NSE_EQ", List.of("INFY", "TCS")).get();
+
+            assertEquals(List.of("TCS"), result.getFailed());
+            assertEquals(Set.of("INFY"), service.getActiveSubscriptions().get(0).getSymbols(),
+                    "Refused symbol must not be tracked as active");
+        } finally {
+            System.clearProperty(RIKO_FEED_SUBSCRIBE_CHUNK_LENGTH);
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void chunk_fitsEncodedSymbols_withinLength() {
+        List<List<String>> chunks = FeedService.chunk(List.of("M&M", "INFY", " ", "M&M", "TCS"), 12);
+
+        // "M%26M%2CINFY" is 12 characters long
+        assertEquals(List.of(List.of("M&M", "INFY"), List.of("TCS")), chunks);
+        assertEquals(List.of(List.of("RELIANCE")), FeedService.chunk(List.of("RELIANCE"), 4));
+        assertTrue(FeedService.chunk(List.of(), 10).isEmpty());
+    }
+
+    @Test
+    void subscribeAll_throwIAE_whenRequiredParametersAreMissing() {
+        FeedService service = new FeedService(upstoxAuthService);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                        service.subscribeAll("full", "NSE_EQ", List.of("", " ")),
+                "Symbols cannot be empty. Mandatory validation missing.");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                        service.unsubscribeAll("", "NSE_EQ", List.of("ACC")),
+                "Type cannot be empty. Mandatory validation missing.");
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveFeedCacheTest {
+
+    private static final String FEED = "{\"code\":200,\"data\":{\"exchange\":\"NSE_EQ\",\"symbol\":\"INFY\","
+            + "\"ltp\":1170.5}}";
+
+    private UpstoxAuthService upstoxAuthService = new UpstoxAuthService() {
+        @Override
+        public ApiCredentials getApiCredentials() {
+            return new ApiCredentials("secretApiKey", "secret-secret");
+        }
+
+        @Override
+        public AccessToken getAccessToken() {
+            AccessToken token = new AccessToken();
+            token.setExpiresIn(86400L);
+            token.setType("Bearer");
+            token.setToken("access_token_123456789");
+            return token;
+        }
+    };
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void liveFeed_sharesRequest_betweenConcurrentCallers() throws Exception {
+        server.enqueue(new MockResponse().setBody(FEED).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        LiveFeedCache cache = new LiveFeedCache(new FeedService(upstoxAuthService), 1, TimeUnit.MINUTES);
+
+        List<CompletableFuture<UpstoxResponse<Feed>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(cache.liveFeed("NSE_EQ", "INFY", i % 2 == 0 ? "ltp" : "LTP"));
+        }
+        futures.get(0).cancel(false);
+
+        for (int i = 1; i < futures.size(); i++) {
+            assertEquals(new BigDecimal("1170.5"), futures.get(i).get().getData().getLtp());
+        }
+        assertEquals(new BigDecimal("1170.5"), cache.liveFeed("NSE_EQ", "INFY", "ltp").get().getData().getLtp());
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getRequestCount());
+        assertEquals(4, cache.getCoalescedCount());
+        assertEquals(1, cache.getResponseHitCount());
+    }
+
+    @Test
+    void liveFeed_sharesRequest_whateverTheCase() throws Exception {
+        server.enqueue(new MockResponse().setBody(FEED).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        LiveFeedCache cache = new LiveFeedCache(new FeedService(upstoxAuthService), 1, TimeUnit.MINUTES);
+
+        CompletableFuture<UpstoxResponse<Feed>> first = cache.liveFeed("NSE_EQ", "INFY", "ltp");
+        CompletableFuture<UpstoxResponse<Feed>> second = cache.liveFeed("nse_eq", "infy", "LTP");
+
+        assertEquals(first.get(), second.get());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getCoalescedCount());
+    }
+
+    @Test
+    void liveFeed_failsJoinedCallers_whenRequestCannotBeMade() {
+        List<CompletableFuture<UpstoxResponse<Feed>>> joined = new ArrayList<>();
+        List<LiveFeedCache> cache = new ArrayList<>();
+        cache.add(new LiveFeedCache(new FeedService(upstoxAuthService) {
+            @Override
+            public CompletableFuture<UpstoxResponse<Feed>> liveFeed(String exchange, String symbol, String type) {
+                // Another caller joins before the request fails
+                joined.add(cache.get(0).liveFeed(exchange, symbol, type));
+                throw new IllegalArgumentException("Invalid");
+            }
+        }, 1, TimeUnit.MINUTES));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(0).liveFeed("NSE_EQ", "INFY", "ltp"));
+
+        assertEquals(1, joined.size());
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> joined.get(0).get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void liveFeed_requestsAgain_onceExpiredOrFailed() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody(FEED));
+        server.enqueue(new MockResponse().setBody(FEED));
+        LiveFeedCache cache = new LiveFeedCache(new FeedService(upstoxAuthService), 50, TimeUnit.MILLISECONDS);
+
+        assertThrows(ExecutionException.class, () -> cache.liveFeed("NSE_EQ", "INFY", "ltp").get());
+        assertNotNull(cache.liveFeed("NSE_EQ", "INFY", "ltp").get().getData());
+        assertNotNull(cache.liveFeed("NSE_EQ", "INFY", "ltp").get().getData());
+        assertEquals(2, server.getRequestCount());
+
+        Thread.sleep(100);
+        assertNotNull(cache.liveFeed("NSE_EQ", "INFY", "ltp").get().getData());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void liveFeed_answersFromTick_whenFreshEnough() throws Exception {
+        server.enqueue(new MockResponse().setBody(FEED));
+        LiveFeedCache cache = new LiveFeedCache(new FeedService(upstoxAuthService), 1, TimeUnit.MINUTES);
+
+        CompactFeed tick = new CompactFeed();
+        tick.setTimestamp(1529300000000L);
+        tick.setExchange("NSE_EQ");
+        tick.setSymbol("INFY");
+        tick.setLtp(1171 * FixedPoint.ONE);
+        cache.accept(tick);
+
+        UpstoxResponse<Feed> response = cache.liveFeed("NSE_EQ", "INFY", "ltp").get();
+        assertEquals(200, response.getCode());
+        assertEquals(0, new BigDecimal("1171").compareTo(response.getData().getLtp()));
+        assertEquals(1, cache.getTickHitCount());
+        assertEquals(0, server.getRequestCount());
+
+        // An LTP tick lacks what a full request needs
+        cache.liveFeed("NSE_EQ", "INFY", "full").get();
+        assertEquals(1, server.getRequestCount());
+
+        tick.setOpen(1165 * FixedPoint.ONE);
+        cache.accept(tick);
+        assertEquals(0, new BigDecimal("1165").compareTo(
+                cache.liveFeed("NSE_EQ", "INFY", "full").get().getData().getOpen()));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, cache.getTickHitCount());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDepthBookTest {
+
+    @Test
+    void apply_updatesBestPricesSpreadAndDepth() {
+        MarketDepthBook book = new MarketDepthBook("NSE_FO", "NIFTY18JUNFUT");
+        assertEquals(FixedPoint.NULL, book.getSpread());
+        assertEquals(0, book.getCumulativeBidQuantity(5));
+
+        assertTrue(book.apply(tick(1, 100, 10)));
+
+        assertEquals(1, book.getVersion());
+        assertEquals(100 * FixedPoint.ONE, book.getBestBidPrice());
+        assertEquals(101 * FixedPoint.ONE, book.getBestAskPrice());
+        assertEquals(FixedPoint.ONE, book.getSpread());
+        assertEquals(10, book.getBestBidQuantity());
+        assertEquals(10 + 11 + 12, book.getCumulativeBidQuantity(3));
+        assertEquals(10 + 11 + 12 + 13 + 14, book.getCumulativeAskQuantity(10));
+
+        assertFalse(book.apply(tick(2, 100, 10)), "An unchanged depth must not count as an update");
+        assertEquals(1, book.getVersion());
+
+        CompactFeed changed = tick(3, 100, 10);
+        changed.setBid(3, 96 * FixedPoint.ONE, 50, 5);
+        changed.setAskLevels(2);
+        assertTrue(book.apply(changed));
+        assertEquals(2, book.getVersion());
+        assertEquals(3, book.getTimestamp());
+        assertEquals(10 + 11 + 12 + 50 + 14, book.getCumulativeBidQuantity(5));
+        assertEquals(10 + 11, book.getCumulativeAskQuantity(5));
+
+        MarketDepthSnapshot snapshot = book.snapshot();
+        assertEquals(2, snapshot.getVersion());
+        assertEquals(5, snapshot.getBidLevels());
+        assertEquals(2, snapshot.getAskLevels());
+        assertEquals(96 * FixedPoint.ONE, snapshot.getBidPrice(3));
+        assertEquals(50, snapshot.getBidQuantity(3));
+        assertEquals(FixedPoint.ONE, snapshot.getSpread());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.getAskPrice(2));
+    }
+
+    @Test
+    void apply_leavesBook_whenTickHasNoDepth() {
+        MarketDepthBook book = new MarketDepthBook("NSE_EQ", "INFY");
+        book.apply(tick(1, 1170, 10));
+
+        CompactFeed ltp = new CompactFeed();
+        ltp.setTimestamp(2);
+        ltp.setLtp(1171 * FixedPoint.ONE);
+
+        assertFalse(book.apply(ltp));
+        assertEquals(1170 * FixedPoint.ONE, book.getBestBidPrice());
+    }
+
+    @Test
+    void apply_acceptsFeed() {
+        Feed feed = new Feed();
+        feed.setExchange("NSE_EQ");
+        feed.setSymbol("INFY");
+        feed.setBids(List.of(level("1170.05", 100L), level("1170", 200L)));
+        feed.setAsk(List.of(level("1170.5", 300L)));
+
+        MarketDepthBook book = new MarketDepthBook("NSE_EQ", "INFY");
+        assertTrue(book.apply(feed));
+
+        assertEquals(4500, book.getSpread());
+        assertEquals(300, book.getCumulativeBidQuantity(2));
+    }
+
+    @Test
+    void snapshot_isConsistent_whileUpdated() throws InterruptedException {
+        MarketDepthBook book = new MarketDepthBook("NSE_FO", "BANKNIFTY18JUNFUT");
+        book.apply(uniform(1));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> inconsistency = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            MarketDepthSnapshot snapshot = new MarketDepthSnapshot();
+            while (running.get()) {
+                book.snapshot(snapshot);
+                long value = snapshot.getBidQuantity(0);
+                for (int i = 0; i < CompactFeed.DEPTH; i++) {
+                    if (snapshot.getBidQuantity(i) != value || snapshot.getAskPrice(i) != value) {
+                        inconsistency.set(snapshot.toString());
+                    }
+                }
+                if (snapshot.getCumulativeAskQuantity(5) != 5 * value) {
+                    inconsistency.set(snapshot.toString());
+                }
+            }
+        });
+        reader.start();
+        for (int i = 2; i < 200_000; i++) {
+            book.apply(uniform(i));
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(inconsistency.get());
+        assertEquals(199_999, book.getVersion());
+    }
+
+    private static CompactFeed tick(long timestamp, long bestBid, long quantity) {
+        CompactFeed tick = new CompactFeed();
+        tick.setTimestamp(timestamp);
+        tick.setBidLevels(CompactFeed.DEPTH);
+        tick.setAskLevels(CompactFeed.DEPTH);
+        for (int i = 0; i < CompactFeed.DEPTH; i++) {
+            tick.setBid(i, (bestBid - i) * FixedPoint.ONE, quantity + i, 1 + i);
+            tick.setAsk(i, (bestBid + 1 + i) * FixedPoint.ONE, quantity + i, 1 + i);
+        }
+        return tick;
+    }
+
+    private static CompactFeed uniform(long value) {
+        CompactFeed tick = new CompactFeed();
+        tick.setTimestamp(value);
+        tick.setBidLevels(CompactFeed.DEPTH);
+        tick.setAskLevels(CompactFeed.DEPTH);
+        for (int i = 0; i < CompactFeed.DEPTH; i++) {
+            tick.setBid(i, value, value, value);
+            tick.setAsk(i, value, value, value);
+        }
+        return tick;
+    }
+
+    private static BidsAsk level(String price, Long quantity) {
+        BidsAsk level = new BidsAsk();
+        level.setPrice(new BigDecimal(price));
+        level.setQuantity(quantity);
+        level.setOrders(1L);
+        return level;
+    }
+}
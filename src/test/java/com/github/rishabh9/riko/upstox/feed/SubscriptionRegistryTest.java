@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.feed;
+
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.feed.models.FeedSubscription;
+import com.github.rishabh9.riko.upstox.feed.models.SubscriptionUpdate;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.github.rishabh9.riko.upstox.common.constants.LiveFeedType.FULL;
+import static com.github.rishabh9.riko.upstox.common.constants.LiveFeedType.LTP;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionRegistryTest {
+
+    private UpstoxAuthService upstoxAuthService = new UpstoxAuthService() {
+        @Override
+        public ApiCredentials getApiCredentials() {
+            return new ApiCredentials("secretApiKey", "secret-secret");
+        }
+
+        @Override
+        public AccessToken getAccessToken() {
+            AccessToken token = new AccessToken();
+            token.setExpiresIn(86400L);
+            token.setType("Bearer");
+            token.setToken("access_token_123456789");
+            return token;
+        }
+    };
+
+    private MockWebServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Set<String> refused = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.add(request.getRequestUrl().encodedPath() + "?"
+                        + request.getRequestUrl().queryParameter("symbol"));
+                boolean success = !refused.contains(request.getRequestUrl().queryParameter("symbol"));
+                return new MockResponse().setBody("{\"code\":200,\"data\":{\"success\":" + success + "}}");
+            }
+        });
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void setDesiredSubscriptions_onlyCallsForTheDifference() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry(new FeedService(upstoxAuthService));
+
+        SubscriptionUpdate update = registry.setDesiredSubscriptions(List.of(
+                new FeedSubscription(LTP, "NSE_EQ", List.of("ACC", "INFY")),
+                new FeedSubscription(LTP, "NSE_EQ", List.of("TCS")),
+                new FeedSubscription(FULL, "NSE_FO", List.of("NIFTY18JUNFUT")))).get();
+        assertTrue(update.isSuccess());
+        assertEquals(2, update.getRequests());
+        assertEquals(2, update.getSubscribed().size());
+        assertTrue(update.getUnsubscribed().isEmpty());
+
+        requests.clear();
+        update = registry.setDesiredSubscriptions(List.of(
+                new FeedSubscription(LTP, "NSE_EQ", List.of("INFY", "TCS", "SBIN")))).get();
+        assertTrue(update.isSuccess());
+        assertEquals(3, update.getRequests());
+        assertTrue(requests.contains("/live/feed/sub/LTP/NSE_EQ?SBIN"));
+        assertTrue(requests.contains("/live/feed/unsub/LTP/NSE_EQ?ACC"));
+        assertTrue(requests.contains("/live/feed/unsub/Full/NSE_FO?NIFTY18JUNFUT"));
+        assertEquals(List.of(new FeedSubscription(LTP, "NSE_EQ", Set.of("INFY", "TCS", "SBIN"))),
+                registry.getActiveSubscriptions());
+
+        requests.clear();
+        update = registry.setDesiredSubscriptions(List.of(
+                new FeedSubscription(LTP, "NSE_EQ", List.of("SBIN", "TCS", "INFY")))).get();
+        assertEquals(0, update.getRequests());
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void setDesiredSubscriptions_leavesOtherExchanges_whenScoped() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry(new FeedService(upstoxAuthService));
+        registry.setDesiredSubscriptions(List.of(
+                new FeedSubscription(LTP, "NSE_EQ", List.of("ACC")),
+                new FeedSubscription(LTP, "BSE_EQ", List.of("ACC")))).get();
+
+        SubscriptionUpdate update = registry.setDesiredSubscriptions(LTP, "NSE_EQ", List.of("INFY")).get();
+
+        assertEquals(2, update.getRequests());
+        assertEquals(Set.of(
+                new FeedSubscription(LTP, "NSE_EQ", Set.of("INFY")),
+                new FeedSubscription(LTP, "BSE_EQ", Set.of("ACC"))),
+                Set.copyOf(registry.getActiveSubscriptions()));
+    }
+
+    @Test
+    void setDesiredSubscriptions_appliesUpdatesInOrder() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry(new FeedService(upstoxAuthService));
+
+        CompletableFuture<SubscriptionUpdate> first = registry.setDesiredSubscriptions(LTP, "NSE_EQ",
+                List.of("ACC", "INFY"));
+        CompletableFuture<SubscriptionUpdate> second = registry.setDesiredSubscriptions(LTP, "NSE_EQ",
+                List.of("INFY", "TCS"));
+
+        assertEquals(1, first.get().getRequests());
+        SubscriptionUpdate update = second.get();
+        assertEquals(2, update.getRequests());
+        assertEquals(List.of(new FeedSubscription(LTP, "NSE_EQ", Set.of("INFY", "TCS"))),
+                registry.getActiveSubscriptions());
+    }
+
+    @Test
+    void setDesiredSubscriptions_triesAgain_whenSubscriptionWasRefused() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry(new FeedService(upstoxAuthService));
+        refused.add("TCS");
+
+        SubscriptionUpdate update = registry.setDesiredSubscriptions(LTP, "NSE_EQ", List.of("TCS")).get();
+        assertFalse(update.isSuccess());
+        assertTrue(registry.getActiveSubscriptions().isEmpty());
+
+        refused.clear();
+        requests.clear();
+        update = registry.setDesiredSubscriptions(LTP, "NSE_EQ", List.of("TCS")).get();
+
+        assertTrue(update.isSuccess());
+        assertEquals(List.of("/live/feed/sub/LTP/NSE_EQ?TCS"), requests);
+        assertEquals(List.of(new FeedSubscription(LTP, "NSE_EQ", Set.of("TCS"))),
+                registry.getActiveSubscriptions());
+    }
+}
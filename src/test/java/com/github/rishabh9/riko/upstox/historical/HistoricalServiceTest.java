@@ -26,9 +26,11 @@ package com.github.rishabh9.riko.upstox.historical;
 
 import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
 import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import com.github.rishabh9.riko.upstox.historical.models.CompactCandle;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import com.google.gson.Gson;
 import okhttp3.mockwebserver.MockResponse;
@@ -100,6 +102,40 @@ class HistoricalServiceTest {
         }
     }
 
+    @Test
+    void getOhlc_success_whenConvertedToCompactCandle() throws IOException {
+        MockWebServer server = new MockWebServer();
+
+        server.enqueue(new MockResponse().setBody("{\"code\":200,\"data\":[{\"timestamp\":1524117600000,"
+                + "\"open\":\"950.05\",\"high\":\"955.5\",\"low\":\"948.0025\",\"close\":\"951\","
+                + "\"volume\":12345,\"cp\":\"\"}]}"));
+
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        HistoricalService service = new HistoricalService(upstoxAuthService);
+
+        try {
+            Candle candle = service.getOhlc("NSE", "RELIANCE", "", "", "").get().getData().get(0);
+            CompactCandle compact = CompactCandle.from(candle);
+            assertEquals(9_500_500L, compact.getOpen());
+            assertEquals(9_480_025L, compact.getLow());
+            assertEquals(12345L, compact.getVolume());
+            assertEquals(FixedPoint.NULL, compact.getCp());
+            Candle back = compact.toCandle();
+            assertEquals(0, candle.getHigh().compareTo(back.getHigh()));
+            assertEquals(candle.getTimestamp(), back.getTimestamp());
+            assertNull(back.getCp());
+            assertEquals(compact, new CompactCandle().copyFrom(back));
+        } catch (ExecutionException | InterruptedException e) {
+            log.fatal(e);
+            fail();
+        } finally {
+            server.shutdown();
+        }
+    }
+
     @Test
     void getOhlc_failure_whenUpstoxReturnsError() throws IOException {
         MockWebServer server = new MockWebServer();
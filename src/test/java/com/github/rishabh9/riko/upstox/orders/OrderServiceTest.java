@@ -27,24 +27,34 @@ package com.github.rishabh9.riko.upstox.orders;
 import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.common.models.RetrySettings;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.orders.exceptions.OrderStatusUnknownException;
 import com.github.rishabh9.riko.upstox.orders.models.Order;
 import com.github.rishabh9.riko.upstox.orders.models.OrderRequest;
 import com.github.rishabh9.riko.upstox.orders.models.Trade;
 import com.google.gson.Gson;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ConnectException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static okhttp3.mockwebserver.SocketPolicy.DISCONNECT_AFTER_REQUEST;
+import static okhttp3.mockwebserver.SocketPolicy.NO_RESPONSE;
 import static org.junit.jupiter.api.Assertions.*;
 
 class OrderServiceTest {
@@ -761,4 +771,198 @@ class OrderServiceTest {
                 () -> new OrderService(null),
                 "Null check missing for 'UpstoxAuthService' from OrderService constructor");
     }
-}
\ No newline at end of file
+
+    @Test
+    void placeOrder_findsOrderInHistory_whenPlacingFailsOnNetworkError() throws Exception {
+        MockWebServer server = new MockWebServer();
+        OrderRequest request = limitOrder();
+        Order landed = orderLike(request, "ORD_ID_2", System.currentTimeMillis());
+        UpstoxResponse<List<Order>> history = new UpstoxResponse<>();
+        history.setCode(200);
+        history.setData(Collections.singletonList(landed));
+        server.enqueue(new MockResponse().setSocketPolicy(DISCONNECT_AFTER_REQUEST));
+        server.enqueue(new MockResponse().setBody(new Gson().toJson(history)));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(true).build());
+
+        OrderService service = new OrderService(upstoxAuthService);
+
+        try {
+            UpstoxResponse<Order> response = service.placeOrder(request).get(10, TimeUnit.SECONDS);
+            assertEquals("ORD_ID_2", response.getData().getOrderId());
+            assertEquals("POST", server.takeRequest().getMethod());
+            assertEquals("GET", server.takeRequest().getMethod());
+            assertEquals(2, server.getRequestCount(), "Order must never be placed again");
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void placeOrder_failsWithStatusUnknown_whenOrderDoesNotShowUpInHistory() throws Exception {
+        MockWebServer server = new MockWebServer();
+        OrderRequest request = limitOrder();
+        // Same order, but placed well before this one was requested
+        Order earlier = orderLike(request, "ORD_ID_1", System.currentTimeMillis() - 60_000);
+        UpstoxResponse<List<Order>> history = new UpstoxResponse<>();
+        history.setCode(200);
+        history.setData(Collections.singletonList(earlier));
+        final String body = new Gson().toJson(history);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recorded) {
+                return "POST".equals(recorded.getMethod())
+                        ? new MockResponse().setResponseCode(502)
+                        : new MockResponse().setBody(body);
+            }
+        });
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(lookUpSettings());
+
+        OrderService service = new OrderService(upstoxAuthService);
+
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> service.placeOrder(request).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof OrderStatusUnknownException,
+                    "A 502 must not be taken as the order not being placed");
+            assertTrue(e.getCause().getCause() instanceof retrofit2.HttpException);
+            assertTrue(server.getRequestCount() > 2, "Order history must be polled");
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void placeOrder_findsOrderInHistory_whenItShowsUpAfterReadTimeout() throws Exception {
+        MockWebServer server = new MockWebServer();
+        OrderRequest request = limitOrder();
+        UpstoxResponse<List<Order>> empty = new UpstoxResponse<>();
+        empty.setCode(200);
+        empty.setData(Collections.emptyList());
+        UpstoxResponse<List<Order>> history = new UpstoxResponse<>();
+        history.setCode(200);
+        history.setData(Collections.singletonList(orderLike(request, "ORD_ID_3", System.currentTimeMillis())));
+        final AtomicInteger lookUps = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recorded) {
+                if ("POST".equals(recorded.getMethod())) {
+                    // Never answered, so the client times out reading
+                    return new MockResponse().setSocketPolicy(NO_RESPONSE);
+                }
+                // The order only lands at the broker after the first look up
+                return new MockResponse().setBody(new Gson().toJson(
+                        lookUps.incrementAndGet() == 1 ? empty : history));
+            }
+        });
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(lookUpSettings());
+
+        OrderService service = new OrderService(upstoxAuthService);
+
+        try {
+            UpstoxResponse<Order> response = service.placeOrder(request).get(30, TimeUnit.SECONDS);
+            assertEquals("ORD_ID_3", response.getData().getOrderId());
+            assertTrue(lookUps.get() >= 2);
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void placeOrder_failsWithOriginalError_whenConnectionIsRefused() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        server.shutdown();
+        ServiceGenerator.getInstance().configureRetries(lookUpSettings());
+
+        OrderService service = new OrderService(upstoxAuthService);
+
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> service.placeOrder(limitOrder()).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof ConnectException,
+                    "Order that never left the client may be placed again");
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+        }
+    }
+
+    @Test
+    void placeOrder_doesNotLookUpHistory_whenOrderIsRejected() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{\"code\":400}"));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(true).build());
+
+        OrderService service = new OrderService(upstoxAuthService);
+
+        try {
+            assertThrows(ExecutionException.class, () -> service.placeOrder(limitOrder()).get(10, TimeUnit.SECONDS));
+            assertEquals(1, server.getRequestCount());
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void findPlacedOrder_throwsOrderStatusUnknown_whenTimeIsMissing() {
+        OrderRequest request = limitOrder();
+        Order order = orderLike(request, "ORD_ID_1", 0);
+        order.setTimeInMicro(null);
+        Order other = orderLike(request, "ORD_ID_2", System.currentTimeMillis());
+        other.setSymbol("TCS");
+
+        assertThrows(OrderStatusUnknownException.class, () -> OrderService.findPlacedOrder(
+                request, Collections.singletonList(order), TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())));
+        assertNull(OrderService.findPlacedOrder(request, Collections.singletonList(other), 0));
+    }
+
+    private static RetrySettings lookUpSettings() {
+        return RetrySettings.builder()
+                .enabled(true)
+                .backoff(20, 100, TimeUnit.MILLISECONDS)
+                .deadline(500, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private static OrderRequest limitOrder() {
+        OrderRequest request = new OrderRequest();
+        request.setExchange("NSE_EQ");
+        request.setSymbol("RELIANCE");
+        request.setTransactionType("B");
+        request.setOrderType("L");
+        request.setProduct("I");
+        request.setQuantity(10L);
+        request.setPrice(new BigDecimal("950.50"));
+        return request;
+    }
+
+    private static Order orderLike(OrderRequest request, String orderId, long placedAtMillis) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setExchange(request.getExchange().toLowerCase());
+        order.setSymbol(request.getSymbol().toLowerCase());
+        order.setTransactionType(request.getTransactionType());
+        order.setOrderType(request.getOrderType());
+        order.setProduct(request.getProduct());
+        order.setQuantity(request.getQuantity());
+        order.setPrice(new BigDecimal("950.5"));
+        order.setTimeInMicro(String.valueOf(TimeUnit.MILLISECONDS.toMicros(placedAtMillis)));
+        return order;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.orders.models;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactOrderTest {
+
+    @Test
+    void toOrder_returnsAnEqualOrder() {
+        Order order = order(new BigDecimal("1234.5600"), new BigDecimal("0.0001"), 100L);
+
+        CompactOrder compact = CompactOrder.from(order);
+
+        assertEquals(12_345_600L, compact.getPrice());
+        assertEquals(1L, compact.getTriggerPrice());
+        assertEquals(100L, compact.getQuantity());
+        assertTrue(compact.isAmo());
+        assertEquals(order, compact.toOrder());
+        assertEquals(compact, new CompactOrder().copyFrom(compact.toOrder()));
+    }
+
+    @Test
+    void toOrder_keepsNullFieldsNull() {
+        Order order = new Order();
+
+        CompactOrder compact = CompactOrder.from(order);
+
+        assertEquals(FixedPoint.NULL, compact.getToken());
+        assertEquals(FixedPoint.NULL, compact.getPrice());
+        assertEquals(FixedPoint.NULL, compact.getTriggerPrice());
+        assertEquals(FixedPoint.NULL, compact.getAveragePrice());
+        assertEquals(FixedPoint.NULL, compact.getQuantity());
+        assertEquals(FixedPoint.NULL, compact.getDisclosedQuantity());
+        assertEquals(FixedPoint.NULL, compact.getTradedQuantity());
+        assertEquals(order, compact.toOrder());
+    }
+
+    @Test
+    void copyFrom_overwritesEveryField() {
+        CompactOrder compact = CompactOrder.from(order(BigDecimal.TEN, BigDecimal.ONE, 7L));
+
+        compact.copyFrom(new Order());
+
+        assertEquals(CompactOrder.from(new Order()), compact);
+    }
+
+    private Order order(BigDecimal price, BigDecimal triggerPrice, Long quantity) {
+        Order order = new Order();
+        order.setExchange("NSE_EQ");
+        order.setToken(2885L);
+        order.setSymbol("RELIANCE");
+        order.setProduct("I");
+        order.setOrderType("L");
+        order.setDuration("DAY");
+        order.setPrice(price);
+        order.setTriggerPrice(triggerPrice);
+        order.setQuantity(quantity);
+        order.setDisclosedQuantity(0L);
+        order.setTransactionType("B");
+        order.setAveragePrice(new BigDecimal("1234.5000"));
+        order.setTradedQuantity(quantity);
+        order.setMessage("");
+        order.setExchangeOrderId("1300000001887410");
+        order.setParentOrderId("NA");
+        order.setOrderId("180604000000401");
+        order.setExchangeTime("04-Jun-2018 12:30:44");
+        order.setTimeInMicro("1528095644000000");
+        order.setStatus("complete");
+        order.setIs_amo(true);
+        order.setValidDate("1");
+        order.setOrderRequestId("1");
+        order.setFillLeg("1");
+        order.setReport("NA");
+        order.setText("NA");
+        return order;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.orders.models;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTradeTest {
+
+    @Test
+    void toTrade_returnsAnEqualTrade() {
+        Trade trade = trade(new BigDecimal("1234.5600"), 100L);
+
+        CompactTrade compact = CompactTrade.from(trade);
+
+        assertEquals(12_345_600L, compact.getTradedPrice());
+        assertEquals(100L, compact.getTradedQuantity());
+        assertEquals(trade, compact.toTrade());
+        assertEquals(compact, new CompactTrade().copyFrom(compact.toTrade()));
+    }
+
+    @Test
+    void toTrade_keepsNullFieldsNull() {
+        Trade trade = new Trade();
+
+        CompactTrade compact = CompactTrade.from(trade);
+
+        assertEquals(FixedPoint.NULL, compact.getToken());
+        assertEquals(FixedPoint.NULL, compact.getTradedQuantity());
+        assertEquals(FixedPoint.NULL, compact.getTradedPrice());
+        assertEquals(FixedPoint.NULL, compact.getTradeId());
+        assertEquals(trade, compact.toTrade());
+    }
+
+    private Trade trade(BigDecimal tradedPrice, Long tradedQuantity) {
+        Trade trade = new Trade();
+        trade.setExchange("NSE_EQ");
+        trade.setToken(2885L);
+        trade.setSymbol("RELIANCE");
+        trade.setProduct("I");
+        trade.setOrderType("L");
+        trade.setTransactionType("S");
+        trade.setTradedQuantity(tradedQuantity);
+        trade.setExchangeOrderId("1300000001887410");
+        trade.setOrderId("180604000000401");
+        trade.setExchangeTime("04-Jun-2018 12:30:44");
+        trade.setTimeInMicro("1528095644000000");
+        trade.setTradedPrice(tradedPrice);
+        trade.setTradeId(50_001_234L);
+        return trade;
+    }
+}
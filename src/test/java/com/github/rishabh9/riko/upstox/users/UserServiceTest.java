@@ -26,14 +26,19 @@ package com.github.rishabh9.riko.upstox.users;
 
 import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.metrics.HedgeMetrics;
 import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.common.models.HedgeSettings;
+import com.github.rishabh9.riko.upstox.common.models.RetrySettings;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import com.github.rishabh9.riko.upstox.users.models.*;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
@@ -48,6 +53,8 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static okhttp3.mockwebserver.SocketPolicy.DISCONNECT_AFTER_REQUEST;
 import static org.junit.jupiter.api.Assertions.*;
@@ -258,6 +265,39 @@ class UserServiceTest {
         }
     }
 
+    @Test
+    void getPositions_success_whenNumbersAreEmptyStrings() throws IOException {
+        MockWebServer server = new MockWebServer();
+
+        server.enqueue(new MockResponse().setBody("{\"code\":200,\"data\":[{" +
+                "\"exchange\":\"NSE_EQ\"," +
+                "\"avg_buy_price\":\"\"," +
+                "\"avg_sell_price\":\"1024.75\"," +
+                "\"last_traded_price\":1030.5," +
+                "\"realized_profit\":\"NaN\"," +
+                "\"unrealized_profit\":null}]}"));
+
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        UserService service = new UserService(upstoxAuthService);
+
+        try {
+            Position position = service.getPositions().get().getData().get(0);
+            assertFalse(position.getAverageBuyPrice().isNumber());
+            assertEquals(new BigDecimal("1024.75"), position.getAverageSellPrice().value());
+            assertEquals(new BigDecimal("1030.5"), position.getLastTradedPrice().value());
+            assertFalse(position.getRealizedProfit().isNumber());
+            assertNull(position.getUnrealizedProfit());
+        } catch (ExecutionException | InterruptedException e) {
+            log.fatal(e);
+            fail();
+        } finally {
+            server.shutdown();
+        }
+    }
+
     @Test
     void getPositions_failure_whenUpstoxReturnsError() throws IOException {
         MockWebServer server = new MockWebServer();
@@ -608,4 +648,174 @@ class UserServiceTest {
                 () -> new UserService(null),
                 "Null check missing for 'UpstoxAuthService' from UserService constructor");
     }
-}
\ No newline at end of file
+
+    @Test
+    void getProfile_throwNPE_whenAccessTokenIsMissing() {
+        UserService service = new UserService(new UpstoxAuthService() {
+            @Override
+            public ApiCredentials getApiCredentials() {
+                return new ApiCredentials("secretApiKey", "secret-secret");
+            }
+
+            @Override
+            public AccessToken getAccessToken() {
+                return null;
+            }
+        });
+
+        assertThrows(NullPointerException.class, service::getProfile,
+                "Missing access token must fail on the caller's thread");
+    }
+
+    @Test
+    void getPositions_success_afterTransientFailures() throws Exception {
+        MockWebServer server = new MockWebServer();
+        UpstoxResponse<List<Position>> response = new UpstoxResponse<>();
+        response.setCode(200);
+        response.setData(new ArrayList<>());
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setSocketPolicy(DISCONNECT_AFTER_REQUEST));
+        server.enqueue(new MockResponse().setBody(new Gson().toJson(response)));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(RetrySettings.builder()
+                .enabled(true)
+                .maxAttempts(3)
+                .backoff(10, 50, TimeUnit.MILLISECONDS)
+                .build());
+
+        UserService service = new UserService(upstoxAuthService);
+
+        try {
+            assertEquals(response, service.getPositions().get(10, TimeUnit.SECONDS));
+            assertEquals(3, server.getRequestCount());
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void getPositions_failure_whenAttemptsAreExhausted() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(RetrySettings.builder()
+                .enabled(true)
+                .maxAttempts(2)
+                .backoff(10, 50, TimeUnit.MILLISECONDS)
+                .build());
+
+        UserService service = new UserService(upstoxAuthService);
+
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> service.getPositions().get(10, TimeUnit.SECONDS));
+            assertEquals(500, ((retrofit2.HttpException) e.getCause()).code());
+            assertEquals(2, server.getRequestCount());
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void getPositions_failure_whenRetryWouldMissDeadline() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(504));
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureRetries(RetrySettings.builder()
+                .enabled(true)
+                .backoff(500, 1000, TimeUnit.MILLISECONDS)
+                .deadline(100, TimeUnit.MILLISECONDS)
+                .build());
+
+        UserService service = new UserService(upstoxAuthService);
+
+        try {
+            assertThrows(ExecutionException.class, () -> service.getPositions().get(10, TimeUnit.SECONDS));
+            assertEquals(1, server.getRequestCount());
+        } finally {
+            ServiceGenerator.getInstance().configureRetries(RetrySettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void getPositions_answeredByHedge_whenFirstRequestIsSlow() throws Exception {
+        MockWebServer server = new MockWebServer();
+        UpstoxResponse<List<Position>> response = new UpstoxResponse<>();
+        response.setCode(200);
+        response.setData(new ArrayList<>());
+        final String body = new Gson().toJson(response);
+        final AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse answer = new MockResponse().setBody(body);
+                // Only the first request is slow
+                return requests.incrementAndGet() == 1 ? answer.setBodyDelay(5, TimeUnit.SECONDS) : answer;
+            }
+        });
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureHedging(HedgeSettings.builder()
+                .enabled(true)
+                .initialDelay(50, TimeUnit.MILLISECONDS)
+                .build());
+
+        UserService service = new UserService(upstoxAuthService);
+
+        try {
+            long start = System.nanoTime();
+            assertEquals(response, service.getPositions().get(10, TimeUnit.SECONDS));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000,
+                    "Hedge must answer before the slow request");
+            assertEquals(2, server.getRequestCount());
+
+            HedgeMetrics metrics = ServiceGenerator.getInstance().getHedgeMetrics().get("/live/profile/positions");
+            assertTrue(metrics.getHedges() >= 1);
+            assertTrue(metrics.getHedgeWins() >= 1);
+        } finally {
+            ServiceGenerator.getInstance().configureHedging(HedgeSettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void getPositions_notHedged_whenAnsweredInTime() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        ServiceGenerator.getInstance().configureHedging(HedgeSettings.builder()
+                .enabled(true)
+                .initialDelay(2, TimeUnit.SECONDS)
+                .build());
+
+        UserService service = new UserService(upstoxAuthService);
+
+        try {
+            HedgeMetrics before = ServiceGenerator.getInstance().getHedgeMetrics().get("/live/profile/positions");
+            service.getPositions().get(10, TimeUnit.SECONDS);
+            HedgeMetrics after = ServiceGenerator.getInstance().getHedgeMetrics().get("/live/profile/positions");
+
+            assertEquals(1, server.getRequestCount());
+            assertEquals(null == before ? 1 : before.getCalls() + 1, after.getCalls());
+            assertEquals(null == before ? 0 : before.getHedges(), after.getHedges());
+        } finally {
+            ServiceGenerator.getInstance().configureHedging(HedgeSettings.builder().enabled(false).build());
+            server.shutdown();
+        }
+    }
+}
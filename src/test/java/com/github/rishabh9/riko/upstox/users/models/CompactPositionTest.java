@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.users.models;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.common.converters.NumberString;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPositionTest {
+
+    @Test
+    void toPosition_returnsAnEqualPosition() {
+        Position position = position(new BigDecimal("1234.5600"), 100L);
+
+        CompactPosition compact = CompactPosition.from(position);
+
+        assertEquals(12_345_600L, compact.getBuyAmount());
+        assertEquals(12_345_600L, compact.getAverageBuyPrice());
+        assertEquals(100L, compact.getNetQuantity());
+        assertEquals(position, compact.toPosition());
+        assertEquals(compact, new CompactPosition().copyFrom(compact.toPosition()));
+    }
+
+    @Test
+    void toPosition_keepsNullAmountsNull() {
+        Position position = new Position();
+
+        CompactPosition compact = CompactPosition.from(position);
+
+        assertEquals(FixedPoint.NULL, compact.getToken());
+        assertEquals(FixedPoint.NULL, compact.getBuyAmount());
+        assertEquals(FixedPoint.NULL, compact.getNetQuantity());
+        assertEquals(FixedPoint.NULL, compact.getAverageBuyPrice());
+        assertEquals(FixedPoint.NULL, compact.getRealizedProfit());
+        Position back = compact.toPosition();
+        assertNull(back.getToken());
+        assertNull(back.getBuyAmount());
+        assertNull(back.getCfAveragePrice());
+        assertNull(back.getNetQuantity());
+        // Number strings come back as "not a number" rather than null.
+        assertFalse(back.getAverageBuyPrice().isNumber());
+        assertFalse(back.getLastTradedPrice().isNumber());
+        assertFalse(back.getUnrealizedProfit().isNumber());
+        assertEquals(compact, CompactPosition.from(back));
+    }
+
+    @Test
+    void from_treatsNotANumberAsNull() {
+        Position position = position(new BigDecimal("1.0000"), 1L);
+        position.setRealizedProfit(new NumberString(null));
+
+        CompactPosition compact = CompactPosition.from(position);
+
+        assertEquals(FixedPoint.NULL, compact.getRealizedProfit());
+        assertEquals(position, compact.toPosition());
+    }
+
+    private Position position(BigDecimal amount, Long quantity) {
+        Position position = new Position();
+        position.setExchange("NSE_EQ");
+        position.setProduct("I");
+        position.setSymbol("RELIANCE");
+        position.setToken(2885L);
+        position.setBuyAmount(amount);
+        position.setSellAmount(amount);
+        position.setBuyQuantity(quantity);
+        position.setSellQuantity(quantity);
+        position.setCfBuyAmount(amount);
+        position.setCfSellAmount(amount);
+        position.setCfBuyQuantity(quantity);
+        position.setCfSellQuantity(quantity);
+        position.setAverageBuyPrice(new NumberString(amount));
+        position.setAverageSellPrice(new NumberString(amount));
+        position.setNetQuantity(quantity);
+        position.setClosePrice(amount);
+        position.setLastTradedPrice(new NumberString(amount));
+        position.setRealizedProfit(new NumberString(amount));
+        position.setUnrealizedProfit(new NumberString(amount));
+        position.setCfAveragePrice(amount);
+        return position;
+    }
+}
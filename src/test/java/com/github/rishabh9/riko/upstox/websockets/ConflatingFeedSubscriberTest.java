@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflatingFeedSubscriberTest {
+
+    @Test
+    void poll_returnsLatestTickOfChangedSymbolsOnly() {
+        ConflatingFeedSubscriber subscriber = new ConflatingFeedSubscriber();
+
+        subscriber.onNext(frame("1,NSE_EQ,INFY,1170,1165;1,NSE_EQ,RELIANCE,950,948"));
+        subscriber.onNext(frame("2,NSE_EQ,INFY,1171,1165"));
+        subscriber.onNext(new TextMessage(null, "ignored"));
+        subscriber.onNext(frame("3,NSE_EQ,INFY,1172.5,1165;3,BSE_EQ,INFY,1172,1165"));
+
+        assertEquals(3, subscriber.getChangedCount());
+        assertEquals(5, subscriber.getReceivedCount());
+        assertEquals(2, subscriber.getConflatedCount());
+
+        List<Feed> feeds = subscriber.poll();
+        assertEquals(3, feeds.size());
+        assertEquals("INFY", feeds.get(0).getSymbol());
+        assertEquals("NSE_EQ", feeds.get(0).getExchange());
+        assertEquals(0, new BigDecimal("1172.5").compareTo(feeds.get(0).getLtp()));
+        assertEquals("RELIANCE", feeds.get(1).getSymbol());
+        assertEquals("BSE_EQ", feeds.get(2).getExchange());
+
+        assertTrue(subscriber.poll().isEmpty());
+
+        subscriber.onNext(frame("4,NSE_EQ,RELIANCE,951,948"));
+        List<String> symbols = new ArrayList<>();
+        assertEquals(1, subscriber.poll((CompactFeed tick) -> symbols.add(tick.getSymbol())));
+        assertEquals(List.of("RELIANCE"), symbols);
+    }
+
+    @Test
+    void onNext_skipsMalformedFrames() {
+        ConflatingFeedSubscriber subscriber = new ConflatingFeedSubscriber();
+
+        subscriber.onNext(frame("1,NSE_EQ,INFY,abc,1165"));
+
+        assertEquals(0, subscriber.getChangedCount());
+        assertFalse(subscriber.isDone());
+    }
+
+    private static BinaryMessage frame(String text) {
+        return new BinaryMessage(null, ByteString.encodeUtf8(text));
+    }
+}
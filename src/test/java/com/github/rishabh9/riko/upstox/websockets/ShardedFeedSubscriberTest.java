@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import okio.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedFeedSubscriberTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final Map<String, List<Long>> timestamps = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void onNext_keepsOrderOfEachInstrument_acrossShards() throws InterruptedException {
+        ShardedFeedSubscriber subscriber = new ShardedFeedSubscriber("test", 4, this::record, executor);
+
+        for (int t = 1; t <= 40; t++) {
+            subscriber.onNext(frame(t, 0, 50));
+        }
+        await(() -> subscriber.getDeliveredCount() == 2000);
+
+        assertEquals(2000, subscriber.getReceivedCount());
+        assertEquals(0, subscriber.getDroppedCount());
+        assertEquals(0, subscriber.getPendingCount());
+        assertEquals(50, timestamps.size());
+        for (List<Long> received : timestamps.values()) {
+            assertEquals(40, received.size());
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(Long.valueOf(i + 1), received.get(i));
+            }
+        }
+    }
+
+    @Test
+    void onNext_movesInstrumentsOfFailedShard_toRemainingShards() throws InterruptedException {
+        Consumer<CompactFeed> handler = tick -> {
+            if ("BAD".equals(tick.getSymbol()) && tick.getTimestamp() == 1) {
+                throw new IllegalStateException("Handler failed");
+            }
+            record(tick);
+        };
+        ShardedFeedSubscriber subscriber = new ShardedFeedSubscriber("test", 4, handler, executor);
+
+        subscriber.onNext(new BinaryMessage(null, ByteString.encodeUtf8(
+                "1,NSE_FO,BAD,10,10;" + frame(1, 0, 20).getMessageAsString())));
+        await(() -> subscriber.getLiveShardCount() == 3);
+        subscriber.onNext(new BinaryMessage(null, ByteString.encodeUtf8(
+                "2,NSE_FO,BAD,10,10;" + frame(2, 0, 20).getMessageAsString())));
+        await(() -> subscriber.getDeliveredCount() == 41);
+
+        assertEquals(1, subscriber.getDroppedCount());
+        assertEquals(3, subscriber.getLiveShardCount());
+        assertFalse(subscriber.isDone());
+        assertTrue(subscriber.getError() instanceof IllegalStateException);
+        assertEquals(List.of(2L), timestamps.get("BAD"));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(List.of(1L, 2L), timestamps.get("S" + i));
+        }
+    }
+
+    @Test
+    void onNext_isDone_whenEveryShardHasFailed() throws InterruptedException {
+        ShardedFeedSubscriber subscriber = new ShardedFeedSubscriber("test", 1, tick -> {
+            throw new IllegalStateException("Handler failed");
+        }, executor);
+
+        subscriber.onNext(frame(1, 0, 1));
+        await(() -> subscriber.getLiveShardCount() == 0);
+        subscriber.onNext(frame(2, 0, 1));
+
+        assertTrue(subscriber.isDone());
+        assertTrue(subscriber.getError() instanceof IllegalStateException);
+        assertEquals(1, subscriber.getDroppedCount());
+        assertEquals(1, subscriber.getReceivedCount());
+    }
+
+    @Test
+    void constructor_throwIAE_whenShardsAreNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedFeedSubscriber(0, tick -> {
+        }), "Validation of the number of shards missing.");
+    }
+
+    private void record(CompactFeed tick) {
+        timestamps.computeIfAbsent(tick.getSymbol(), symbol -> Collections.synchronizedList(new ArrayList<>()))
+                .add(tick.getTimestamp());
+    }
+
+    private static BinaryMessage frame(long timestamp, int from, int to) {
+        StringJoiner records = new StringJoiner(";");
+        for (int i = from; i < to; i++) {
+            records.add(timestamp + ",NSE_FO,S" + i + "," + (100 + timestamp) + ",100");
+        }
+        return new BinaryMessage(null, ByteString.encodeUtf8(records.toString()));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.metrics.ReconnectMetrics;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.feed.FeedService;
+import com.github.rishabh9.riko.upstox.feed.models.FeedSubscription;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.websockets.dispatchers.RingBufferDispatcher;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupervisedWebSocketTest {
+
+    private UpstoxAuthService upstoxAuthService = new UpstoxAuthService() {
+        @Override
+        public ApiCredentials getApiCredentials() {
+            return new ApiCredentials("secretApiKey", "secret-secret");
+        }
+
+        @Override
+        public AccessToken getAccessToken() {
+            AccessToken token = new AccessToken();
+            token.setExpiresIn(86400L);
+            token.setType("Bearer");
+            token.setToken("access_token_123456789");
+            return token;
+        }
+    };
+
+    private MockWebServer server;
+    private final AtomicInteger parameterRequests = new AtomicInteger();
+    private final List<String> subscribeRequests = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<WebSocket> serverSockets = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final String path = request.getPath();
+                if (path.startsWith("/live/socket-params")) {
+                    parameterRequests.incrementAndGet();
+                    return new MockResponse().setBody("{\"code\":200,\"data\":{\"keepaliveInterval\":60,"
+                            + "\"pythonPingInterval\":0,\"pythonPingTimeout\":10}}");
+                }
+                if (path.startsWith("/live/feed/sub/")) {
+                    subscribeRequests.add(path);
+                    return new MockResponse().setBody("{\"code\":200,\"data\":{\"success\":true}}");
+                }
+                return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                    @Override
+                    public void onOpen(WebSocket webSocket, Response response) {
+                        serverSockets.add(webSocket);
+                    }
+
+                    @Override
+                    public void onClosing(WebSocket webSocket, int code, String reason) {
+                        webSocket.close(code, reason);
+                    }
+                });
+            }
+        });
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        System.setProperty(RIKO_WS_SERVER_SCHEME, "http");
+        System.setProperty(RIKO_WS_SERVER_URL, server.getHostName());
+        System.setProperty(RIKO_WS_SERVER_PORT, String.valueOf(server.getPort()));
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        System.clearProperty(RIKO_WS_SERVER_SCHEME);
+        System.clearProperty(RIKO_WS_SERVER_URL);
+        System.clearProperty(RIKO_WS_SERVER_PORT);
+        server.shutdown();
+    }
+
+    @Test
+    void reconnects_andSubscribesAgain_whenServerClosesSocket()
+            throws InterruptedException, ExecutionException {
+        FeedService feedService = new FeedService(upstoxAuthService);
+        feedService.subscribe("full", "NSE_EQ", "INFY,RELIANCE").get();
+        assertEquals(List.of(new FeedSubscription("full", "NSE_EQ", Set.of("INFY", "RELIANCE"))),
+                feedService.getActiveSubscriptions());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SupervisedWebSocket connection = new SupervisedWebSocket(new WebSocketService(upstoxAuthService),
+                feedService, List.of(subscriber), new RingBufferDispatcher(), 10, 50);
+        connection.start();
+        try {
+            assertReconnects(connection, subscriber);
+        } finally {
+            connection.close();
+        }
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertFalse(connection.getMetrics().isConnected());
+    }
+
+    private void assertReconnects(SupervisedWebSocket connection, RecordingSubscriber subscriber)
+            throws InterruptedException {
+        WebSocket first = serverSockets.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        first.send(ByteString.encodeUtf8("1,NSE_EQ,INFY,1170,1165"));
+        assertNotNull(subscriber.binary.poll(5, TimeUnit.SECONDS));
+
+        first.close(1001, "Going away");
+
+        WebSocket second = serverSockets.poll(5, TimeUnit.SECONDS);
+        assertNotNull(second);
+        second.send(ByteString.encodeUtf8("2,NSE_EQ,INFY,1171,1165"));
+        BinaryMessage message = subscriber.binary.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message);
+        assertEquals("2,NSE_EQ,INFY,1171,1165", message.getMessageAsString());
+
+        for (int i = 0; i < 500 && subscribeRequests.size() < 3; i++) {
+            Thread.sleep(10);
+        }
+        // The initial subscription, then once per socket opened
+        assertEquals(3, subscribeRequests.size());
+        assertEquals(2, parameterRequests.get());
+        ReconnectMetrics metrics = connection.getMetrics();
+        assertTrue(metrics.isConnected());
+        assertEquals(1, metrics.getReconnects());
+        assertEquals(0, metrics.getCurrentGapMillis());
+        assertEquals(metrics.getLastGapMillis(), metrics.getTotalGapMillis());
+        assertFalse(subscriber.completed.await(10, TimeUnit.MILLISECONDS));
+    }
+
+    private static class RecordingSubscriber implements MessageSubscriber {
+
+        private final BlockingQueue<BinaryMessage> binary = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            if (item instanceof BinaryMessage) {
+                binary.add((BinaryMessage) item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
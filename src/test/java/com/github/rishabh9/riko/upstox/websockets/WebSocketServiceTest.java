@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.websockets.dispatchers.RingBufferDispatcher;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.WebRequestException;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketServiceTest {
+
+    private static final String PARAMETERS = "{\"code\":200,\"data\":{\"keepaliveInterval\":60,"
+            + "\"pythonPingInterval\":0,\"pythonPingTimeout\":10}}";
+
+    private UpstoxAuthService upstoxAuthService = new UpstoxAuthService() {
+        @Override
+        public ApiCredentials getApiCredentials() {
+            return new ApiCredentials("secretApiKey", "secret-secret");
+        }
+
+        @Override
+        public AccessToken getAccessToken() {
+            AccessToken token = new AccessToken();
+            token.setExpiresIn(86400L);
+            token.setType("Bearer");
+            token.setToken("access_token_123456789");
+            return token;
+        }
+    };
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        System.setProperty(RIKO_WS_SERVER_SCHEME, "http");
+        System.setProperty(RIKO_WS_SERVER_URL, server.getHostName());
+        System.setProperty(RIKO_WS_SERVER_PORT, String.valueOf(server.getPort()));
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        System.clearProperty(RIKO_WS_SERVER_SCHEME);
+        System.clearProperty(RIKO_WS_SERVER_URL);
+        System.clearProperty(RIKO_WS_SERVER_PORT);
+        server.shutdown();
+    }
+
+    @Test
+    void connectAsync_completes_onceSocketIsOpen() throws Exception {
+        BlockingQueue<WebSocket> serverSockets = new LinkedBlockingQueue<>();
+        server.enqueue(new MockResponse().setBody(PARAMETERS));
+        server.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                serverSockets.add(webSocket);
+            }
+
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                webSocket.close(code, reason);
+            }
+        }));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        CompletableFuture<WrappedWebSocket> future = new WebSocketService(upstoxAuthService)
+                .connectAsync(List.of(subscriber), new RingBufferDispatcher());
+
+        WrappedWebSocket socket = future.get(5, TimeUnit.SECONDS);
+        assertNotNull(socket);
+        WebSocket serverSocket = serverSockets.poll(5, TimeUnit.SECONDS);
+        assertNotNull(serverSocket);
+        serverSocket.send(ByteString.encodeUtf8("1,NSE_EQ,INFY,1170,1165"));
+        BinaryMessage message = subscriber.binary.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message);
+        assertEquals(socket, message.getSender());
+
+        assertTrue(socket.close());
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertNull(subscriber.error.get());
+    }
+
+    @Test
+    void connectAsync_failure_whenParametersAreUnavailable() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody("{\"code\":500,\"message\":\"Internal error\"}"));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        CompletableFuture<WrappedWebSocket> future = new WebSocketService(upstoxAuthService)
+                .connectAsync(List.of(subscriber), new RingBufferDispatcher());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof WebRequestException);
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error.get() instanceof WebRequestException);
+    }
+
+    @Test
+    void connect_failsSubscribers_whenParametersAreUnavailable() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"code\":500,\"message\":\"Internal error\"}"));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        WrappedWebSocket socket = new WebSocketService(upstoxAuthService)
+                .connect(List.of(subscriber), new RingBufferDispatcher());
+
+        assertNull(socket);
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error.get() instanceof WebRequestException);
+    }
+
+    @Test
+    void connectAsync_failure_whenUpgradeIsRefused() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(PARAMETERS));
+        server.enqueue(new MockResponse().setResponseCode(403));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        CompletableFuture<WrappedWebSocket> future = new WebSocketService(upstoxAuthService)
+                .connectAsync(List.of(subscriber), new RingBufferDispatcher());
+
+        assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertNotNull(subscriber.error.get());
+    }
+
+    @Test
+    void connectAsync_throwIAE_whenSubscribersAreMissing() {
+        WebSocketService service = new WebSocketService(upstoxAuthService);
+
+        assertThrows(IllegalArgumentException.class, () -> service.connectAsync(List.of()),
+                "Subscribers check missing.");
+        assertThrows(NullPointerException.class, () -> service.connectAsync(List.of(), null),
+                "Null check missing for dispatcher.");
+    }
+
+    private static class RecordingSubscriber implements MessageSubscriber {
+
+        private final BlockingQueue<BinaryMessage> binary = new LinkedBlockingQueue<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            if (item instanceof BinaryMessage) {
+                binary.add((BinaryMessage) item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.decoders;
+
+import com.github.rishabh9.riko.upstox.common.converters.FixedPoint;
+import com.github.rishabh9.riko.upstox.feed.models.CompactFeed;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.FeedDecodingException;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedDecoderTest {
+
+    private static final String FULL = "1524117600000,NSE_EQ,RELIANCE,950.05,948,949.5,955.5,947.25,"
+            + "123456,951.1234,NaN,,1000,2000,853.2,1042.8,820,1015.75,"
+            + "10,950,2,20,949.95,3,30,949.9,4,40,949.85,5,50,949.8,6,"
+            + "11,950.1,1,21,950.15,2,31,950.2,3,41,950.25,4,51,950.3,5,1524117599000";
+
+    @Test
+    void decode_success_whenFrameHoldsLtpAndFullRecords() {
+        FeedDecoder decoder = new FeedDecoder();
+        List<CompactFeed> ticks = new ArrayList<>();
+
+        int count = decoder.decode(ByteString.encodeUtf8(
+                "1524117600000,NSE_EQ,INFY,1170.00005,1165;\n" + FULL + ";"),
+                tick -> ticks.add(new CompactFeed().copyFrom(tick)));
+
+        assertEquals(2, count);
+        CompactFeed ltp = ticks.get(0);
+        assertEquals("INFY", ltp.getSymbol());
+        assertEquals(11_700_001L, ltp.getLtp());
+        assertEquals(11_650_000L, ltp.getClose());
+        assertEquals(FixedPoint.NULL, ltp.getOpen());
+        assertEquals(0, ltp.getBidLevels());
+
+        CompactFeed full = ticks.get(1);
+        assertEquals(1524117600000L, full.getTimestamp());
+        assertEquals("NSE_EQ", full.getExchange());
+        assertEquals(9_472_500L, full.getLow());
+        assertEquals(123456L, full.getVtt());
+        assertEquals(9_511_234L, full.getAtp());
+        assertEquals(FixedPoint.NULL, full.getOi());
+        assertEquals(FixedPoint.NULL, full.getSpotPrice());
+        assertEquals(CompactFeed.DEPTH, full.getBidLevels());
+        assertEquals(9_500_000L, full.getBidPrice(0));
+        assertEquals(50L, full.getBidQuantity(4));
+        assertEquals(6L, full.getBidOrders(4));
+        assertEquals(9_503_000L, full.getAskPrice(4));
+        assertEquals(1524117599000L, full.getLtt());
+        assertSame(ltp.getExchange(), full.getExchange());
+    }
+
+    @Test
+    void decode_reusesTick_acrossRecords() {
+        FeedDecoder decoder = new FeedDecoder();
+        List<CompactFeed> ticks = new ArrayList<>();
+
+        decoder.decode(ByteString.encodeUtf8(FULL + ";" + FULL), ticks::add);
+
+        assertEquals(2, ticks.size());
+        assertSame(ticks.get(0), ticks.get(1));
+    }
+
+    @Test
+    void decode_failure_whenNumberIsMalformed() {
+        FeedDecoder decoder = new FeedDecoder();
+
+        assertThrows(FeedDecodingException.class, () -> decoder.decode(
+                ByteString.encodeUtf8("1524117600000,NSE_EQ,INFY,11x0,1165"), tick -> {
+                }));
+        assertThrows(FeedDecodingException.class, () -> decoder.decode(
+                ByteString.encodeUtf8("1524117600000,NSE_EQ"), tick -> {
+                }));
+    }
+
+    @Test
+    void decode_failure_whenFullRecordIsTruncated() {
+        FeedDecoder decoder = new FeedDecoder();
+        List<CompactFeed> ticks = new ArrayList<>();
+        String truncated = FULL.substring(0, FULL.indexOf(",10,950,"));
+
+        assertThrows(FeedDecodingException.class, () -> decoder.decode(
+                ByteString.encodeUtf8(FULL + ";" + truncated), ticks::add));
+        assertEquals(1, ticks.size());
+        assertThrows(FeedDecodingException.class, () -> decoder.decode(
+                ByteString.encodeUtf8("1524117600000,NSE_EQ,INFY,1170,1165,1160"), tick -> {
+                }));
+    }
+}
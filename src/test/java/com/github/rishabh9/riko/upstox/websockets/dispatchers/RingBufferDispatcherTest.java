@@ -0,0 +1,307 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatchers;
+
+import com.github.rishabh9.riko.upstox.common.metrics.SubscriberMetrics;
+import com.github.rishabh9.riko.upstox.websockets.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.MessageSubscriber;
+import com.github.rishabh9.riko.upstox.websockets.exceptions.SlowSubscriberException;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferDispatcherTest {
+
+    @Test
+    void dispatch_deliversInOrder_withEveryWaitStrategy() throws InterruptedException {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            RingBufferDispatcher dispatcher = new RingBufferDispatcher(64, strategy);
+            CollectingSubscriber first = new CollectingSubscriber("first", 1);
+            CollectingSubscriber second = new CollectingSubscriber("second", Long.MAX_VALUE);
+            dispatcher.subscribe(first);
+            dispatcher.subscribe(second);
+            assertTrue(first.subscribed.await(5, TimeUnit.SECONDS));
+            assertTrue(second.subscribed.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 1000; i++) {
+                dispatcher.dispatch(new TextMessage(null, String.valueOf(i)));
+                if (i % 32 == 31) {
+                    // Let the subscribers keep up, so that nothing gets dropped
+                    while (dispatcher.getSubscriberMetrics().stream().anyMatch(m -> m.getLag() > 0)) {
+                        Thread.yield();
+                    }
+                }
+            }
+            dispatcher.close();
+
+            assertTrue(first.completed.await(5, TimeUnit.SECONDS), strategy.name());
+            assertTrue(second.completed.await(5, TimeUnit.SECONDS), strategy.name());
+            for (CollectingSubscriber subscriber : List.of(first, second)) {
+                assertEquals(1000, subscriber.received.size(), strategy.name());
+                for (int i = 0; i < 1000; i++) {
+                    assertEquals(String.valueOf(i),
+                            ((TextMessage) subscriber.received.get(i)).getMessage());
+                }
+            }
+            assertTrue(dispatcher.getSubscriberMetrics().isEmpty());
+        }
+    }
+
+    @Test
+    void dispatch_dropsNewest_whenSubscriberDoesNotRequest() throws InterruptedException {
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher(6, WaitStrategy.BLOCKING);
+        CollectingSubscriber subscriber = new CollectingSubscriber("idle", 0);
+        dispatcher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(new TextMessage(null, String.valueOf(i)));
+        }
+
+        SubscriberMetrics metrics = dispatcher.getSubscriberMetrics().get(0);
+        assertEquals("idle", metrics.getName());
+        assertEquals(8, metrics.getPublished());
+        assertEquals(2, metrics.getDropped());
+        assertEquals(8, metrics.getLag());
+        assertEquals(0, metrics.getDelivered());
+
+        subscriber.subscription.request(3);
+        dispatcher.closeExceptionally(new IllegalStateException("closed"));
+        assertTrue(subscriber.failed.await(5, TimeUnit.SECONDS));
+        assertEquals(3, subscriber.received.size());
+        assertEquals("2", ((TextMessage) subscriber.received.get(2)).getMessage());
+    }
+
+    @Test
+    void dispatch_dropsOldest_whenPolicyIsDropOldest() throws InterruptedException {
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher(8, WaitStrategy.BLOCKING);
+        CollectingSubscriber subscriber =
+                new CollectingSubscriber("oldest", 0, BackpressurePolicy.DROP_OLDEST);
+        dispatcher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(new TextMessage(null, String.valueOf(i)));
+        }
+
+        SubscriberMetrics metrics = dispatcher.getSubscriberMetrics().get(0);
+        assertEquals(2, metrics.getDropped());
+        assertEquals(8, metrics.getLag());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        dispatcher.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(8, subscriber.received.size());
+        assertEquals("2", ((TextMessage) subscriber.received.get(0)).getMessage());
+        assertEquals("9", ((TextMessage) subscriber.received.get(7)).getMessage());
+    }
+
+    @Test
+    void dispatch_keepsLatestPerSymbol_whenPolicyIsConflate() throws InterruptedException {
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher(8, WaitStrategy.BLOCKING);
+        CollectingSubscriber subscriber =
+                new CollectingSubscriber("conflating", 0, BackpressurePolicy.CONFLATE_LATEST_PER_SYMBOL);
+        dispatcher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(frame("NSE_EQ,INFY", i));
+            dispatcher.dispatch(frame("NSE_EQ,RELIANCE", i));
+        }
+        dispatcher.dispatch(new TextMessage(null, "text"));
+
+        SubscriberMetrics metrics = dispatcher.getSubscriberMetrics().get(0);
+        assertEquals(18, metrics.getConflated());
+        assertEquals(0, metrics.getDropped());
+        assertEquals(3, metrics.getLag());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        dispatcher.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(frame("NSE_EQ,INFY", 9), frame("NSE_EQ,RELIANCE", 9), new TextMessage(null, "text")),
+                subscriber.received);
+    }
+
+    @Test
+    void dispatch_failsSubscriber_whenPolicyIsFailWhenFullAndBufferIsFull() throws InterruptedException {
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher(4, WaitStrategy.BLOCKING);
+        CollectingSubscriber subscriber =
+                new CollectingSubscriber("bounded", 0, BackpressurePolicy.FAIL_WHEN_FULL);
+        dispatcher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 4; i++) {
+            dispatcher.dispatch(new TextMessage(null, String.valueOf(i)));
+        }
+        assertEquals(0, dispatcher.getSubscriberMetrics().get(0).getDropped());
+        dispatcher.dispatch(new TextMessage(null, "4"));
+
+        assertTrue(subscriber.failed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof SlowSubscriberException);
+        assertTrue(subscriber.received.isEmpty());
+        assertTrue(dispatcher.getSubscriberMetrics().isEmpty());
+    }
+
+    @Test
+    void subscribe_runsOnInjectedExecutor_andReleasesItsThreadOnClose() throws InterruptedException {
+        List<String> started = new CopyOnWriteArrayList<>();
+        DispatchExecutor executor = DispatchExecutor.builder()
+                .namePrefix("test-dispatch-")
+                .onThreadStart(thread -> started.add(thread.getName()))
+                .build();
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher(8, WaitStrategy.BLOCKING, executor);
+        CollectingSubscriber subscriber = new CollectingSubscriber("injected", Long.MAX_VALUE);
+        dispatcher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("test-dispatch-1"), started);
+        assertEquals(1, executor.getActiveThreadCount());
+        assertEquals(0, executor.getQueuedTaskCount());
+
+        dispatcher.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 500 && executor.getActiveThreadCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getActiveThreadCount());
+        assertEquals(1, executor.getCompletedTaskCount());
+
+        executor.shutdown();
+        assertTrue(executor.isShutdown());
+        DispatchExecutor.getDefault().shutdown();
+        assertFalse(DispatchExecutor.getDefault().isShutdown());
+    }
+
+    @Test
+    void subscribe_failsSubscriber_whenExecutorHasNoThreadLeft() throws InterruptedException {
+        DispatchExecutor executor = DispatchExecutor.builder().maxThreads(1).build();
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher(8, WaitStrategy.BLOCKING, executor);
+        CollectingSubscriber first = new CollectingSubscriber("first", Long.MAX_VALUE);
+        CollectingSubscriber second = new CollectingSubscriber("second", Long.MAX_VALUE);
+        dispatcher.subscribe(first);
+        assertTrue(first.subscribed.await(5, TimeUnit.SECONDS));
+
+        dispatcher.subscribe(second);
+
+        assertTrue(second.failed.await(5, TimeUnit.SECONDS));
+        assertTrue(second.error instanceof RejectedExecutionException);
+        assertEquals(1, dispatcher.getSubscriberMetrics().size());
+        assertEquals(0, executor.getQueuedTaskCount());
+
+        dispatcher.close();
+        assertTrue(first.completed.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void request_failsSubscriber_whenNotPositive() throws InterruptedException {
+        RingBufferDispatcher dispatcher = new RingBufferDispatcher();
+        CollectingSubscriber subscriber = new CollectingSubscriber("bad", 0);
+        dispatcher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.failed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(dispatcher.getSubscriberMetrics().isEmpty());
+    }
+
+    private static BinaryMessage frame(String instrument, int ltp) {
+        return new BinaryMessage(null, ByteString.encodeUtf8("1524117600000," + instrument + "," + ltp + ",948"));
+    }
+
+    private static class CollectingSubscriber implements MessageSubscriber {
+
+        private final String name;
+        private final long batch;
+        private final BackpressurePolicy policy;
+        private final List<WebSocketMessage> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        private CollectingSubscriber(String name, long batch) {
+            this(name, batch, BackpressurePolicy.DROP_NEWEST);
+        }
+
+        private CollectingSubscriber(String name, long batch, BackpressurePolicy policy) {
+            this.name = name;
+            this.batch = batch;
+            this.policy = policy;
+        }
+
+        @Override
+        public BackpressurePolicy getBackpressurePolicy() {
+            return policy;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            received.add(item);
+            if (batch == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            failed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}